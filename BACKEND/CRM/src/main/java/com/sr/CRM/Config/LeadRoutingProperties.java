@@ -0,0 +1,26 @@
+package com.sr.CRM.Config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Settings for automatic lead routing. {@code strategy} is the bean name of a
+ * LeadRoutingStrategy; the weights are only read by the "weighted" strategy, where an
+ * employee's weight is their position weight times their department weight (default 1).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "crm.lead-routing")
+public class LeadRoutingProperties {
+
+    private String strategy = "least-open-leads";
+
+    private Map<String, Double> positionWeights = new HashMap<>();
+
+    private Map<String, Double> departmentWeights = new HashMap<>();
+}
@@ -0,0 +1,27 @@
+package com.sr.CRM.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.sr.CRM.Util.SingleFlightCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class ReadCacheConfig {
+
+    // Analytics and dashboard reads; keys are "<endpoint>:<scope>[:<params>]"
+    @Bean
+    public SingleFlightCache analyticsReadCache(MeterRegistry meterRegistry,
+            @Value("${crm.read-cache.analytics.ttl-ms:5000}") long ttlMillis) {
+        return new SingleFlightCache("analytics", ttlMillis, meterRegistry);
+    }
+
+    // Lead pipeline views; LeadService drops the views a lead write touches, the TTL only bounds staleness
+    @Bean
+    public SingleFlightCache leadPipelineCache(MeterRegistry meterRegistry,
+            @Value("${crm.read-cache.pipeline.ttl-ms:60000}") long ttlMillis) {
+        return new SingleFlightCache("leadPipeline", ttlMillis, meterRegistry);
+    }
+}
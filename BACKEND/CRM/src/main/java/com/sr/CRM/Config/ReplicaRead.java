@@ -0,0 +1,21 @@
+package com.sr.CRM.Config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * A read-only service method that may be served by the replica. Only transactions opened
+ * under this marker are routed there; plain {@code readOnly} transactions, including Spring
+ * Data's default repository ones, stay on the primary. See {@link ReplicaRoutingDataSource}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Transactional(readOnly = true)
+public @interface ReplicaRead {
+}
@@ -0,0 +1,27 @@
+package com.sr.CRM.Config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// Outside the transaction interceptor, so the marker is already set when the first statement picks a pool
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty("crm.datasource.replica.url")
+public class ReplicaReadAspect {
+
+    @Around("@annotation(com.sr.CRM.Config.ReplicaRead)")
+    public Object markReplicaRead(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean alreadyMarked = ReplicaRoutingDataSource.markReplicaRead();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReplicaRoutingDataSource.clearReplicaRead(alreadyMarked);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.sr.CRM.Config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections for read-only transactions opened by an authenticated caller inside a
+ * {@link ReplicaRead} method to the replica, and everything else to the primary. Must sit
+ * behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so the
+ * choice is made at the first statement, once the transaction's read-only flag is known.
+ * Hibernate has to give the connection back at the end of each transaction (see
+ * ReplicaDataSourceConfig), otherwise the open-in-view session would carry a replica
+ * connection into the request's later read-write transactions.
+ * <p>
+ * A caller whose own write committed within the last {@code readYourWritesMillis} reads
+ * from the primary, so they never miss their change because of replication lag. Background
+ * loads (startup index builds, schedulers) have no caller and always use the primary. If
+ * the replica refuses a connection, reads fall back to the primary for {@code retryMillis}.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final ThreadLocal<Boolean> REPLICA_READ = ThreadLocal.withInitial(() -> false);
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long readYourWritesMillis;
+    private final long retryMillis;
+    private final Map<String, Long> lastWriteAt = new ConcurrentHashMap<>();
+    private volatile long replicaDownUntil;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, long readYourWritesMillis,
+            long retryMillis) {
+        this.primary = primary;
+        this.replica = replica;
+        this.readYourWritesMillis = readYourWritesMillis;
+        this.retryMillis = retryMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        String caller = currentCaller();
+        if (!useReplica(caller)) {
+            rememberWrite(caller);
+            return primary.getConnection();
+        }
+        try {
+            return replica.getConnection();
+        } catch (SQLException e) {
+            replicaDownUntil = System.currentTimeMillis() + retryMillis;
+            log.warn("Replica unavailable, reading from the primary for {} ms: {}", retryMillis, e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Credentials are configured per pool");
+    }
+
+    // Returns whether an enclosing ReplicaRead method had already set the marker
+    static boolean markReplicaRead() {
+        boolean alreadyMarked = REPLICA_READ.get();
+        REPLICA_READ.set(true);
+        return alreadyMarked;
+    }
+
+    static void clearReplicaRead(boolean alreadyMarked) {
+        if (!alreadyMarked) {
+            REPLICA_READ.remove();
+        }
+    }
+
+    private boolean useReplica(String caller) {
+        if (caller == null || !REPLICA_READ.get() || !TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (now < replicaDownUntil) {
+            return false;
+        }
+        Long wroteAt = lastWriteAt.get(caller);
+        if (wroteAt == null) {
+            return true;
+        }
+        if (now - wroteAt < readYourWritesMillis) {
+            return false;
+        }
+        lastWriteAt.remove(caller, wroteAt);
+        return true;
+    }
+
+    // Read-write transactions start the caller's window when they commit
+    private void rememberWrite(String caller) {
+        if (caller == null || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lastWriteAt.put(caller, System.currentTimeMillis());
+            }
+        });
+    }
+
+    private static String currentCaller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken) ? authentication.getName() : null;
+    }
+}
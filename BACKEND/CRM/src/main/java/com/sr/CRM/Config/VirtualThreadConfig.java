@@ -0,0 +1,23 @@
+package com.sr.CRM.Config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Servlet requests run on virtual threads when {@code spring.threads.virtual.enabled} is set
+ * (the default, see application.properties); setting {@code CRM_VIRTUAL_THREADS=false} falls
+ * back to Tomcat's platform-thread pool. Background work is submitted to
+ * {@link #virtualThreadExecutor()} directly; nothing here uses {@code @Async}.
+ */
+@Configuration
+public class VirtualThreadConfig {
+
+    // Used for fan-out work inside a request, independently of the servlet thread mode
+    @Bean(destroyMethod = "close")
+    public ExecutorService virtualThreadExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
@@ -4,9 +4,13 @@ import com.sr.CRM.Model.Client;
 import com.sr.CRM.Model.Lead;
 import com.sr.CRM.Model.Tasks;
 import com.sr.CRM.Model.Users;
+import com.sr.CRM.Repository.ProjectionRepository;
 import com.sr.CRM.Service.ClientService;
+import com.sr.CRM.Service.DirectoryService;
 import com.sr.CRM.Service.LeadService;
 import com.sr.CRM.Service.TaskService;
+import com.sr.CRM.Model.DTO.DirectoryFilterDTO;
+import com.sr.CRM.Model.DTO.TaskFilterDTO;
 import com.sr.CRM.Model.DTO.UserDTO;
 import com.sr.CRM.Service.UserService;
 
@@ -23,12 +27,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -37,6 +43,9 @@ public class AdminController {
     @Autowired
     private ClientService clientService;
 
+    @Autowired
+    private DirectoryService directoryService;
+
     @Autowired
     private LeadService leadService;
 
@@ -46,6 +55,13 @@ public class AdminController {
     @Autowired
     private TaskService taskService;
 
+    @GetMapping("/duplicates")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getDuplicateReport(@RequestParam(defaultValue = "0.92") double threshold,
+            @RequestParam(defaultValue = "100") int limit) {
+        return leadService.getDuplicateReport(threshold, limit);
+    }
+
     @PostMapping("/addEmployee")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> addEmployee(@Valid @RequestBody UserDTO userDTO) {
@@ -93,8 +109,12 @@ public class AdminController {
 
     @GetMapping("/allLeads")
     @PreAuthorize("hasRole('ADMIN')")
-    public Page<Map<String, Object>> getAllLeadsForAdmin(Pageable pageable,
-            @RequestParam(required = false) String status) {
+    public ResponseEntity<?> getAllLeadsForAdmin(Pageable pageable,
+            @RequestParam(required = false) String status, @RequestParam(required = false) String fields) {
+        List<String> selected = ProjectionRepository.selectFields(fields, LeadService.LIST_FIELDS);
+        if (selected != null) {
+            return ResponseEntity.ok(leadService.getAllLeads(pageable, status, selected));
+        }
         Page<Lead> leads = leadService.getAllLeads(pageable, status);
         List<Map<String, Object>> response = new ArrayList<>();
         for (Lead l : leads.getContent()) {
@@ -111,7 +131,7 @@ public class AdminController {
             leadMap.put("assignedToId", l.getAssignedTo().getId());
             response.add(leadMap);
         }
-        return new PageImpl<>(response, pageable, leads.getTotalElements());
+        return ResponseEntity.ok(new PageImpl<>(response, pageable, leads.getTotalElements()));
     }
 
     @GetMapping("/getAllClients")
@@ -122,9 +142,13 @@ public class AdminController {
 
     @GetMapping("/allTasks")
     @PreAuthorize("hasRole('ADMIN')")
-    public Page<Map<String, Object>> getAllTasksForAdmin(Pageable pageable,
-            @RequestParam(required = false) String status) {
-        Page<Tasks> tasks = taskService.getAllTasks(pageable, status);
+    public ResponseEntity<?> getAllTasksForAdmin(Pageable pageable, TaskFilterDTO filter,
+            @RequestParam(required = false) String fields) {
+        List<String> selected = ProjectionRepository.selectFields(fields, TaskService.LIST_FIELDS);
+        if (selected != null) {
+            return ResponseEntity.ok(taskService.getAllTasks(pageable, filter, selected));
+        }
+        Page<Tasks> tasks = taskService.getAllTasks(pageable, filter);
         List<Map<String, Object>> response = new ArrayList<>();
         for (Tasks t : tasks.getContent()) {
             Map<String, Object> taskMap = new HashMap<>();
@@ -142,13 +166,36 @@ public class AdminController {
             taskMap.put("assignedById", t.getAssignedBy().getId());
             response.add(taskMap);
         }
-        return new PageImpl<>(response, pageable, tasks.getTotalElements());
+        return ResponseEntity.ok(new PageImpl<>(response, pageable, tasks.getTotalElements()));
+    }
+
+    @GetMapping("/directory")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getDirectory(DirectoryFilterDTO filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return directoryService.getPage(filter, cursor, limit);
+    }
+
+    @GetMapping(value = "/directory/export", produces = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportDirectory(DirectoryFilterDTO filter) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"employees.csv\"")
+                .body(out -> directoryService.exportCsv(filter, out));
+    }
+
+    @GetMapping("/cacheStats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getCacheStatistics() {
+        return userService.getCacheStatistics();
     }
 
     @GetMapping("/getAllEmployees")
     @PreAuthorize("hasRole('ADMIN')")
-    public List<Users> getUsers() {
-        return userService.getAllEmployees();
+    public ResponseEntity<?> getUsers(@RequestParam(required = false) String fields) {
+        List<String> selected = ProjectionRepository.selectFields(fields, UserService.EMPLOYEE_FIELDS);
+        return ResponseEntity.ok(userService.getAllEmployees(selected));
     }
 
     // @PutMapping("/updateEmployee/{id}")
@@ -1,13 +1,17 @@
 package com.sr.CRM.Controller;
 
+import com.sr.CRM.Model.Lead.LeadStatus;
 import com.sr.CRM.Service.AnalyticsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
 import java.util.Map;
 
 @RestController
@@ -34,4 +38,19 @@ public class AnalyticsController {
     public ResponseEntity<Map<String, Object>> getAdminAnalytics() {
         return ResponseEntity.ok(analyticsService.getAdminAnalytics());
     }
-}
\ No newline at end of file
+
+    @GetMapping("/funnel")
+    @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER','ADMIN')")
+    public ResponseEntity<Map<String, Object>> getFunnel(
+            @RequestParam(defaultValue = "NEW") LeadStatus from,
+            @RequestParam(defaultValue = "QUALIFIED") LeadStatus to,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate until) {
+        LocalDate end = until != null ? until : LocalDate.now();
+        LocalDate start = since != null ? since : end.minusDays(90);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(analyticsService.getFunnel(from, to, start, end));
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.sr.CRM.Model.Users;
 import com.sr.CRM.Model.DTO.ChangePasswordRequestDTO;
 import com.sr.CRM.Repository.UserRepository;
+import com.sr.CRM.Service.UserService;
 
 import jakarta.transaction.Transactional;
 
@@ -31,6 +32,9 @@ public class AuthController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserService userService;
+
     @Autowired
     private AuthenticationManager authenticationManager;
 
@@ -85,6 +89,7 @@ public class AuthController {
             // Update only password using JPQL
             String encodedNewPassword = passwordEncoder.encode(request.getNewPassword());
             userRepository.updatePasswordByUsername(encodedNewPassword, principal);
+            userService.evictUser(user.getId());
 
             System.out.println("Password updated successfully for: " + principal);
             return ResponseEntity.ok("Password changed successfully");
@@ -8,8 +8,10 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import com.sr.CRM.Model.Client;
 import com.sr.CRM.Service.ClientService;
+import com.sr.CRM.Util.ETags;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -25,7 +27,10 @@ public class ClientController {
 
     @GetMapping("/Employee/allClients")
     @PreAuthorize("hasRole('EMPLOYEE')")
-    public Page<Map<String, Object>> getEmployeeClients(Pageable pageable) {
+    public Page<Map<String, Object>> getEmployeeClients(Pageable pageable, WebRequest request) {
+        if (ETags.notModified(request, clientService.getEmployeeClientsETag())) {
+            return null;
+        }
         Page<Client> clients = clientService.getEmployeeClients(pageable);
         List<Map<String, Object>> response = new ArrayList<>();
         for (Client c : clients.getContent()) {
@@ -47,7 +52,10 @@ public class ClientController {
 
     @GetMapping("/Manager/allClientsOfEmployees")
     @PreAuthorize("hasRole('MANAGER')")
-    public Page<Map<String, Object>> getTeamClients(Pageable pageable) {
+    public Page<Map<String, Object>> getTeamClients(Pageable pageable, WebRequest request) {
+        if (ETags.notModified(request, clientService.getTeamClientsETag())) {
+            return null;
+        }
         Page<Client> clients = clientService.getTeamClients(pageable);
         List<Map<String, Object>> response = new ArrayList<>();
         for (Client c : clients.getContent()) {
@@ -1,5 +1,6 @@
 package com.sr.CRM.Controller;
 
+import com.sr.CRM.Events.DomainEvent;
 import com.sr.CRM.Exception.ResourceNotFoundException;
 import com.sr.CRM.Model.Client;
 import com.sr.CRM.Model.Lead;
@@ -10,10 +11,15 @@ import com.sr.CRM.Model.DTO.LeadDTO;
 import com.sr.CRM.Model.DTO.LeadUpdateDTO;
 import com.sr.CRM.Repository.ClientRepository;
 import com.sr.CRM.Repository.LeadRepository;
+import com.sr.CRM.Service.ClientService;
+import com.sr.CRM.Service.DuplicateIndex;
 import com.sr.CRM.Service.LeadService;
+import com.sr.CRM.Service.OutboxService;
 import com.sr.CRM.Service.UserService;
+import com.sr.CRM.Util.ETags;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -22,11 +28,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -43,6 +53,18 @@ public class LeadController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private DuplicateIndex duplicateIndex;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private ClientService clientService;
+
+    @Value("${crm.dedup.threshold:0.92}")
+    private double dedupThreshold;
+
     @PostMapping("/addLead")
     @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER')")
     // public Lead addLead(@Valid @RequestBody LeadDTO leadDTO) {
@@ -75,10 +97,27 @@ public class LeadController {
         }
     }
 
+    @GetMapping("/pipeline")
+    @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER','ADMIN')")
+    public Map<String, Object> getPipeline(@RequestParam(defaultValue = "own") String scope,
+            @RequestParam(defaultValue = "5") int limit) {
+        return leadService.getPipeline(scope, limit);
+    }
+
+    @GetMapping("/top")
+    @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER','ADMIN')")
+    public List<Map<String, Object>> getTopLeads(@RequestParam(defaultValue = "own") String scope,
+            @RequestParam(defaultValue = "10") int limit) {
+        return leadService.getTopLeads(scope, limit);
+    }
+
     @GetMapping("/myLeads")
     @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER')")
     public Page<Map<String, Object>> getMyLeads(@RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size, WebRequest request) {
+        if (ETags.notModified(request, leadService.getLeadsETag())) {
+            return null;
+        }
         Pageable pageable = PageRequest.of(page, size);
         return leadService.getLeads(pageable);
     }
@@ -113,6 +152,8 @@ public class LeadController {
     }
 
     @PostMapping("/convert/{id}")
+    @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER','ADMIN')")
+    @Transactional
     public ResponseEntity<?> convertLeadToClient(@PathVariable Long id, @RequestBody ConversionRequestDTO request,
             @AuthenticationPrincipal UserDetails userDetails) {
         try {
@@ -121,7 +162,7 @@ public class LeadController {
                     .orElseThrow(() -> new ResourceNotFoundException("Lead not found with ID: " + id));
 
             if (currentUser.getRoles().contains("ROLE_ADMIN")) {
-                ResponseEntity<String> result = performLeadConversion(lead);
+                ResponseEntity<String> result = performLeadConversion(lead, currentUser);
                 if (result.getStatusCode() == HttpStatus.OK) {
                     return ResponseEntity.ok(lead);
                 } else {
@@ -130,7 +171,7 @@ public class LeadController {
             } else if (currentUser.getRoles().contains("ROLE_MANAGER") &&
                     (lead.getAssignedTo().getId().equals(currentUser.getId()) ||
                             userService.isManagerOf(currentUser, lead.getAssignedTo()))) {
-                ResponseEntity<String> result = performLeadConversion(lead);
+                ResponseEntity<String> result = performLeadConversion(lead, currentUser);
                 if (result.getStatusCode() == HttpStatus.OK) {
                     return ResponseEntity.ok(lead);
                 } else {
@@ -142,11 +183,15 @@ public class LeadController {
                 lead.setConversionMessage(request.getMessage() != null ? request.getMessage() : "");
                 lead.setUpdatedAt(LocalDateTime.now());
                 Lead updatedLead = leadRepository.save(lead);
+                leadService.onLeadSaved(updatedLead);
+                outboxService.recordLead(DomainEvent.LEAD_CONVERSION_REQUESTED, updatedLead);
                 return ResponseEntity.ok(updatedLead);
             } else {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not authorized to convert this lead");
             }
         } catch (Exception e) {
+            // Nothing of a half-done conversion may commit
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Internal server error: " + e.getMessage());
         }
@@ -154,6 +199,7 @@ public class LeadController {
 
     @PostMapping("/approve/{id}")
     @PreAuthorize("hasRole('MANAGER')")
+    @Transactional
     public ResponseEntity<String> approveConversion(@PathVariable Long id,
             @RequestBody Map<String, Object> request) {
         boolean approve = Boolean.parseBoolean(request.get("approve").toString());
@@ -180,17 +226,43 @@ public class LeadController {
         }
 
         if (approve) {
-            return performLeadConversion(lead);
+            return performLeadConversion(lead, currentUser);
         } else {
             lead.setConversionStatus("DENIED");
             lead.setConversionMessage(responseMessage != null ? responseMessage : "Conversion denied");
             lead.setUpdatedAt(LocalDateTime.now());
-            leadRepository.save(lead);
+            leadService.onLeadSaved(leadRepository.save(lead));
+            outboxService.recordLead(DomainEvent.LEAD_CONVERSION_DENIED, lead);
             return ResponseEntity.ok("Conversion request denied.");
         }
     }
 
-    private ResponseEntity<String> performLeadConversion(Lead lead) {
+    private ResponseEntity<String> performLeadConversion(Lead lead, Users currentUser) {
+        // Reuse a client that is already on file for this prospect instead of creating another copy. Only an
+        // exact email/phone hit on a client the caller owns or manages qualifies; a name-only fuzzy match could
+        // be a different person, and merging would move the lead onto someone else's book.
+        Client existingClient = duplicateIndex.findMatches(null, lead.getName(), lead.getEmail(), lead.getPhone(),
+                lead.getCompany(), dedupThreshold).stream()
+                .filter(match -> match.kind() == DuplicateIndex.Kind.CLIENT && match.exactKey())
+                .map(match -> clientRepository.findById(match.id()).orElse(null))
+                .filter(client -> client != null && isInScope(currentUser, client.getAssignedTo()))
+                .findFirst()
+                .orElse(null);
+        if (existingClient != null) {
+            if (existingClient.getPhone() == null || existingClient.getPhone().isBlank())
+                existingClient.setPhone(lead.getPhone());
+            if (existingClient.getCompany() == null || existingClient.getCompany().isBlank())
+                existingClient.setCompany(lead.getCompany());
+            clientService.onClientSaved(clientRepository.save(existingClient));
+            outboxService.recordClient(DomainEvent.CLIENT_UPDATED, existingClient);
+            leadService.recordConversion(lead);
+            outboxService.recordLead(DomainEvent.LEAD_CONVERTED, lead,
+                    Map.of("clientId", existingClient.getId(), "merged", true));
+            leadRepository.deleteById(lead.getId());
+            leadService.onLeadDeleted(lead.getId());
+            return ResponseEntity.ok("Lead merged into existing client with ID: " + existingClient.getId());
+        }
+
         Client client = new Client();
         client.setName(lead.getName());
         client.setEmail(lead.getEmail());
@@ -200,8 +272,22 @@ public class LeadController {
         client.setCreatedAt(LocalDateTime.now());
         client.setStatus(ClientStatus.ACTIVE);
 
-        clientRepository.save(client);
+        Client savedClient = clientRepository.save(client);
+        clientService.onClientSaved(savedClient);
+        outboxService.recordClient(DomainEvent.CLIENT_CREATED, savedClient);
+        leadService.recordConversion(lead);
+        outboxService.recordLead(DomainEvent.LEAD_CONVERTED, lead,
+                Map.of("clientId", savedClient.getId(), "merged", false));
         leadRepository.deleteById(lead.getId());
+        leadService.onLeadDeleted(lead.getId());
         return ResponseEntity.ok("Lead converted to client successfully.");
     }
+
+    private boolean isInScope(Users currentUser, Users owner) {
+        if (currentUser.getRoles().contains("ROLE_ADMIN")) {
+            return true;
+        }
+        return owner != null
+                && (owner.getId().equals(currentUser.getId()) || userService.isManagerOf(currentUser, owner));
+    }
 }
\ No newline at end of file
@@ -3,7 +3,9 @@ package com.sr.CRM.Controller;
 import com.sr.CRM.Model.Client;
 import com.sr.CRM.Model.Users;
 import com.sr.CRM.Model.DTO.LeadUpdateDTO;
+import com.sr.CRM.Model.DTO.TaskFilterDTO;
 import com.sr.CRM.Model.DTO.TaskUpdateDTO;
+import com.sr.CRM.Service.AnalyticsService;
 import com.sr.CRM.Service.ClientService;
 import com.sr.CRM.Service.LeadService;
 import com.sr.CRM.Service.TaskService;
@@ -40,6 +42,9 @@ public class ManagerController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private AnalyticsService analyticsService;
+
     @PutMapping("/updateLeads/{id}")
     @PreAuthorize("hasRole('MANAGER')")
     public ResponseEntity<String> managerUpdateLeadsOfEmployeesUnderHim(@PathVariable Long id,
@@ -55,11 +60,16 @@ public class ManagerController {
         return leadService.getAllLeadsOfEmployeesUnderThisManager(pageable);
     }
 
+    @GetMapping("/rollup")
+    @PreAuthorize("hasRole('MANAGER')")
+    public Map<String, Object> getOrgRollup() {
+        return analyticsService.getOrgRollup();
+    }
+
     @GetMapping("/allTasksOfEmployees")
     @PreAuthorize("hasRole('MANAGER')")
-    public Page<Map<String, Object>> getAllTasksOfEmployees(Pageable pageable,
-            @RequestParam(required = false) String status) {
-        return taskService.getAllTasksOfEmployees(pageable, status);
+    public Page<Map<String, Object>> getAllTasksOfEmployees(Pageable pageable, TaskFilterDTO filter) {
+        return taskService.getAllTasksOfEmployees(pageable, filter);
     }
 
     @PutMapping("/updateEmployeeTask/{id}")
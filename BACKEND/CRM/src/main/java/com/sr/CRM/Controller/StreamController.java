@@ -0,0 +1,30 @@
+package com.sr.CRM.Controller;
+
+import com.sr.CRM.Service.LiveEventService;
+import com.sr.CRM.Service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/stream")
+public class StreamController {
+
+    @Autowired
+    private LiveEventService liveEventService;
+
+    @Autowired
+    private UserService userService;
+
+    // EventSource resends the last id it saw as Last-Event-ID when it reconnects
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER','ADMIN')")
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return liveEventService.subscribe(userService.getCurrentUser(), lastEventId);
+    }
+}
@@ -3,8 +3,12 @@ package com.sr.CRM.Controller;
 
 import com.sr.CRM.Model.Tasks;
 import com.sr.CRM.Model.DTO.TaskDTO;
+import com.sr.CRM.Model.DTO.TaskStatusUpdateDTO;
+import com.sr.CRM.Model.DTO.TaskTemplateDTO;
 import com.sr.CRM.Model.DTO.TaskUpdateDTO;
 import com.sr.CRM.Service.TaskService;
+import com.sr.CRM.Service.TaskTemplateService;
+import com.sr.CRM.Util.ETags;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -12,8 +16,10 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -23,20 +29,89 @@ public class TaskController {
     @Autowired
     private TaskService taskService;
 
+    @Autowired
+    private TaskTemplateService taskTemplateService;
+
     @PostMapping("/addTask")
     @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER')")
     public Tasks addTask(@Valid @RequestBody TaskDTO taskDTO) {
         return taskService.addTask(taskDTO);
     }
 
+    @PostMapping("/batch")
+    @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER')")
+    public List<Map<String, Object>> addTasks(@RequestBody List<TaskDTO> taskDTOs) {
+        return taskService.addTasks(taskDTOs);
+    }
+
+    @PatchMapping("/status")
+    @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER')")
+    public List<Map<String, Object>> updateTaskStatuses(@RequestBody List<TaskStatusUpdateDTO> updates) {
+        return taskService.updateTaskStatuses(updates);
+    }
+
     @GetMapping("/myTasks")
     @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER')")
     public Page<Map<String, Object>> getMyTasks(@RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size, WebRequest request) {
+        if (ETags.notModified(request, taskService.getMyTasksETag())) {
+            return null;
+        }
         Pageable pageable = PageRequest.of(page, size);
         return taskService.getMyTasks(pageable);
     }
 
+    @GetMapping("/next")
+    @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER')")
+    public List<Map<String, Object>> getNextTasks(@RequestParam(defaultValue = "10") int limit) {
+        return taskService.getNextTasks(limit);
+    }
+
+    @GetMapping("/upcoming")
+    @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER')")
+    public List<Map<String, Object>> getUpcomingTasks(@RequestParam(defaultValue = "14") int days,
+            @RequestParam(defaultValue = "50") int limit) {
+        return taskTemplateService.getUpcoming(days, limit);
+    }
+
+    @PostMapping("/templates")
+    @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER')")
+    public Map<String, Object> createTemplate(@RequestBody TaskTemplateDTO templateDTO) {
+        return taskTemplateService.createTemplate(templateDTO);
+    }
+
+    @GetMapping("/templates")
+    @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER')")
+    public List<Map<String, Object>> getTemplates() {
+        return taskTemplateService.getTemplates();
+    }
+
+    @PutMapping("/templates/{id}")
+    @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER')")
+    public Map<String, Object> updateTemplate(@PathVariable Long id, @RequestBody TaskTemplateDTO templateDTO) {
+        return taskTemplateService.updateTemplate(id, templateDTO);
+    }
+
+    @DeleteMapping("/templates/{id}")
+    @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER')")
+    public ResponseEntity<String> deleteTemplate(@PathVariable Long id) {
+        return taskTemplateService.deleteTemplate(id);
+    }
+
+    @GetMapping("/board")
+    @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER')")
+    public Map<String, Object> getTaskBoard(@RequestParam(defaultValue = "20") int limit) {
+        return taskService.getTaskBoard(limit);
+    }
+
+    @GetMapping("/board/{column}")
+    @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER')")
+    public Map<String, Object> getTaskBoardColumn(@PathVariable String column,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return taskService.getTaskBoardColumn(column, cursor, limit);
+    }
+
     @GetMapping("/getTask/{id}")
     @PreAuthorize("hasAnyRole('EMPLOYEE','MANAGER')")
     public Map<String, Object> getTaskById(@PathVariable Long id) {
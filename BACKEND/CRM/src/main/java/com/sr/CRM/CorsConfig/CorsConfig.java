@@ -33,7 +33,7 @@ public class CorsConfig {
         config.setAllowCredentials(true); // ✅ allow cookies
         config.setAllowedOrigins(List.of("https://crm-lilac-omega.vercel.app")); // ✅ Vercel
         config.setAllowedHeaders(List.of("*"));
-        config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        config.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
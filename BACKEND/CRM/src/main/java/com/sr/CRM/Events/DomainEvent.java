@@ -0,0 +1,28 @@
+package com.sr.CRM.Events;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A committed change to a lead, task or client, as relayed from the outbox. Delivery is
+ * at least once, so consumers must tolerate seeing the same {@code id} again.
+ */
+public record DomainEvent(Long id, String type, String aggregateType, Long aggregateId, Map<String, Object> payload,
+        LocalDateTime occurredAt, int attempt) {
+
+    public static final String LEAD_CREATED = "LeadCreated";
+    public static final String LEAD_UPDATED = "LeadUpdated";
+    public static final String LEAD_ASSIGNED = "LeadAssigned";
+    public static final String LEAD_STATUS_CHANGED = "LeadStatusChanged";
+    public static final String LEAD_CONVERSION_REQUESTED = "LeadConversionRequested";
+    public static final String LEAD_CONVERSION_DENIED = "LeadConversionDenied";
+    public static final String LEAD_CONVERTED = "LeadConverted";
+    public static final String LEAD_DELETED = "LeadDeleted";
+    public static final String TASK_CREATED = "TaskCreated";
+    public static final String TASK_UPDATED = "TaskUpdated";
+    public static final String TASK_ASSIGNED = "TaskAssigned";
+    public static final String TASK_DELETED = "TaskDeleted";
+    public static final String CLIENT_CREATED = "ClientCreated";
+    public static final String CLIENT_UPDATED = "ClientUpdated";
+    public static final String CLIENT_DELETED = "ClientDeleted";
+}
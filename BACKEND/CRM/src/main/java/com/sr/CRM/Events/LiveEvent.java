@@ -0,0 +1,9 @@
+package com.sr.CRM.Events;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+
+// Pushed over /api/stream to the users in recipientIds
+public record LiveEvent(String type, Set<Long> recipientIds, Map<String, Object> data, LocalDateTime occurredAt) {
+}
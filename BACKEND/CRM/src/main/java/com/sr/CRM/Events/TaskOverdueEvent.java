@@ -0,0 +1,6 @@
+package com.sr.CRM.Events;
+
+import java.time.LocalDateTime;
+
+public record TaskOverdueEvent(Long taskId, Long assignedToId, LocalDateTime dueDate) {
+}
@@ -0,0 +1,6 @@
+package com.sr.CRM.Events;
+
+import java.time.LocalDateTime;
+
+public record TaskReminderEvent(Long taskId, Long assignedToId, LocalDateTime dueDate) {
+}
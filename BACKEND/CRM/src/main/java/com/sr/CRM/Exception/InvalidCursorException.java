@@ -0,0 +1,8 @@
+package com.sr.CRM.Exception;
+
+// A paging cursor that was tampered with, truncated or issued for another listing
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.sr.CRM.Exception;
+
+// A ?fields= selection that names a column outside the endpoint's whitelist or selects nothing
+public class InvalidFieldsException extends RuntimeException {
+    public InvalidFieldsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,64 @@
+package com.sr.CRM.Model;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.sr.CRM.Repository.ChangeFeedRepository;
+import com.sr.CRM.Repository.ChangeSequence;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreRemove;
+import jakarta.persistence.PreUpdate;
+
+// Instantiated by Hibernate through Spring's bean container, so field injection works here
+public class ChangeSeqListener {
+
+    @Autowired
+    private ChangeSequence changeSequence;
+
+    @Autowired
+    private ChangeFeedRepository changeFeedRepository;
+
+    @PostLoad
+    public void rememberOwner(Object loaded) {
+        ChangeTracked entity = (ChangeTracked) loaded;
+        entity.setLoadedOwnerId(ownerOf(entity));
+    }
+
+    @PrePersist
+    public void stampInsert(Object inserted) {
+        ChangeTracked entity = (ChangeTracked) inserted;
+        entity.setChangeSeq(changeSequence.next());
+        entity.setLoadedOwnerId(ownerOf(entity));
+    }
+
+    @PreUpdate
+    public void stampUpdate(Object updated) {
+        ChangeTracked entity = (ChangeTracked) updated;
+        Long owner = ownerOf(entity);
+        // The previous owner's feed has to drop the entity, so it gets a tombstone numbered before the update
+        if (entity.getLoadedOwnerId() != null && !Objects.equals(entity.getLoadedOwnerId(), owner)) {
+            tombstone(entity, entity.getLoadedOwnerId(), ChangeTombstone.REASSIGNED);
+        }
+        entity.setChangeSeq(changeSequence.next());
+        entity.setLoadedOwnerId(owner);
+    }
+
+    @PreRemove
+    public void stampRemove(Object removed) {
+        ChangeTracked entity = (ChangeTracked) removed;
+        tombstone(entity, ownerOf(entity), ChangeTombstone.DELETED);
+    }
+
+    private void tombstone(ChangeTracked entity, Long ownerId, String reason) {
+        changeFeedRepository.insertTombstone(new ChangeTombstone(null, entity.changeType(), entity.getId(), ownerId,
+                changeSequence.next(), reason, LocalDateTime.now()));
+    }
+
+    private static Long ownerOf(ChangeTracked entity) {
+        return entity.getAssignedTo() != null ? entity.getAssignedTo().getId() : null;
+    }
+}
@@ -0,0 +1,47 @@
+package com.sr.CRM.Model;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A lead, task or client that left an owner's scope, either deleted or reassigned to someone else
+@Entity
+@Immutable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "change_tombstones", indexes = {
+        @Index(name = "idx_change_tombstones_seq", columnList = "change_seq")
+})
+public class ChangeTombstone {
+
+    public static final String DELETED = "DELETED";
+    public static final String REASSIGNED = "REASSIGNED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entity_type", nullable = false, length = 16)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    // Assignee the entity was visible to before it went away
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq;
+
+    @Column(nullable = false, length = 16)
+    private String reason;
+
+    private LocalDateTime removedAt;
+}
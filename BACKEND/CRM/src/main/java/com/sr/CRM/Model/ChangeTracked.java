@@ -0,0 +1,21 @@
+package com.sr.CRM.Model;
+
+/**
+ * Entities that appear in the change feed. {@link ChangeSeqListener} stamps every insert and
+ * update with the next crm_change_seq value and writes tombstones for deletes and reassignments.
+ */
+public interface ChangeTracked {
+
+    // Entity type as it appears in the feed and in change_tombstones
+    String changeType();
+
+    Long getId();
+
+    Users getAssignedTo();
+
+    void setChangeSeq(Long changeSeq);
+
+    Long getLoadedOwnerId();
+
+    void setLoadedOwnerId(Long loadedOwnerId);
+}
@@ -1,6 +1,9 @@
 package com.sr.CRM.Model;
 
 import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -13,8 +16,12 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "clients")
-public class Client {
+@EntityListeners(ChangeSeqListener.class)
+@Table(name = "clients", indexes = {
+        @Index(name = "idx_clients_change_seq", columnList = "change_seq"),
+        @Index(name = "idx_clients_assignee_change_seq", columnList = "assigned_to, change_seq")
+})
+public class Client implements ChangeTracked {
 
     public enum ClientStatus {
         ACTIVE,
@@ -49,4 +56,17 @@ public class Client {
     @Enumerated(EnumType.STRING)
     private ClientStatus status;
 
+    // Position in the change feed; stamped by ChangeSeqListener on every write
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    @Transient
+    @JsonIgnore
+    private Long loadedOwnerId;
+
+    @Override
+    public String changeType() {
+        return "client";
+    }
+
 }
\ No newline at end of file
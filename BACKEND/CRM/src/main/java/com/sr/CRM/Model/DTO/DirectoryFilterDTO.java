@@ -0,0 +1,12 @@
+package com.sr.CRM.Model.DTO;
+
+import lombok.Data;
+
+@Data
+public class DirectoryFilterDTO {
+    private String department;
+    private String position;
+    // EMPLOYEE, MANAGER or ADMIN, with or without the ROLE_ prefix
+    private String role;
+    private Long managerId;
+}
@@ -15,5 +15,7 @@ public class LeadDTO {
     private String conversionStatus;
     private String conversionMessage;
     private Long assignedToId;
+    // Managers only: route the lead to someone on their team instead of keeping it
+    private Boolean autoAssign;
 
 }
\ No newline at end of file
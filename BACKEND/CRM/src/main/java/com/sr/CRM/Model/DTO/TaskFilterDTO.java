@@ -0,0 +1,25 @@
+package com.sr.CRM.Model.DTO;
+
+import java.time.LocalDateTime;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import com.sr.CRM.Model.Tasks.TaskPriority;
+import com.sr.CRM.Model.Tasks.TaskStatus;
+
+import lombok.Data;
+
+@Data
+public class TaskFilterDTO {
+    private TaskStatus status;
+    private TaskPriority priority;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime dueFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime dueTo;
+
+    private Boolean overdue;
+    private Long assignedToId;
+}
@@ -0,0 +1,11 @@
+package com.sr.CRM.Model.DTO;
+
+import com.sr.CRM.Model.Tasks.TaskStatus;
+
+import lombok.Data;
+
+@Data
+public class TaskStatusUpdateDTO {
+    private Long taskId;
+    private TaskStatus status;
+}
@@ -0,0 +1,19 @@
+package com.sr.CRM.Model.DTO;
+
+import java.time.LocalDateTime;
+
+import com.sr.CRM.Model.Tasks.TaskPriority;
+
+import lombok.Data;
+
+@Data
+public class TaskTemplateDTO {
+    private String title;
+    private String description;
+    private TaskPriority priority;
+    private String recurrence;
+    private LocalDateTime startsAt;
+    private Long leadId;
+    private Long clientId;
+    private Long assignedToId;
+}
@@ -2,16 +2,22 @@ package com.sr.CRM.Model;
 
 import java.time.LocalDateTime;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Id;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
@@ -23,8 +29,12 @@ import lombok.NoArgsConstructor;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "leads")
-public class Lead {
+@EntityListeners(ChangeSeqListener.class)
+@Table(name = "leads", indexes = {
+        @Index(name = "idx_leads_change_seq", columnList = "change_seq"),
+        @Index(name = "idx_leads_assignee_change_seq", columnList = "assigned_to, change_seq")
+})
+public class Lead implements ChangeTracked {
 
     public enum LeadStatus {
         NEW,
@@ -55,6 +65,8 @@ public class Lead {
 
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    // When the lead entered its current status; see LeadStatusHistory
+    private LocalDateTime statusChangedAt;
 
     private String conversionStatus;
     private String conversionMessage;
@@ -67,4 +79,22 @@ public class Lead {
     @JoinColumn(name = "created_by")
     private Users createdBy;
 
+    // Set at insert when DuplicateIndex finds a likely earlier copy of this prospect
+    private Long duplicateOfLeadId;
+    private Long duplicateOfClientId;
+    private Double duplicateScore;
+
+    // Position in the change feed; stamped by ChangeSeqListener on every write
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    @Transient
+    @JsonIgnore
+    private Long loadedOwnerId;
+
+    @Override
+    public String changeType() {
+        return "lead";
+    }
+
 }
\ No newline at end of file
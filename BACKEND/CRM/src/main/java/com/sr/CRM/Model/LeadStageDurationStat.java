@@ -0,0 +1,49 @@
+package com.sr.CRM.Model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Histogram of how long leads took to get from one stage to a later one, per rep and
+ * day. Durations are counted in log-scale buckets (see DurationHistogram), so percentiles
+ * over any date range are a sum over a few rows rather than a replay of the event log.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "lead_stage_duration_stats")
+public class LeadStageDurationStat {
+
+    @EmbeddedId
+    private Key id;
+
+    private Long transitions;
+
+    @Embeddable
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+
+        @Column(name = "rep_id")
+        private Long repId;
+
+        @Column(name = "from_status", length = 20)
+        private String fromStatus;
+
+        @Column(name = "to_status", length = 20)
+        private String toStatus;
+
+        @Column(name = "day_bucket")
+        private LocalDate dayBucket;
+
+        @Column(name = "duration_bucket")
+        private Integer durationBucket;
+    }
+}
@@ -0,0 +1,50 @@
+package com.sr.CRM.Model;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.Immutable;
+
+import com.sr.CRM.Model.Lead.LeadStatus;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Append-only; rows are inserted by LeadHistoryRepository and never updated
+@Entity
+@Immutable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "lead_status_events", indexes = {
+        @Index(name = "idx_lead_status_events_lead", columnList = "lead_id, changed_at"),
+        @Index(name = "idx_lead_status_events_rep", columnList = "rep_id, changed_at")
+})
+public class LeadStatusEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "lead_id", nullable = false)
+    private Long leadId;
+
+    @Enumerated(EnumType.STRING)
+    private LeadStatus fromStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LeadStatus toStatus;
+
+    // Assignee of the lead when the status changed
+    @Column(name = "rep_id")
+    private Long repId;
+
+    private Long changedBy;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    private Long secondsInPreviousStage;
+}
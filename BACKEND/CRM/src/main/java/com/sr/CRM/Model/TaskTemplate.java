@@ -0,0 +1,76 @@
+package com.sr.CRM.Model;
+
+import java.time.LocalDateTime;
+
+import com.sr.CRM.Model.Tasks.TaskPriority;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "task_templates", indexes = {
+        @Index(name = "idx_task_templates_active_through", columnList = "active, materialized_through")
+})
+public class TaskTemplate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank
+    private String title;
+
+    @NotBlank
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    private TaskPriority priority;
+
+    // RRULE subset, see RecurrenceRule
+    @NotBlank
+    private String recurrence;
+
+    // First occurrence; later ones keep its time of day
+    private LocalDateTime startsAt;
+
+    @ManyToOne
+    @JoinColumn(name = "lead_id")
+    private Lead lead;
+
+    @ManyToOne
+    @JoinColumn(name = "client_id")
+    private Client client;
+
+    @ManyToOne
+    @JoinColumn(name = "assigned_to")
+    private Users assignedTo;
+
+    @ManyToOne
+    @JoinColumn(name = "created_by")
+    private Users createdBy;
+
+    private Boolean active = true;
+
+    // Occurrences up to here exist as task rows; later ones are generated on demand
+    private LocalDateTime materializedThrough;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -1,5 +1,7 @@
 package com.sr.CRM.Model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
@@ -12,8 +14,15 @@ import java.time.LocalDateTime;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "tasks")
-public class Tasks {
+@EntityListeners(ChangeSeqListener.class)
+@Table(name = "tasks", indexes = {
+        @Index(name = "idx_tasks_board", columnList = "assigned_to, status, due_date, id"),
+        @Index(name = "idx_tasks_status_due", columnList = "status, due_date"),
+        @Index(name = "idx_tasks_template_due", columnList = "template_id, due_date"),
+        @Index(name = "idx_tasks_change_seq", columnList = "change_seq"),
+        @Index(name = "idx_tasks_assignee_change_seq", columnList = "assigned_to, change_seq")
+})
+public class Tasks implements ChangeTracked {
 
     public enum TaskStatus {
         TODO,
@@ -47,6 +56,10 @@ public class Tasks {
     @JoinColumn(name = "lead_id")
     private Lead lead;
 
+    @ManyToOne
+    @JoinColumn(name = "client_id")
+    private Client client;
+
     @ManyToOne
     @JoinColumn(name = "assigned_to")
     private Users assignedTo;
@@ -55,18 +68,46 @@ public class Tasks {
     @JoinColumn(name = "assigned_by")
     private Users assignedBy;
 
+    // Recurring template this task was generated from, if any
+    @Column(name = "template_id")
+    private Long templateId;
+
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // Set by TaskDueDateScheduler when the due date passes; cleared once the task is done or rescheduled
+    private Boolean overdue = false;
+
+    // Due date whose reminder has already gone out; every node arms the timer, the first to claim it sends it
+    @JsonIgnore
+    private LocalDateTime remindedFor;
+
+    // Position in the change feed; stamped by ChangeSeqListener on every write
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    @Transient
+    @JsonIgnore
+    private Long loadedOwnerId;
+
+    @Override
+    public String changeType() {
+        return "task";
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        overdue = false;
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        if (status == TaskStatus.DONE || dueDate == null || dueDate.isAfter(updatedAt)) {
+            overdue = false;
+        }
     }
 
 }
\ No newline at end of file
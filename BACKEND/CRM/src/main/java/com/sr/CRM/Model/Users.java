@@ -4,6 +4,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.*;
@@ -19,7 +22,11 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "employees")
+@Table(name = "employees", indexes = {
+        @Index(name = "idx_employees_name_id", columnList = "name, id"),
+        @Index(name = "idx_employees_manager", columnList = "manager_id")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 public class Users {
 
     @Id
@@ -57,6 +64,7 @@ public class Users {
     private String department;
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users-roles")
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "users_id"))
     @Column(name = "roles")
     private Set<String> roles;
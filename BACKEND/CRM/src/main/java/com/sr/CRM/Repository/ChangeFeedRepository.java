@@ -0,0 +1,133 @@
+package com.sr.CRM.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import com.sr.CRM.Model.ChangeTombstone;
+
+/**
+ * Change-feed reads over the change_seq columns of leads, tasks and clients, and the
+ * tombstone writes for rows that leave an owner's scope.
+ */
+@Repository
+public class ChangeFeedRepository {
+
+    public record ChangedRow(String entityType, Long entityId, long changeSeq) {
+    }
+
+    // Any insert, update or reassignment raises maxChangeSeq; a delete lowers rowCount
+    public record ScopeVersion(long rowCount, long maxChangeSeq) {
+    }
+
+    private static final Map<String, String> TABLES = Map.of("lead", "leads", "task", "tasks", "client", "clients");
+
+    private static final String INSERT_TOMBSTONE = """
+            INSERT INTO change_tombstones (entity_type, entity_id, owner_id, change_seq, reason, removed_at)
+            VALUES (:entityType, :entityId, :ownerId, :changeSeq, :reason, :removedAt)
+            """;
+
+    private static final String CHANGED_ROWS = """
+            SELECT id, change_seq
+            FROM %s
+            WHERE change_seq > :since AND change_seq <= :through
+              AND (:allOwners OR assigned_to IN (:ownerIds))
+            ORDER BY change_seq
+            LIMIT :limit
+            """;
+
+    private static final String TOMBSTONES = """
+            SELECT entity_type, entity_id, change_seq
+            FROM change_tombstones
+            WHERE change_seq > :since AND change_seq <= :through
+              AND (:allOwners OR owner_id IN (:ownerIds))
+            ORDER BY change_seq
+            LIMIT :limit
+            """;
+
+    // Tasks lists show their lead's name and company, so a lead edit has to change the task list version too
+    private static final Map<String, String> SCOPE_VERSIONS = Map.of(
+            "lead", """
+                    SELECT COUNT(*) AS row_count, COALESCE(MAX(change_seq), 0) AS max_seq
+                    FROM leads WHERE assigned_to IN (:ownerIds)
+                    """,
+            "task", """
+                    SELECT COUNT(*) AS row_count,
+                           GREATEST(COALESCE(MAX(t.change_seq), 0), COALESCE(MAX(l.change_seq), 0)) AS max_seq
+                    FROM tasks t LEFT JOIN leads l ON l.id = t.lead_id
+                    WHERE t.assigned_to IN (:ownerIds)
+                    """,
+            "client", """
+                    SELECT COUNT(*) AS row_count, COALESCE(MAX(change_seq), 0) AS max_seq
+                    FROM clients WHERE assigned_to IN (:ownerIds)
+                    """);
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void insertTombstone(ChangeTombstone tombstone) {
+        insertTombstones(List.of(tombstone));
+    }
+
+    public void insertTombstones(List<ChangeTombstone> tombstones) {
+        if (tombstones.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = new SqlParameterSource[tombstones.size()];
+        for (int i = 0; i < tombstones.size(); i++) {
+            ChangeTombstone tombstone = tombstones.get(i);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("entityType", tombstone.getEntityType())
+                    .addValue("entityId", tombstone.getEntityId())
+                    .addValue("ownerId", tombstone.getOwnerId())
+                    .addValue("changeSeq", tombstone.getChangeSeq())
+                    .addValue("reason", tombstone.getReason())
+                    .addValue("removedAt", Timestamp.valueOf(tombstone.getRemovedAt()));
+        }
+        jdbcTemplate.batchUpdate(INSERT_TOMBSTONE, batch);
+    }
+
+    // ownerIds == null means every owner
+    public List<ChangedRow> findChanged(String entityType, long since, long through, Collection<Long> ownerIds,
+            int limit) {
+        List<ChangedRow> rows = new ArrayList<>();
+        jdbcTemplate.query(String.format(CHANGED_ROWS, TABLES.get(entityType)),
+                params(since, through, ownerIds, limit),
+                row -> {
+                    rows.add(new ChangedRow(entityType, row.getLong("id"), row.getLong("change_seq")));
+                });
+        return rows;
+    }
+
+    public List<ChangedRow> findTombstones(long since, long through, Collection<Long> ownerIds, int limit) {
+        List<ChangedRow> rows = new ArrayList<>();
+        jdbcTemplate.query(TOMBSTONES, params(since, through, ownerIds, limit), row -> {
+            rows.add(new ChangedRow(row.getString("entity_type"), row.getLong("entity_id"),
+                    row.getLong("change_seq")));
+        });
+        return rows;
+    }
+
+    public ScopeVersion scopeVersion(String entityType, Collection<Long> ownerIds) {
+        return jdbcTemplate.queryForObject(SCOPE_VERSIONS.get(entityType),
+                Map.of("ownerIds", ownerIds.isEmpty() ? List.of(-1L) : ownerIds),
+                (row, rowNum) -> new ScopeVersion(row.getLong("row_count"), row.getLong("max_seq")));
+    }
+
+    private static MapSqlParameterSource params(long since, long through, Collection<Long> ownerIds, int limit) {
+        return new MapSqlParameterSource()
+                .addValue("since", since)
+                .addValue("through", through)
+                .addValue("allOwners", ownerIds == null)
+                .addValue("ownerIds", ownerIds == null || ownerIds.isEmpty() ? List.of(-1L) : ownerIds)
+                .addValue("limit", limit);
+    }
+}
@@ -0,0 +1,134 @@
+package com.sr.CRM.Repository;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Hands out crm_change_seq values for the change feed. Sequence values are issued in order
+ * but their transactions commit in any order, so {@link #watermark()} only moves past a
+ * value once every transaction that could hold it has finished, on whichever node it runs.
+ * <p>
+ * Values are only taken inside the writing transaction, after it has been given an xid.
+ * Each watermark() call samples the sequence's last value together with the database
+ * snapshot; a sample becomes safe once the oldest running xid (the current snapshot's
+ * xmin) has reached the sample's xmax, since every transaction holding a value up to the
+ * sampled one was already running, with an xid below that xmax, when it was taken.
+ */
+@Repository
+public class ChangeSequence {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeSequence.class);
+
+    private static final Object XID_ASSIGNED = new Object();
+    private static final int MAX_SAMPLES = 1024;
+    private static final long STARTUP_WAIT_MILLIS = 10_000;
+
+    private static final String CREATE_SEQUENCE = "CREATE SEQUENCE IF NOT EXISTS crm_change_seq";
+    private static final String ASSIGN_XID = "SELECT pg_current_xact_id()::text";
+    private static final String NEXT_VALUES = "SELECT nextval('crm_change_seq') FROM generate_series(1, ?)";
+    private static final String SAMPLE = """
+            SELECT CASE WHEN is_called THEN last_value ELSE 0 END AS last_value,
+                   pg_snapshot_xmin(pg_current_snapshot())::text::bigint AS xmin,
+                   pg_snapshot_xmax(pg_current_snapshot())::text::bigint AS xmax
+            FROM crm_change_seq
+            """;
+
+    private record Sample(long lastValue, long xmin, long xmax) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Oldest first; a lock rather than synchronized so virtual threads waiting here are not pinned
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Sample> samples = new ArrayDeque<>();
+    private long watermark;
+
+    // Without a first safe sample every new cursor would start from 0, so wait for one before serving
+    @PostConstruct
+    void init() throws InterruptedException {
+        jdbcTemplate.execute(CREATE_SEQUENCE);
+        long deadline = System.currentTimeMillis() + STARTUP_WAIT_MILLIS;
+        while (watermark() == 0 && hasPendingSamples()) {
+            if (System.currentTimeMillis() > deadline) {
+                log.warn("Change feed watermark not established after {} ms; a long transaction is open",
+                        STARTUP_WAIT_MILLIS);
+                return;
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    public long next() {
+        return next(1).get(0);
+    }
+
+    public List<Long> next(int count) {
+        prepareTransaction();
+        return jdbcTemplate.queryForList(NEXT_VALUES, Long.class, count);
+    }
+
+    // For a statement that draws its values with nextval('crm_change_seq') itself, such as a bulk update
+    public void prepareTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Change sequence values must be taken in the writing transaction");
+        }
+        // nextval alone does not give the transaction an xid, and watermark() can only wait for ones that have
+        if (TransactionSynchronizationManager.getResource(XID_ASSIGNED) == null) {
+            jdbcTemplate.queryForObject(ASSIGN_XID, String.class);
+            TransactionSynchronizationManager.bindResource(XID_ASSIGNED, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(XID_ASSIGNED);
+                }
+            });
+        }
+    }
+
+    // Highest value below which every change, made on any node, has committed or rolled back
+    public long watermark() {
+        Sample sampled = jdbcTemplate.queryForObject(SAMPLE, (row, rowNum) -> new Sample(row.getLong("last_value"),
+                row.getLong("xmin"), row.getLong("xmax")));
+        lock.lock();
+        try {
+            samples.addLast(sampled);
+            for (Iterator<Sample> pending = samples.iterator(); pending.hasNext();) {
+                Sample sample = pending.next();
+                if (sample.xmax() <= sampled.xmin()) {
+                    watermark = Math.max(watermark, sample.lastValue());
+                    pending.remove();
+                }
+            }
+            // Dropping the oldest samples only delays the watermark, it never lets it pass an open value
+            while (samples.size() > MAX_SAMPLES) {
+                samples.removeFirst();
+            }
+            return watermark;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean hasPendingSamples() {
+        lock.lock();
+        try {
+            return !samples.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.sr.CRM.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.sr.CRM.Model.DTO.DirectoryFilterDTO;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * The admin employee directory. Pages are keyset pages on (name, id), so page n costs the
+ * same as page 1, and each row is a flat projection of the columns the grid shows.
+ */
+@Repository
+public class DirectoryRepository {
+
+    public record DirectoryRow(Long id, String name, String email, String phoneNumber, String username,
+            String position, String department, Long managerId, String managerName, String roles) {
+    }
+
+    private static final int EXPORT_FETCH_SIZE = 500;
+
+    private static final String SELECT = """
+            SELECT e.id, e.name, e.email, e.phone_number, e.username, e.position, e.department,
+                   e.manager_id, m.name AS manager_name,
+                   (SELECT string_agg(r.roles, ',' ORDER BY r.roles) FROM user_roles r WHERE r.users_id = e.id) AS roles
+            FROM employees e
+            LEFT JOIN employees m ON m.id = e.manager_id
+            """;
+
+    private static final RowMapper<DirectoryRow> ROW_MAPPER = DirectoryRepository::mapRow;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    // Separate template so the export's fetch size does not leak into other queries
+    private NamedParameterJdbcTemplate exportTemplate;
+
+    @PostConstruct
+    void createExportTemplate() {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(EXPORT_FETCH_SIZE);
+        exportTemplate = new NamedParameterJdbcTemplate(template);
+    }
+
+    public List<DirectoryRow> findPage(DirectoryFilterDTO filter, String afterName, Long afterId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        List<String> conditions = conditions(filter, params);
+        if (afterId != null) {
+            conditions.add("(e.name, e.id) > (:afterName, :afterId)");
+            params.addValue("afterName", afterName).addValue("afterId", afterId);
+        }
+        params.addValue("limit", limit);
+        return jdbcTemplate.query(SELECT + where(conditions) + " ORDER BY e.name, e.id LIMIT :limit", params,
+                ROW_MAPPER);
+    }
+
+    /**
+     * Streams every matching row in (name, id) order. Must run inside a transaction: the
+     * PostgreSQL driver only fetches in chunks with autocommit off.
+     */
+    public void forEach(DirectoryFilterDTO filter, Consumer<DirectoryRow> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = SELECT + where(conditions(filter, params)) + " ORDER BY e.name, e.id";
+        exportTemplate.query(sql, params, resultSet -> consumer.accept(mapRow(resultSet, 0)));
+    }
+
+    private static List<String> conditions(DirectoryFilterDTO filter, MapSqlParameterSource params) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.getDepartment() != null && !filter.getDepartment().isBlank()) {
+            conditions.add("e.department = :department");
+            params.addValue("department", filter.getDepartment());
+        }
+        if (filter.getPosition() != null && !filter.getPosition().isBlank()) {
+            conditions.add("e.position = :position");
+            params.addValue("position", filter.getPosition());
+        }
+        if (filter.getRole() != null && !filter.getRole().isBlank()) {
+            String role = filter.getRole().trim().toUpperCase();
+            conditions.add("EXISTS (SELECT 1 FROM user_roles r WHERE r.users_id = e.id AND r.roles = :role)");
+            params.addValue("role", role.startsWith("ROLE_") ? role : "ROLE_" + role);
+        }
+        if (filter.getManagerId() != null) {
+            conditions.add("e.manager_id = :managerId");
+            params.addValue("managerId", filter.getManagerId());
+        }
+        return conditions;
+    }
+
+    private static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static DirectoryRow mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new DirectoryRow(rs.getLong("id"), rs.getString("name"), rs.getString("email"),
+                rs.getString("phone_number"), rs.getString("username"), rs.getString("position"),
+                rs.getString("department"), rs.getObject("manager_id", Long.class), rs.getString("manager_name"),
+                rs.getString("roles"));
+    }
+}
@@ -0,0 +1,127 @@
+package com.sr.CRM.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import com.sr.CRM.Model.LeadStatusEvent;
+import com.sr.CRM.Model.Lead.LeadStatus;
+
+/**
+ * JDBC writes for the lead status log and the stage-duration histogram. Both run inside the
+ * caller's transaction, so a status change, its event and its aggregates commit together.
+ */
+@Repository
+public class LeadHistoryRepository {
+
+    public record DurationSample(Long repId, LeadStatus fromStatus, LeadStatus toStatus, LocalDate day,
+            int durationBucket) {
+    }
+
+    private static final String INSERT_EVENT = """
+            INSERT INTO lead_status_events (lead_id, from_status, to_status, rep_id, changed_by, changed_at,
+                                            seconds_in_previous_stage)
+            VALUES (:leadId, :fromStatus, :toStatus, :repId, :changedBy, :changedAt, :secondsInPreviousStage)
+            """;
+
+    private static final String UPSERT_DURATION = """
+            INSERT INTO lead_stage_duration_stats (rep_id, from_status, to_status, day_bucket, duration_bucket,
+                                                   transitions)
+            VALUES (:repId, :fromStatus, :toStatus, :day, :durationBucket, 1)
+            ON CONFLICT (rep_id, from_status, to_status, day_bucket, duration_bucket)
+            DO UPDATE SET transitions = lead_stage_duration_stats.transitions + 1
+            """;
+
+    private static final String FIRST_ENTRIES = """
+            SELECT to_status, MIN(changed_at) AS entered_at
+            FROM lead_status_events
+            WHERE lead_id = :leadId
+            GROUP BY to_status
+            """;
+
+    private static final String DURATION_HISTOGRAM = """
+            SELECT rep_id, duration_bucket, SUM(transitions) AS transitions
+            FROM lead_stage_duration_stats
+            WHERE from_status = :fromStatus AND to_status = :toStatus
+              AND day_bucket BETWEEN :since AND :until
+              AND (:allReps OR rep_id IN (:repIds))
+            GROUP BY rep_id, duration_bucket
+            """;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void insertEvents(List<LeadStatusEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = new SqlParameterSource[events.size()];
+        for (int i = 0; i < events.size(); i++) {
+            LeadStatusEvent event = events.get(i);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("leadId", event.getLeadId())
+                    .addValue("fromStatus", event.getFromStatus() != null ? event.getFromStatus().name() : null)
+                    .addValue("toStatus", event.getToStatus().name())
+                    .addValue("repId", event.getRepId())
+                    .addValue("changedBy", event.getChangedBy())
+                    .addValue("changedAt", Timestamp.valueOf(event.getChangedAt()))
+                    .addValue("secondsInPreviousStage", event.getSecondsInPreviousStage());
+        }
+        jdbcTemplate.batchUpdate(INSERT_EVENT, batch);
+    }
+
+    public void addDurations(List<DurationSample> samples) {
+        if (samples.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = new SqlParameterSource[samples.size()];
+        for (int i = 0; i < samples.size(); i++) {
+            DurationSample sample = samples.get(i);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("repId", sample.repId())
+                    .addValue("fromStatus", sample.fromStatus().name())
+                    .addValue("toStatus", sample.toStatus().name())
+                    .addValue("day", Date.valueOf(sample.day()))
+                    .addValue("durationBucket", sample.durationBucket());
+        }
+        jdbcTemplate.batchUpdate(UPSERT_DURATION, batch);
+    }
+
+    // When the lead first entered each stage it has been in
+    public Map<LeadStatus, LocalDateTime> firstEntries(Long leadId) {
+        Map<LeadStatus, LocalDateTime> entries = new HashMap<>();
+        jdbcTemplate.query(FIRST_ENTRIES, Map.of("leadId", leadId), row -> {
+            entries.put(LeadStatus.valueOf(row.getString("to_status")),
+                    row.getTimestamp("entered_at").toLocalDateTime());
+        });
+        return entries;
+    }
+
+    // rep id -> duration bucket -> transitions
+    public Map<Long, Map<Integer, Long>> durationHistogram(LeadStatus fromStatus, LeadStatus toStatus,
+            LocalDate since, LocalDate until, List<Long> repIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("fromStatus", fromStatus.name())
+                .addValue("toStatus", toStatus.name())
+                .addValue("since", Date.valueOf(since))
+                .addValue("until", Date.valueOf(until))
+                .addValue("allReps", repIds == null)
+                .addValue("repIds", repIds == null || repIds.isEmpty() ? List.of(-1L) : repIds);
+        Map<Long, Map<Integer, Long>> histogram = new HashMap<>();
+        jdbcTemplate.query(DURATION_HISTOGRAM, params, row -> {
+            histogram.computeIfAbsent(row.getLong("rep_id"), rep -> new HashMap<>())
+                    .put(row.getInt("duration_bucket"), row.getLong("transitions"));
+        });
+        return histogram;
+    }
+}
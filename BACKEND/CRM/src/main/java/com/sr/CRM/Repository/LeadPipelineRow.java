@@ -0,0 +1,26 @@
+package com.sr.CRM.Repository;
+
+import java.time.LocalDateTime;
+
+// Row of the windowed pipeline query: one of the top-N leads of a stage plus that stage's aggregates
+public interface LeadPipelineRow {
+    Long getId();
+
+    String getName();
+
+    String getCompany();
+
+    String getStatus();
+
+    LocalDateTime getUpdatedAt();
+
+    Long getAssignedToId();
+
+    Long getStageCount();
+
+    Long getAgeUpTo7Days();
+
+    Long getAgeUpTo30Days();
+
+    Long getAgeUpTo90Days();
+}
@@ -1,11 +1,15 @@
 package com.sr.CRM.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.sr.CRM.Model.Lead;
@@ -29,4 +33,63 @@ public interface LeadRepository extends JpaRepository<Lead, Long> {
 
     List<Lead> findByAssignedToAndConversionStatus(Users assignedTo, String conversionStatus);
 
+    // Team listings page in the database; the owner is fetched with the page because every row shows their name
+    @Query(value = "SELECT l FROM Lead l JOIN FETCH l.assignedTo WHERE l.assignedTo.id IN :ownerIds",
+            countQuery = "SELECT COUNT(l) FROM Lead l WHERE l.assignedTo.id IN :ownerIds")
+    Page<Lead> findPageByOwners(@Param("ownerIds") List<Long> ownerIds, Pageable pageable);
+
+    @Query(value = "SELECT l FROM Lead l JOIN FETCH l.assignedTo "
+            + "WHERE l.assignedTo.id IN :ownerIds AND l.conversionStatus = :conversionStatus",
+            countQuery = "SELECT COUNT(l) FROM Lead l "
+                    + "WHERE l.assignedTo.id IN :ownerIds AND l.conversionStatus = :conversionStatus")
+    Page<Lead> findPageByOwnersAndConversionStatus(@Param("ownerIds") List<Long> ownerIds,
+            @Param("conversionStatus") String conversionStatus, Pageable pageable);
+
+    @Query("SELECT l.status, COUNT(l) FROM Lead l WHERE l.assignedTo IN :users GROUP BY l.status")
+    List<Object[]> countByStatusForAssignees(@Param("users") List<Users> users);
+
+    @Query("SELECT l.status, COUNT(l) FROM Lead l GROUP BY l.status")
+    List<Object[]> countByStatus();
+
+    long countByAssignedToInAndConversionStatus(List<Users> users, String conversionStatus);
+
+    long countByConversionStatus(String conversionStatus);
+
+    List<Lead> findTop5ByAssignedToInOrderByUpdatedAtDesc(List<Users> users);
+
+    List<Lead> findTop5ByOrderByUpdatedAtDesc();
+
+    @Query("SELECT l FROM Lead l LEFT JOIN FETCH l.assignedTo a LEFT JOIN FETCH a.manager")
+    Stream<Lead> streamAllForScoring();
+
+    @Query("SELECT l.id, l.assignedTo.id FROM Lead l WHERE l.status IN :statuses")
+    Stream<Object[]> streamOpenLeadOwners(@Param("statuses") List<Lead.LeadStatus> statuses);
+
+    @Query("SELECT l.id, l.assignedTo.id FROM Lead l WHERE l.assignedTo IS NOT NULL")
+    List<Object[]> findLeadOwners();
+
+    @Query(value = """
+            SELECT id, name, company, status, "updatedAt", "assignedToId", "stageCount",
+                   "ageUpTo7Days", "ageUpTo30Days", "ageUpTo90Days"
+            FROM (
+                SELECT l.id, l.name, l.company, l.status, l.updated_at AS "updatedAt",
+                       l.assigned_to AS "assignedToId",
+                       ROW_NUMBER() OVER (PARTITION BY l.status ORDER BY l.updated_at DESC NULLS LAST, l.id DESC) AS rn,
+                       COUNT(*) OVER (PARTITION BY l.status) AS "stageCount",
+                       SUM(CASE WHEN l.created_at >= :cutoff7 THEN 1 ELSE 0 END) OVER (PARTITION BY l.status)
+                           AS "ageUpTo7Days",
+                       SUM(CASE WHEN l.created_at >= :cutoff30 THEN 1 ELSE 0 END) OVER (PARTITION BY l.status)
+                           AS "ageUpTo30Days",
+                       SUM(CASE WHEN l.created_at >= :cutoff90 THEN 1 ELSE 0 END) OVER (PARTITION BY l.status)
+                           AS "ageUpTo90Days"
+                FROM leads l
+                WHERE l.status IS NOT NULL
+                  AND (:allScope = TRUE OR l.assigned_to IN (:userIds))
+            ) ranked
+            WHERE rn <= :limit
+            ORDER BY status, rn
+            """, nativeQuery = true)
+    List<LeadPipelineRow> findPipeline(@Param("allScope") boolean allScope, @Param("userIds") List<Long> userIds,
+            @Param("cutoff7") LocalDateTime cutoff7, @Param("cutoff30") LocalDateTime cutoff30,
+            @Param("cutoff90") LocalDateTime cutoff90, @Param("limit") int limit);
 }
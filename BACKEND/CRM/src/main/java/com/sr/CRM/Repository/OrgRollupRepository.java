@@ -0,0 +1,110 @@
+package com.sr.CRM.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Rollups over a manager's whole reporting subtree, walked with a recursive CTE on
+ * employees.manager_id. Every row of the subtree is tagged with the direct report it hangs
+ * under, so one query returns a line per branch and the counts are aggregated per owner
+ * before they are joined back.
+ */
+@Repository
+public class OrgRollupRepository {
+
+    // Deeper than any real org; stops the walk if bad data ever makes manager_id cyclic
+    public static final int MAX_DEPTH = 32;
+
+    public record BranchRollup(Long branchId, String branchName, long headcount, int deepestLevel, long leads,
+            long openLeads, long convertedLeads, long tasks, long doneTasks, long overdueTasks, long clients) {
+    }
+
+    private static final String ROLLUP = """
+            WITH RECURSIVE subtree (id, branch_id, depth) AS (
+                SELECT e.id, e.id, 0 FROM employees e WHERE e.id = :rootId
+                UNION ALL
+                SELECT e.id, CASE WHEN s.depth = 0 THEN e.id ELSE s.branch_id END, s.depth + 1
+                FROM employees e
+                JOIN subtree s ON e.manager_id = s.id
+                WHERE s.depth < :maxDepth
+            ),
+            lead_counts AS (
+                SELECT l.assigned_to,
+                       COUNT(*) AS leads,
+                       COUNT(*) FILTER (WHERE l.status IN ('NEW', 'CONTACTED', 'QUALIFIED')) AS open_leads,
+                       COUNT(*) FILTER (WHERE l.status = 'CONVERTED') AS converted_leads
+                FROM leads l
+                WHERE l.assigned_to IN (SELECT id FROM subtree)
+                GROUP BY l.assigned_to
+            ),
+            task_counts AS (
+                SELECT t.assigned_to,
+                       COUNT(*) AS tasks,
+                       COUNT(*) FILTER (WHERE t.status = 'DONE') AS done_tasks,
+                       COUNT(*) FILTER (WHERE t.status <> 'DONE' AND t.due_date < :now) AS overdue_tasks
+                FROM tasks t
+                WHERE t.assigned_to IN (SELECT id FROM subtree)
+                GROUP BY t.assigned_to
+            ),
+            client_counts AS (
+                SELECT c.assigned_to, COUNT(*) AS clients
+                FROM clients c
+                WHERE c.assigned_to IN (SELECT id FROM subtree)
+                GROUP BY c.assigned_to
+            )
+            SELECT s.branch_id, b.name AS branch_name, COUNT(*) AS headcount, MAX(s.depth) AS deepest_level,
+                   COALESCE(SUM(lc.leads), 0) AS leads,
+                   COALESCE(SUM(lc.open_leads), 0) AS open_leads,
+                   COALESCE(SUM(lc.converted_leads), 0) AS converted_leads,
+                   COALESCE(SUM(tc.tasks), 0) AS tasks,
+                   COALESCE(SUM(tc.done_tasks), 0) AS done_tasks,
+                   COALESCE(SUM(tc.overdue_tasks), 0) AS overdue_tasks,
+                   COALESCE(SUM(cc.clients), 0) AS clients
+            FROM subtree s
+            JOIN employees b ON b.id = s.branch_id
+            LEFT JOIN lead_counts lc ON lc.assigned_to = s.id
+            LEFT JOIN task_counts tc ON tc.assigned_to = s.id
+            LEFT JOIN client_counts cc ON cc.assigned_to = s.id
+            GROUP BY s.branch_id, b.name
+            ORDER BY b.name, s.branch_id
+            """;
+
+    private static final String SUBTREE_IDS = """
+            WITH RECURSIVE subtree (id, depth) AS (
+                SELECT e.id, 1 FROM employees e WHERE e.manager_id = :rootId
+                UNION ALL
+                SELECT e.id, s.depth + 1
+                FROM employees e
+                JOIN subtree s ON e.manager_id = s.id
+                WHERE s.depth < :maxDepth
+            )
+            SELECT DISTINCT id FROM subtree
+            """;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    // The root's own numbers come back as the branch whose id is rootId
+    public List<BranchRollup> rollup(Long rootId, LocalDateTime now) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("rootId", rootId)
+                .addValue("maxDepth", MAX_DEPTH)
+                .addValue("now", Timestamp.valueOf(now));
+        return jdbcTemplate.query(ROLLUP, params, (rs, rowNum) -> new BranchRollup(rs.getLong("branch_id"),
+                rs.getString("branch_name"), rs.getLong("headcount"), rs.getInt("deepest_level"), rs.getLong("leads"),
+                rs.getLong("open_leads"), rs.getLong("converted_leads"), rs.getLong("tasks"),
+                rs.getLong("done_tasks"), rs.getLong("overdue_tasks"), rs.getLong("clients")));
+    }
+
+    // Everyone reporting to rootId at any depth, excluding rootId itself
+    public List<Long> subtreeIds(Long rootId) {
+        return jdbcTemplate.queryForList(SUBTREE_IDS,
+                new MapSqlParameterSource().addValue("rootId", rootId).addValue("maxDepth", MAX_DEPTH), Long.class);
+    }
+}
@@ -0,0 +1,137 @@
+package com.sr.CRM.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import com.sr.CRM.Model.OutboxEvent;
+
+/**
+ * Inserts into outbox_events and the relay's claim, acknowledge and purge statements.
+ */
+@Repository
+public class OutboxRepository {
+
+    public record PendingEvent(Long id, String eventType, String aggregateType, Long aggregateId, String payload,
+            LocalDateTime occurredAt, int attempts) {
+    }
+
+    // Outcome of a failed delivery: retried at availableAt, or given up on when deadAt is set
+    public record Failure(Long id, int attempts, LocalDateTime availableAt, LocalDateTime deadAt, String error) {
+    }
+
+    private static final String INSERT = """
+            INSERT INTO outbox_events (event_type, aggregate_type, aggregate_id, payload, occurred_at, available_at,
+                                       attempts)
+            VALUES (:eventType, :aggregateType, :aggregateId, :payload, :occurredAt, :occurredAt, 0)
+            """;
+
+    // Only the oldest pending event of each aggregate is claimable, and it stays locked until the relay
+    // that took it commits. The aggregate's next event therefore waits until this one is published or
+    // dead, whichever node holds it, and two relays never work on the same aggregate at once
+    private static final String CLAIM = """
+            SELECT e.id, e.event_type, e.aggregate_type, e.aggregate_id, e.payload, e.occurred_at, e.attempts
+            FROM outbox_events e
+            WHERE e.published_at IS NULL AND e.available_at <= :now
+              AND NOT EXISTS (
+                  SELECT 1 FROM outbox_events earlier
+                  WHERE earlier.aggregate_type = e.aggregate_type AND earlier.aggregate_id = e.aggregate_id
+                    AND earlier.published_at IS NULL AND earlier.id < e.id)
+            ORDER BY e.id
+            LIMIT :limit
+            FOR UPDATE OF e SKIP LOCKED
+            """;
+
+    private static final String MARK_PUBLISHED = """
+            UPDATE outbox_events SET published_at = :now, attempts = attempts + 1, last_error = NULL
+            WHERE id IN (:ids)
+            """;
+
+    private static final String MARK_FAILED = """
+            UPDATE outbox_events
+            SET attempts = :attempts, available_at = :availableAt, published_at = :deadAt, last_error = :error
+            WHERE id = :id
+            """;
+
+    private static final String PURGE = """
+            DELETE FROM outbox_events WHERE published_at < :cutoff AND last_error IS NULL
+            """;
+
+    private static final String PENDING_COUNT = """
+            SELECT COUNT(*) FROM outbox_events WHERE published_at IS NULL
+            """;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<OutboxEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = new SqlParameterSource[events.size()];
+        for (int i = 0; i < events.size(); i++) {
+            OutboxEvent event = events.get(i);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("eventType", event.getEventType())
+                    .addValue("aggregateType", event.getAggregateType())
+                    .addValue("aggregateId", event.getAggregateId())
+                    .addValue("payload", event.getPayload())
+                    .addValue("occurredAt", Timestamp.valueOf(event.getOccurredAt()));
+        }
+        jdbcTemplate.batchUpdate(INSERT, batch);
+    }
+
+    // Must run inside the transaction that later acknowledges the batch
+    public List<PendingEvent> claim(LocalDateTime now, int limit) {
+        return jdbcTemplate.query(CLAIM,
+                new MapSqlParameterSource().addValue("now", Timestamp.valueOf(now)).addValue("limit", limit),
+                (row, rowNum) -> new PendingEvent(row.getLong("id"), row.getString("event_type"),
+                        row.getString("aggregate_type"), (Long) row.getObject("aggregate_id"),
+                        row.getString("payload"), row.getTimestamp("occurred_at").toLocalDateTime(),
+                        row.getInt("attempts")));
+    }
+
+    public void markPublished(Collection<Long> ids, LocalDateTime now) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(MARK_PUBLISHED,
+                new MapSqlParameterSource().addValue("ids", ids).addValue("now", Timestamp.valueOf(now)));
+    }
+
+    public void markFailed(List<Failure> failures) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = new SqlParameterSource[failures.size()];
+        for (int i = 0; i < failures.size(); i++) {
+            Failure failure = failures.get(i);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("id", failure.id())
+                    .addValue("attempts", failure.attempts())
+                    .addValue("availableAt", Timestamp.valueOf(failure.availableAt()))
+                    .addValue("deadAt", failure.deadAt() != null ? Timestamp.valueOf(failure.deadAt()) : null,
+                            Types.TIMESTAMP)
+                    .addValue("error", failure.error());
+        }
+        jdbcTemplate.batchUpdate(MARK_FAILED, batch);
+    }
+
+    // Dead events (published with an error) are kept for inspection
+    public int purgePublishedBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update(PURGE, new MapSqlParameterSource("cutoff", Timestamp.valueOf(cutoff)));
+    }
+
+    public long pendingCount() {
+        Long count = jdbcTemplate.queryForObject(PENDING_COUNT, new MapSqlParameterSource(), Long.class);
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,122 @@
+package com.sr.CRM.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import com.sr.CRM.Exception.InvalidFieldsException;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * List queries that select only the columns a caller asked for. Each endpoint declares a
+ * whitelist from response field name to attribute path; "assignedTo.name" left-joins the
+ * association. Nothing outside the whitelist can reach the SELECT list.
+ */
+@Repository
+public class ProjectionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * The fields a ?fields= parameter selects: trimmed and de-duplicated, or null for the default set
+     * when the parameter is absent or blank. A list that names nothing, such as ",", or that names a
+     * field outside the whitelist is rejected with a 400.
+     */
+    public static List<String> selectFields(String fields, Map<String, String> whitelist) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        LinkedHashSet<String> parsed = new LinkedHashSet<>();
+        Arrays.stream(fields.split(",")).map(String::trim).filter(field -> !field.isEmpty()).forEach(parsed::add);
+        if (parsed.isEmpty()) {
+            throw new InvalidFieldsException("No fields selected");
+        }
+        List<String> unknown = parsed.stream().filter(field -> !whitelist.containsKey(field)).toList();
+        if (!unknown.isEmpty()) {
+            throw new InvalidFieldsException("Unknown fields: " + String.join(", ", unknown));
+        }
+        return new ArrayList<>(parsed);
+    }
+
+    public <T> Page<Map<String, Object>> findPage(Class<T> type, Map<String, String> whitelist, List<String> fields,
+            Specification<T> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(type);
+        Map<String, From<?, ?>> joins = new HashMap<>();
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String field : fields) {
+            selections.add(path(root, joins, whitelist.get(field)));
+        }
+        query.multiselect(selections);
+        Predicate where = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (where != null) {
+            query.where(where);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<Tuple> typed = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize());
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Tuple tuple : typed.getResultList()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                row.put(fields.get(i), tuple.get(i));
+            }
+            rows.add(row);
+        }
+        return PageableExecutionUtils.getPage(rows, pageable, () -> count(type, spec));
+    }
+
+    private <T> long count(Class<T> type, Specification<T> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(type);
+        query.select(cb.count(root));
+        Predicate where = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (where != null) {
+            query.where(where);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    // Optional associations are left-joined so a null assignedBy or lead keeps the row
+    private static Path<?> path(Root<?> root, Map<String, From<?, ?>> joins, String attributePath) {
+        String[] parts = attributePath.split("\\.");
+        From<?, ?> from = root;
+        for (int i = 0; i < parts.length - 1; i++) {
+            From<?, ?> parent = from;
+            String part = parts[i];
+            from = joins.computeIfAbsent(String.join(".", Arrays.copyOf(parts, i + 1)),
+                    key -> parent.join(part, JoinType.LEFT));
+        }
+        return from.get(parts[parts.length - 1]);
+    }
+}
@@ -0,0 +1,103 @@
+package com.sr.CRM.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import com.sr.CRM.Model.Tasks;
+import com.sr.CRM.Model.Tasks.TaskStatus;
+
+/**
+ * JDBC batch writes for tasks. Hibernate cannot batch inserts for IDENTITY ids, so bulk
+ * paths go through here and send each batch as one round trip.
+ */
+@Repository
+public class TaskBatchRepository {
+
+    private static final String INSERT_TASK = """
+            INSERT INTO tasks (title, description, due_date, priority, status, lead_id, client_id, assigned_to,
+                               assigned_by, template_id, created_at, updated_at, overdue, change_seq)
+            VALUES (:title, :description, :dueDate, :priority, :status, :leadId, :clientId, :assignedTo,
+                    :assignedBy, :templateId, :createdAt, :updatedAt, FALSE, :changeSeq)
+            """;
+
+    private static final String UPDATE_STATUS = """
+            UPDATE tasks
+            SET status = :status,
+                updated_at = :updatedAt,
+                change_seq = :changeSeq,
+                overdue = CASE WHEN :status = 'DONE' THEN FALSE ELSE overdue END
+            WHERE id = :id
+            """;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    // These writes bypass Hibernate, so they take their change-feed positions here instead of ChangeSeqListener
+    @Autowired
+    private ChangeSequence changeSequence;
+
+    // Assigns the generated ids back onto the given tasks
+    public void insertAll(List<Tasks> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        List<Long> changeSeqs = changeSequence.next(tasks.size());
+        SqlParameterSource[] batch = new SqlParameterSource[tasks.size()];
+        for (int i = 0; i < tasks.size(); i++) {
+            Tasks task = tasks.get(i);
+            task.setChangeSeq(changeSeqs.get(i));
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("title", task.getTitle())
+                    .addValue("description", task.getDescription())
+                    .addValue("dueDate", toTimestamp(task.getDueDate()))
+                    .addValue("priority", task.getPriority().name())
+                    .addValue("status", task.getStatus().name())
+                    .addValue("leadId", task.getLead() != null ? task.getLead().getId() : null)
+                    .addValue("clientId", task.getClient() != null ? task.getClient().getId() : null)
+                    .addValue("assignedTo", task.getAssignedTo().getId())
+                    .addValue("assignedBy", task.getAssignedBy().getId())
+                    .addValue("templateId", task.getTemplateId())
+                    .addValue("createdAt", toTimestamp(task.getCreatedAt()))
+                    .addValue("updatedAt", toTimestamp(task.getUpdatedAt()))
+                    .addValue("changeSeq", task.getChangeSeq());
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(INSERT_TASK, batch, keyHolder, new String[] { "id" });
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+        }
+    }
+
+    // Rows updated per task, in order; 0 for a task that no longer exists
+    public int[] updateStatuses(List<Long> taskIds, List<TaskStatus> statuses, LocalDateTime updatedAt) {
+        if (taskIds.isEmpty()) {
+            return new int[0];
+        }
+        List<Long> changeSeqs = changeSequence.next(taskIds.size());
+        SqlParameterSource[] batch = new SqlParameterSource[taskIds.size()];
+        for (int i = 0; i < taskIds.size(); i++) {
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("id", taskIds.get(i))
+                    .addValue("changeSeq", changeSeqs.get(i))
+                    .addValue("status", statuses.get(i).name())
+                    .addValue("updatedAt", toTimestamp(updatedAt));
+        }
+        return jdbcTemplate.batchUpdate(UPDATE_STATUS, batch);
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime dateTime) {
+        return dateTime != null ? Timestamp.valueOf(dateTime) : null;
+    }
+}
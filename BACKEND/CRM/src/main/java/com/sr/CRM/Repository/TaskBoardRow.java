@@ -0,0 +1,18 @@
+package com.sr.CRM.Repository;
+
+import java.time.LocalDateTime;
+
+// Card row of the board queries
+public interface TaskBoardRow {
+    Long getId();
+
+    String getTitle();
+
+    LocalDateTime getDueDate();
+
+    String getPriority();
+
+    String getStatus();
+
+    Long getLeadId();
+}
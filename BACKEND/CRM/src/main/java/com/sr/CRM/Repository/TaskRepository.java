@@ -1,16 +1,23 @@
 package com.sr.CRM.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.sr.CRM.Model.Tasks;
 import com.sr.CRM.Model.Tasks.TaskStatus;
 import com.sr.CRM.Model.Users;
 
-public interface TaskRepository extends JpaRepository<Tasks, Long> {
+public interface TaskRepository extends JpaRepository<Tasks, Long>, JpaSpecificationExecutor<Tasks> {
 
     List<Tasks> findByLeadId(Long leadId);
 
@@ -26,13 +33,102 @@ public interface TaskRepository extends JpaRepository<Tasks, Long> {
 
     Object countByAssignedToAndStatus(Users currentUser, TaskStatus done);
 
-    Page<Tasks> findByStatus(String status, Pageable pageable);
+    Page<Tasks> findByStatus(TaskStatus status, Pageable pageable);
 
-    Page<Tasks> findByStatusAndAssignedToNotNull(String status, Pageable pageable);
+    Page<Tasks> findByStatusAndAssignedToNotNull(TaskStatus status, Pageable pageable);
 
     Page<Tasks> findAllByAssignedToNotNull(Pageable pageable);
 
     Page<Tasks> findByAssignedToIn(List<Users> assignedTo, Pageable pageable);
 
-    Page<Tasks> findByAssignedToInAndStatus(List<Users> assignedTo, String status, Pageable pageable);
+    Page<Tasks> findByAssignedToInAndStatus(List<Users> assignedTo, TaskStatus status, Pageable pageable);
+
+    @Query("SELECT t.status, COUNT(t) FROM Tasks t WHERE t.assignedTo IN :users GROUP BY t.status")
+    List<Object[]> countByStatusForAssignees(@Param("users") List<Users> users);
+
+    @Query("SELECT t.status, COUNT(t) FROM Tasks t GROUP BY t.status")
+    List<Object[]> countByStatus();
+
+    long countByAssignedToInAndStatusNotAndDueDateBefore(List<Users> users, TaskStatus status, LocalDateTime dueDate);
+
+    long countByStatusNotAndDueDateBefore(TaskStatus status, LocalDateTime dueDate);
+
+    List<Tasks> findTop5ByAssignedToInOrderByUpdatedAtDesc(List<Users> users);
+
+    List<Tasks> findTop5ByOrderByUpdatedAtDesc();
+
+    @Query("SELECT t.id, t.assignedTo.id, t.dueDate FROM Tasks t "
+            + "WHERE t.status <> :done AND t.dueDate IS NOT NULL AND t.overdue = false")
+    Stream<Object[]> streamOpenTaskDueDates(@Param("done") TaskStatus done);
+
+    List<Tasks> findByAssignedToAndStatusNotAndDueDateBetweenOrderByDueDateAscIdAsc(Users user, TaskStatus status,
+            LocalDateTime from, LocalDateTime to);
+
+    List<Tasks> findByTemplateIdAndStatusAndDueDateAfter(Long templateId, TaskStatus status, LocalDateTime after);
+
+    @Query("SELECT t.id, t.lead.id, t.priority, t.status FROM Tasks t WHERE t.lead IS NOT NULL")
+    Stream<Object[]> streamLeadTaskContributions();
+
+    @Query("SELECT t FROM Tasks t LEFT JOIN FETCH t.lead WHERE t.assignedTo.id = :userId AND t.status <> :done")
+    List<Tasks> findOpenTasksWithLead(@Param("userId") Long userId, @Param("done") TaskStatus done);
+
+    // Every node arms the same timers; the overdue = false guard lets only the first one's update through
+    @Modifying
+    @Transactional
+    @Query("UPDATE Tasks t SET t.overdue = true, t.changeSeq = :changeSeq "
+            + "WHERE t.id = :id AND t.status <> :done AND t.dueDate <= :now AND t.overdue = false")
+    int markOverdue(@Param("id") Long id, @Param("done") TaskStatus done, @Param("now") LocalDateTime now,
+            @Param("changeSeq") Long changeSeq);
+
+    // The backlog that fell due while no node was running, in one statement. Each row still gets its own
+    // change_seq so the change feed can page through them; call ChangeSequence.prepareTransaction() first
+    @Modifying
+    @Query(value = """
+            UPDATE tasks SET overdue = TRUE, change_seq = nextval('crm_change_seq')
+            WHERE status <> 'DONE' AND due_date <= :now AND overdue = FALSE
+            """, nativeQuery = true)
+    int markPastDueOverdue(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Tasks t SET t.remindedFor = :dueDate WHERE t.id = :id AND t.status <> :done "
+            + "AND t.dueDate = :dueDate AND (t.remindedFor IS NULL OR t.remindedFor <> :dueDate)")
+    int claimReminder(@Param("id") Long id, @Param("done") TaskStatus done,
+            @Param("dueDate") LocalDateTime dueDate);
+
+    // Board cards of one status due in [dueFrom, dueTo), after the (due date, id) cursor. The range and the
+    // order both follow idx_tasks_board, so Postgres reads at most :limit index entries
+    @Query(value = """
+            SELECT t.id, t.title, t.due_date AS "dueDate", t.priority, t.status, t.lead_id AS "leadId"
+            FROM tasks t
+            WHERE t.assigned_to = :userId AND t.status = :status
+              AND t.due_date >= :dueFrom AND t.due_date < :dueTo
+              AND (t.due_date, t.id) > (:afterDue, :afterId)
+            ORDER BY t.due_date, t.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<TaskBoardRow> findBoardDatedCards(@Param("userId") Long userId, @Param("status") String status,
+            @Param("dueFrom") LocalDateTime dueFrom, @Param("dueTo") LocalDateTime dueTo,
+            @Param("afterDue") LocalDateTime afterDue, @Param("afterId") Long afterId, @Param("limit") int limit);
+
+    // Board cards of one status without a due date; they sort after every dated card
+    @Query(value = """
+            SELECT t.id, t.title, t.due_date AS "dueDate", t.priority, t.status, t.lead_id AS "leadId"
+            FROM tasks t
+            WHERE t.assigned_to = :userId AND t.status = :status AND t.due_date IS NULL AND t.id > :afterId
+            ORDER BY t.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<TaskBoardRow> findBoardUndatedCards(@Param("userId") Long userId, @Param("status") String status,
+            @Param("afterId") Long afterId, @Param("limit") int limit);
+
+    // [boardColumn, count]; an index-only pass over the user's tasks, so it still grows with their task count
+    @Query(value = """
+            SELECT CASE WHEN t.status <> 'DONE' AND t.due_date < :now THEN 'OVERDUE' ELSE t.status END,
+                   COUNT(*)
+            FROM tasks t
+            WHERE t.assigned_to = :userId
+            GROUP BY 1
+            """, nativeQuery = true)
+    List<Object[]> countBoardColumns(@Param("userId") Long userId, @Param("now") LocalDateTime now);
 }
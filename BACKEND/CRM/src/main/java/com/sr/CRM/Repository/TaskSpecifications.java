@@ -0,0 +1,63 @@
+package com.sr.CRM.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.sr.CRM.Model.Tasks;
+import com.sr.CRM.Model.Tasks.TaskStatus;
+import com.sr.CRM.Model.DTO.TaskFilterDTO;
+
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+
+/**
+ * Compiles a {@link TaskFilterDTO} into one WHERE clause. Predicates only touch
+ * assigned_to, status and due_date (plus priority), matching the composite
+ * indexes declared on {@link Tasks}.
+ */
+public final class TaskSpecifications {
+
+    private TaskSpecifications() {
+    }
+
+    public static Specification<Tasks> matching(TaskFilterDTO filter, Collection<Long> assigneeScope,
+            LocalDateTime now) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            Path<Long> assigneeId = root.get("assignedTo").get("id");
+            Path<TaskStatus> status = root.get("status");
+            Path<LocalDateTime> dueDate = root.get("dueDate");
+
+            if (assigneeScope != null) {
+                predicates.add(assigneeId.in(assigneeScope));
+            }
+            if (filter.getAssignedToId() != null) {
+                predicates.add(cb.equal(assigneeId, filter.getAssignedToId()));
+            }
+            if (filter.getStatus() != null) {
+                predicates.add(cb.equal(status, filter.getStatus()));
+            }
+            if (filter.getPriority() != null) {
+                predicates.add(cb.equal(root.get("priority"), filter.getPriority()));
+            }
+            if (filter.getDueFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(dueDate, filter.getDueFrom()));
+            }
+            if (filter.getDueTo() != null) {
+                predicates.add(cb.lessThan(dueDate, filter.getDueTo()));
+            }
+            if (filter.getOverdue() != null) {
+                // Spelled out both ways: NOT (...) is NULL for a task without a due date and would drop it
+                predicates.add(filter.getOverdue()
+                        ? cb.and(cb.notEqual(status, TaskStatus.DONE), cb.lessThan(dueDate, now))
+                        : cb.or(cb.equal(status, TaskStatus.DONE), cb.isNull(status), cb.isNull(dueDate),
+                                cb.greaterThanOrEqualTo(dueDate, now)));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
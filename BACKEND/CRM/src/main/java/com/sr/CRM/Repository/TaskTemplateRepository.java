@@ -0,0 +1,31 @@
+package com.sr.CRM.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import com.sr.CRM.Model.TaskTemplate;
+import com.sr.CRM.Model.Users;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+public interface TaskTemplateRepository extends JpaRepository<TaskTemplate, Long> {
+
+    List<TaskTemplate> findByAssignedToInOrCreatedByOrderByIdDesc(List<Users> assignees, Users createdBy);
+
+    List<TaskTemplate> findByAssignedToAndActiveTrue(Users assignedTo);
+
+    // SKIP LOCKED (-2) so that several nodes can run the generator without taking the same template
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT t FROM TaskTemplate t WHERE t.active = true "
+            + "AND (t.materializedThrough IS NULL OR t.materializedThrough < :horizon) ORDER BY t.id")
+    List<TaskTemplate> lockDueForMaterialization(@Param("horizon") LocalDateTime horizon, Pageable pageable);
+}
@@ -3,14 +3,18 @@ package com.sr.CRM.Repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.sr.CRM.Model.Users;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface UserRepository extends JpaRepository<Users, Long> {
 
@@ -20,8 +24,13 @@ public interface UserRepository extends JpaRepository<Users, Long> {
 
     boolean existsByPhoneNumber(String phone_number); // Maps to phone_number column via @Column
 
+    // Looked up on nearly every request by getCurrentUser; invalidated by any write to employees
+    @QueryHints({ @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "users-queries") })
     Optional<Users> findByUsername(String username);
 
+    @QueryHints({ @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "users-queries") })
     List<Users> findByManager(Users manager);
 
     Long countByRolesContaining(String string);
@@ -34,6 +43,9 @@ public interface UserRepository extends JpaRepository<Users, Long> {
 
     Optional<Users> findByUsernameAndEmail(String username, String email);
 
+    @Query("SELECT u.id, r FROM Users u JOIN u.roles r WHERE u.id IN :ids")
+    List<Object[]> findRolesByUserIds(@Param("ids") List<Long> ids);
+
     @Modifying
     @Query("UPDATE Users u SET u.password = :password WHERE u.username = :username")
     void updatePasswordByUsername(@Param("password") String password, @Param("username") String username);
@@ -0,0 +1,69 @@
+package com.sr.CRM.Security;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+@Component
+public class RouteAuthorizationManager
+        implements AuthorizationManager<RequestAuthorizationContext>, SmartInitializingSingleton {
+
+    private static final Set<String> PUBLIC_PATHS = Set.of("/api/auth/login");
+
+    // Open to any signed-in user; every other route needs its own @PreAuthorize
+    private static final Set<String> AUTHENTICATED_PATHS = Set.of("/api/users/me", "/api/auth/change-password");
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final ApplicationContext applicationContext;
+
+    // Empty until the handler mappings are compiled, so nothing is let through early
+    private volatile RouteAuthorizationTable table = new RouteAuthorizationTable();
+
+    public RouteAuthorizationManager(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        RequestMappingHandlerMapping handlerMapping = applicationContext.getBean("requestMappingHandlerMapping",
+                RequestMappingHandlerMapping.class);
+        table = RouteAuthorizationTable.compile(handlerMapping.getHandlerMethods(), PUBLIC_PATHS,
+                AUTHENTICATED_PATHS);
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        HttpServletRequest request = context.getRequest();
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        int rule = table.resolve(request.getMethod(), path);
+
+        if (rule == RouteAuthorizationTable.UNMAPPED) {
+            return DENIED;
+        }
+        if ((rule & RouteAuthorizationTable.PUBLIC) != 0) {
+            return GRANTED;
+        }
+
+        Authentication auth = authentication.get();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return DENIED;
+        }
+        if ((rule & RouteAuthorizationTable.AUTHENTICATED) != 0) {
+            return GRANTED;
+        }
+        return (rule & RouteAuthorizationTable.roleMask(auth.getAuthorities())) != 0 ? GRANTED : DENIED;
+    }
+}
@@ -0,0 +1,186 @@
+package com.sr.CRM.Security;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+/**
+ * Path trie of every controller route, keyed by segment and HTTP method, with the
+ * roles allowed on each route packed into a bitmask. Built once from the handler
+ * mappings and resolved in a single walk over the request path.
+ */
+public class RouteAuthorizationTable {
+
+    public static final int UNMAPPED = 0;
+    public static final int ROLE_ADMIN = 1;
+    public static final int ROLE_MANAGER = 1 << 1;
+    public static final int ROLE_EMPLOYEE = 1 << 2;
+    public static final int AUTHENTICATED = 1 << 29;
+    public static final int PUBLIC = 1 << 30;
+
+    private static final String[] METHODS = { "GET", "POST", "PUT", "PATCH", "DELETE", "HEAD", "OPTIONS" };
+
+    private static final Pattern ROLE_EXPRESSION = Pattern.compile("^\\s*has(Any)?Role\\((.*)\\)\\s*$");
+
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private Node variable;
+        private final int[] rules = new int[METHODS.length];
+    }
+
+    private final Node root = new Node();
+
+    public static RouteAuthorizationTable compile(Map<RequestMappingInfo, HandlerMethod> handlerMethods,
+            Set<String> publicPaths, Set<String> authenticatedPaths) {
+        RouteAuthorizationTable table = new RouteAuthorizationTable();
+        handlerMethods.forEach((info, handlerMethod) -> {
+            int rule = ruleFor(handlerMethod);
+            Set<RequestMethod> methods = info.getMethodsCondition().getMethods();
+            for (String pattern : info.getPatternValues()) {
+                if (publicPaths.contains(pattern)) {
+                    table.register(pattern, methods, PUBLIC);
+                } else if (authenticatedPaths.contains(pattern)) {
+                    table.register(pattern, methods, AUTHENTICATED);
+                } else {
+                    table.register(pattern, methods, rule);
+                }
+            }
+        });
+        return table;
+    }
+
+    public void register(String pattern, Set<RequestMethod> methods, int rule) {
+        Node node = root;
+        for (String segment : pattern.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.startsWith("{") || segment.startsWith("*")) {
+                if (node.variable == null) {
+                    node.variable = new Node();
+                }
+                node = node.variable;
+            } else {
+                node = node.literals.computeIfAbsent(segment, s -> new Node());
+            }
+        }
+
+        if (methods.isEmpty()) {
+            for (int i = 0; i < METHODS.length; i++) {
+                node.rules[i] |= rule;
+            }
+            return;
+        }
+        for (RequestMethod method : methods) {
+            node.rules[methodIndex(method.name())] |= rule;
+            if (method == RequestMethod.GET) {
+                node.rules[methodIndex("HEAD")] |= rule;
+            }
+        }
+    }
+
+    /**
+     * Walks the path preferring a literal segment over a path variable at each level, and
+     * backs up to the variable when the literal branch has no route for this method, as
+     * Spring's own matching would. Returns {@link #UNMAPPED} when no controller route matches.
+     */
+    public int resolve(String method, String path) {
+        int methodIndex = methodIndex(method);
+        if (methodIndex < 0) {
+            return UNMAPPED;
+        }
+        return resolve(root, path, 0, methodIndex);
+    }
+
+    private static int resolve(Node node, String path, int start, int methodIndex) {
+        int length = path.length();
+        while (start < length && path.charAt(start) == '/') {
+            start++;
+        }
+        if (start >= length) {
+            return node.rules[methodIndex];
+        }
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = length;
+        }
+
+        Node literal = node.literals.get(path.substring(start, end));
+        if (literal != null) {
+            int rule = resolve(literal, path, end, methodIndex);
+            if (rule != UNMAPPED) {
+                return rule;
+            }
+        }
+        return node.variable == null ? UNMAPPED : resolve(node.variable, path, end, methodIndex);
+    }
+
+    public static int roleMask(Collection<? extends GrantedAuthority> authorities) {
+        int mask = 0;
+        for (GrantedAuthority authority : authorities) {
+            mask |= roleBit(authority.getAuthority());
+        }
+        return mask;
+    }
+
+    // A handler without @PreAuthorize gets no rule and is denied like an unmapped route
+    static int ruleFor(HandlerMethod handlerMethod) {
+        Method method = handlerMethod.getMethod();
+        PreAuthorize preAuthorize = AnnotatedElementUtils.findMergedAnnotation(method, PreAuthorize.class);
+        if (preAuthorize == null) {
+            preAuthorize = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), PreAuthorize.class);
+        }
+        return preAuthorize == null ? UNMAPPED : parseExpression(preAuthorize.value());
+    }
+
+    // Only hasRole/hasAnyRole are compiled; anything richer is left to method security
+    static int parseExpression(String expression) {
+        Matcher matcher = ROLE_EXPRESSION.matcher(expression);
+        if (!matcher.matches()) {
+            return AUTHENTICATED;
+        }
+        int mask = 0;
+        for (String argument : matcher.group(2).split(",")) {
+            int bit = roleBit(argument.trim().replace("'", "").replace("\"", ""));
+            if (bit == 0) {
+                return AUTHENTICATED;
+            }
+            mask |= bit;
+        }
+        return mask == 0 ? AUTHENTICATED : mask;
+    }
+
+    private static int roleBit(String role) {
+        String name = role.startsWith("ROLE_") ? role.substring(5) : role;
+        switch (name) {
+            case "ADMIN":
+                return ROLE_ADMIN;
+            case "MANAGER":
+                return ROLE_MANAGER;
+            case "EMPLOYEE":
+                return ROLE_EMPLOYEE;
+            default:
+                return 0;
+        }
+    }
+
+    private static int methodIndex(String method) {
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].equals(method)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
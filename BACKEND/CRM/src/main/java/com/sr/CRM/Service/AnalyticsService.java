@@ -1,18 +1,28 @@
 package com.sr.CRM.Service;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.sr.CRM.Config.ReplicaRead;
+import com.sr.CRM.Model.Lead.LeadStatus;
 import com.sr.CRM.Model.Tasks;
-import com.sr.CRM.Model.Tasks.TaskStatus;
 import com.sr.CRM.Model.Users;
+import com.sr.CRM.Repository.LeadHistoryRepository;
 import com.sr.CRM.Repository.LeadRepository;
+import com.sr.CRM.Repository.OrgRollupRepository;
+import com.sr.CRM.Repository.OrgRollupRepository.BranchRollup;
 import com.sr.CRM.Repository.TaskRepository;
 import com.sr.CRM.Repository.UserRepository;
+import com.sr.CRM.Util.DurationHistogram;
+import com.sr.CRM.Util.SingleFlightCache;
 
 @Service
 public class AnalyticsService {
@@ -29,8 +39,134 @@ public class AnalyticsService {
         @Autowired
         private UserRepository userRepository;
 
+        @Autowired
+        private SingleFlightCache analyticsReadCache;
+
+        @Autowired
+        private LeadHistoryRepository leadHistoryRepository;
+
+        @Autowired
+        private OrgRollupRepository orgRollupRepository;
+
+        @ReplicaRead
         public Map<String, Object> getEmployeeAnalytics() {
                 Users currentUser = userService.getCurrentUser();
+                return analyticsReadCache.get("analytics/summary:user:" + currentUser.getId(),
+                                () -> computeEmployeeAnalytics(currentUser));
+        }
+
+        @ReplicaRead
+        public Map<String, Object> getManagerAnalytics() {
+                Users currentUser = userService.getCurrentUser();
+                return analyticsReadCache.get("analytics/manager:user:" + currentUser.getId(),
+                                () -> computeManagerAnalytics(currentUser));
+        }
+
+        @ReplicaRead
+        public Map<String, Object> getAdminAnalytics() {
+                return analyticsReadCache.get("analytics/admin:all", this::computeAdminAnalytics);
+        }
+
+        // Time from first entering "from" to first entering "to", per rep, from the pre-bucketed duration stats
+        @ReplicaRead
+        public Map<String, Object> getFunnel(LeadStatus from, LeadStatus to, LocalDate since, LocalDate until) {
+                Users currentUser = userService.getCurrentUser();
+                Map<Long, String> reps = new LinkedHashMap<>();
+                List<Long> repIds = null;
+                if (!currentUser.getRoles().contains("ROLE_ADMIN")) {
+                        reps.put(currentUser.getId(), currentUser.getName());
+                        if (currentUser.getRoles().contains("ROLE_MANAGER")) {
+                                // The whole reporting subtree, so a director sees every level below them
+                                userService.getReportingSubtree(currentUser)
+                                                .forEach(employee -> reps.put(employee.getId(), employee.getName()));
+                        }
+                        repIds = new ArrayList<>(reps.keySet());
+                }
+
+                Map<Long, Map<Integer, Long>> histogram = leadHistoryRepository.durationHistogram(from, to, since,
+                                until, repIds);
+                if (repIds == null) {
+                        userRepository.findAllById(histogram.keySet())
+                                        .forEach(user -> reps.put(user.getId(), user.getName()));
+                }
+
+                Map<Integer, Long> overall = new HashMap<>();
+                List<Map<String, Object>> byRep = new ArrayList<>();
+                histogram.forEach((repId, counts) -> {
+                        counts.forEach((bucket, count) -> overall.merge(bucket, count, Long::sum));
+                        Map<String, Object> row = funnelRow(counts);
+                        row.put("repId", repId);
+                        row.put("name", reps.get(repId));
+                        byRep.add(row);
+                });
+                byRep.sort((a, b) -> Long.compare((Long) b.get("transitions"), (Long) a.get("transitions")));
+
+                Map<String, Object> funnel = new HashMap<>();
+                funnel.put("from", from);
+                funnel.put("to", to);
+                funnel.put("since", since);
+                funnel.put("until", until);
+                funnel.put("overall", funnelRow(overall));
+                funnel.put("reps", byRep);
+                return funnel;
+        }
+
+        /**
+         * Leads, tasks and clients across the caller's whole reporting subtree, one line per
+         * direct report covering everyone under them, plus the caller's own line and the total.
+         */
+        @ReplicaRead
+        public Map<String, Object> getOrgRollup() {
+                Users currentUser = userService.getCurrentUser();
+                return analyticsReadCache.get("analytics/rollup:user:" + currentUser.getId(),
+                                () -> computeOrgRollup(currentUser));
+        }
+
+        private Map<String, Object> computeOrgRollup(Users currentUser) {
+                Map<String, Object> self = null;
+                List<Map<String, Object>> branches = new ArrayList<>();
+                Map<String, Long> total = new LinkedHashMap<>();
+                for (BranchRollup branch : orgRollupRepository.rollup(currentUser.getId(), LocalDateTime.now())) {
+                        Map<String, Object> row = new LinkedHashMap<>();
+                        row.put("employeeId", branch.branchId());
+                        row.put("name", branch.branchName());
+                        row.put("headcount", branch.headcount());
+                        row.put("levels", branch.deepestLevel());
+                        row.put("leads", branch.leads());
+                        row.put("openLeads", branch.openLeads());
+                        row.put("convertedLeads", branch.convertedLeads());
+                        row.put("tasks", branch.tasks());
+                        row.put("doneTasks", branch.doneTasks());
+                        row.put("overdueTasks", branch.overdueTasks());
+                        row.put("clients", branch.clients());
+                        row.forEach((key, value) -> {
+                                if (!key.equals("employeeId") && !key.equals("name") && !key.equals("levels")) {
+                                        total.merge(key, ((Number) value).longValue(), Long::sum);
+                                }
+                        });
+                        if (branch.branchId().equals(currentUser.getId())) {
+                                self = row;
+                        } else {
+                                branches.add(row);
+                        }
+                }
+
+                Map<String, Object> rollup = new HashMap<>();
+                rollup.put("self", self);
+                rollup.put("directReports", branches);
+                rollup.put("total", total);
+                return rollup;
+        }
+
+        private static Map<String, Object> funnelRow(Map<Integer, Long> counts) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("transitions", counts.values().stream().mapToLong(Long::longValue).sum());
+                row.put("medianDays", DurationHistogram.percentileDays(counts, 0.5));
+                row.put("p90Days", DurationHistogram.percentileDays(counts, 0.9));
+                return row;
+        }
+
+        private Map<String, Object> computeEmployeeAnalytics(Users currentUser) {
                 Map<String, Object> analytics = new HashMap<>();
                 analytics.put("totalLeads", leadRepository.countByAssignedTo(currentUser));
                 analytics.put("totalTasks", taskRepository.countByAssignedTo(currentUser));
@@ -39,29 +175,32 @@ public class AnalyticsService {
                 return analytics;
         }
 
-        public Map<String, Object> getManagerAnalytics() {
-                Users currentUser = userService.getCurrentUser();
-                List<Users> employees = userRepository.findByManager(currentUser);
+        // The whole reporting subtree from one rollup query; the manager's own line is left out as before
+        private Map<String, Object> computeManagerAnalytics(Users currentUser) {
+                long totalEmployees = 0;
                 long totalLeads = 0;
                 long totalTasks = 0;
                 long completedTasks = 0;
 
-                for (Users employee : employees) {
-                        totalLeads = totalLeads + ((Number) leadRepository.countByAssignedTo(employee)).longValue();
-                        totalTasks = totalTasks + ((Number) taskRepository.countByAssignedTo(employee)).longValue();
-                        completedTasks = completedTasks + ((Number) taskRepository.countByAssignedToAndStatus(employee,
-                                        TaskStatus.DONE)).longValue();
+                for (BranchRollup branch : orgRollupRepository.rollup(currentUser.getId(), LocalDateTime.now())) {
+                        if (branch.branchId().equals(currentUser.getId())) {
+                                continue;
+                        }
+                        totalEmployees += branch.headcount();
+                        totalLeads += branch.leads();
+                        totalTasks += branch.tasks();
+                        completedTasks += branch.doneTasks();
                 }
 
                 Map<String, Object> analytics = new HashMap<>();
-                analytics.put("totalEmployees", employees.size());
+                analytics.put("totalEmployees", totalEmployees);
                 analytics.put("totalLeads", totalLeads);
                 analytics.put("totalTasks", totalTasks);
                 analytics.put("completedTasks", completedTasks);
                 return analytics;
         }
 
-        public Map<String, Object> getAdminAnalytics() {
+        private Map<String, Object> computeAdminAnalytics() {
                 Map<String, Object> analytics = new HashMap<>();
                 analytics.put("totalLeads", leadRepository.count());
                 analytics.put("totalTasks", taskRepository.count());
@@ -0,0 +1,221 @@
+package com.sr.CRM.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.sr.CRM.Model.ChangeTombstone;
+import com.sr.CRM.Model.ChangeTracked;
+import com.sr.CRM.Model.Client;
+import com.sr.CRM.Model.Lead;
+import com.sr.CRM.Model.Tasks;
+import com.sr.CRM.Model.Users;
+import com.sr.CRM.Repository.ChangeFeedRepository;
+import com.sr.CRM.Repository.ChangeFeedRepository.ChangedRow;
+import com.sr.CRM.Repository.ChangeFeedRepository.ScopeVersion;
+import com.sr.CRM.Repository.ChangeSequence;
+import com.sr.CRM.Repository.ClientRepository;
+import com.sr.CRM.Repository.LeadRepository;
+import com.sr.CRM.Repository.TaskRepository;
+import com.sr.CRM.Util.ETags;
+
+/**
+ * Incremental sync for the frontend: the leads, tasks and clients in the caller's scope
+ * that were written or removed after a cursor, in change_seq order. A client loads its
+ * lists once, then polls with the returned cursor and applies the changes to its cache.
+ */
+@Service
+public class ChangeFeedService {
+
+    private static final int MAX_CHANGES = 1000;
+    private static final List<String> ENTITY_TYPES = List.of("lead", "task", "client");
+
+    @Autowired
+    private ChangeFeedRepository changeFeedRepository;
+
+    @Autowired
+    private ChangeSequence changeSequence;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * Without {@code since} only the current cursor is returned; a client takes it before its
+     * initial load. {@code hasMore} means the page was cut at {@code limit} and the next call
+     * should follow immediately.
+     */
+    public Map<String, Object> getChanges(Long since, int limit) {
+        Users currentUser = userService.getCurrentUser();
+        int pageSize = Math.max(1, Math.min(limit, MAX_CHANGES));
+        long through = changeSequence.watermark();
+
+        Map<String, Object> response = new HashMap<>();
+        if (since == null || since >= through) {
+            response.put("cursor", since == null ? through : since);
+            response.put("changes", List.of());
+            response.put("hasMore", false);
+            return response;
+        }
+
+        Set<Long> owners = scopeOf(currentUser);
+        List<ChangedRow> rows = new ArrayList<>();
+        for (String entityType : ENTITY_TYPES) {
+            rows.addAll(changeFeedRepository.findChanged(entityType, since, through, owners, pageSize + 1));
+        }
+        List<ChangedRow> tombstones = changeFeedRepository.findTombstones(since, through, owners, pageSize + 1);
+        Set<ChangedRow> removals = new HashSet<>(tombstones);
+        rows.addAll(tombstones);
+        rows.sort(Comparator.comparingLong(ChangedRow::changeSeq));
+
+        boolean hasMore = rows.size() > pageSize;
+        List<ChangedRow> page = hasMore ? rows.subList(0, pageSize) : rows;
+        Map<String, Map<Long, Object>> current = load(page, removals);
+
+        List<Map<String, Object>> changes = new ArrayList<>();
+        for (ChangedRow row : page) {
+            Map<String, Object> change = new LinkedHashMap<>();
+            change.put("type", row.entityType());
+            change.put("id", row.entityId());
+            change.put("seq", row.changeSeq());
+            if (removals.contains(row)) {
+                change.put("op", "delete");
+            } else {
+                ChangeTracked entity = (ChangeTracked) current.get(row.entityType()).get(row.entityId());
+                // Deleted or moved out of scope since the page was read; its tombstone follows later
+                if (entity == null || (owners != null && (entity.getAssignedTo() == null
+                        || !owners.contains(entity.getAssignedTo().getId())))) {
+                    continue;
+                }
+                change.put("op", "upsert");
+                change.put("data", toMap(entity));
+            }
+            changes.add(change);
+        }
+
+        response.put("cursor", hasMore ? page.get(page.size() - 1).changeSeq() : through);
+        response.put("changes", changes);
+        response.put("hasMore", hasMore);
+        return response;
+    }
+
+    // Strong ETag for a list over the given owners' rows, from one aggregate over (assigned_to, change_seq)
+    public String listETag(String entityType, Long viewerId, Collection<Long> ownerIds) {
+        ScopeVersion version = changeFeedRepository.scopeVersion(entityType, ownerIds);
+        return ETags.strong(entityType, viewerId, version.rowCount(), version.maxChangeSeq());
+    }
+
+    // For bulk deletes that bypass entity callbacks (deleteAllInBatch, JPQL deletes)
+    public void recordDeletions(List<? extends ChangeTracked> deleted) {
+        if (deleted.isEmpty()) {
+            return;
+        }
+        List<Long> changeSeqs = changeSequence.next(deleted.size());
+        LocalDateTime now = LocalDateTime.now();
+        List<ChangeTombstone> tombstones = new ArrayList<>();
+        for (int i = 0; i < deleted.size(); i++) {
+            ChangeTracked entity = deleted.get(i);
+            tombstones.add(new ChangeTombstone(null, entity.changeType(), entity.getId(),
+                    entity.getAssignedTo() != null ? entity.getAssignedTo().getId() : null, changeSeqs.get(i),
+                    ChangeTombstone.DELETED, now));
+        }
+        changeFeedRepository.insertTombstones(tombstones);
+    }
+
+    // null means everything (admins)
+    private Set<Long> scopeOf(Users currentUser) {
+        if (currentUser.getRoles().contains("ROLE_ADMIN")) {
+            return null;
+        }
+        Set<Long> owners = new HashSet<>();
+        owners.add(currentUser.getId());
+        if (currentUser.getRoles().contains("ROLE_MANAGER")) {
+            owners.addAll(userService.getReportingSubtreeIds(currentUser));
+        }
+        return owners;
+    }
+
+    private Map<String, Map<Long, Object>> load(List<ChangedRow> page, Set<ChangedRow> removals) {
+        Map<String, List<Long>> ids = new HashMap<>();
+        for (ChangedRow row : page) {
+            if (!removals.contains(row)) {
+                ids.computeIfAbsent(row.entityType(), type -> new ArrayList<>()).add(row.entityId());
+            }
+        }
+        Map<String, Map<Long, Object>> loaded = new HashMap<>();
+        loaded.put("lead", byId(leadRepository.findAllById(ids.getOrDefault("lead", List.of())), Lead::getId));
+        loaded.put("task", byId(taskRepository.findAllById(ids.getOrDefault("task", List.of())), Tasks::getId));
+        loaded.put("client",
+                byId(clientRepository.findAllById(ids.getOrDefault("client", List.of())), Client::getId));
+        return loaded;
+    }
+
+    private static <T> Map<Long, Object> byId(Iterable<T> entities, Function<T, Long> id) {
+        Map<Long, Object> byId = new HashMap<>();
+        entities.forEach(entity -> byId.put(id.apply(entity), entity));
+        return byId;
+    }
+
+    private static Map<String, Object> toMap(ChangeTracked entity) {
+        Map<String, Object> map = new HashMap<>();
+        if (entity instanceof Lead lead) {
+            map.put("id", lead.getId());
+            map.put("name", lead.getName());
+            map.put("email", lead.getEmail());
+            map.put("phone", lead.getPhone());
+            map.put("company", lead.getCompany());
+            map.put("status", lead.getStatus());
+            map.put("createdAt", lead.getCreatedAt());
+            map.put("updatedAt", lead.getUpdatedAt());
+            map.put("assignedTo", lead.getAssignedTo().getName());
+            map.put("assignedToId", lead.getAssignedTo().getId());
+            map.put("conversion status", lead.getConversionStatus());
+            map.put("conversion message", lead.getConversionMessage());
+        } else if (entity instanceof Tasks task) {
+            map.put("id", task.getId());
+            map.put("title", task.getTitle());
+            map.put("description", task.getDescription());
+            map.put("dueDate", task.getDueDate());
+            map.put("status", task.getStatus());
+            map.put("priority", task.getPriority());
+            map.put("overdue", task.getOverdue());
+            map.put("createdAt", task.getCreatedAt());
+            map.put("updatedAt", task.getUpdatedAt());
+            map.put("assignedTo", task.getAssignedTo().getUsername());
+            map.put("assignedToId", task.getAssignedTo().getId());
+            map.put("assignedBy", task.getAssignedBy() != null ? task.getAssignedBy().getUsername() : null);
+            map.put("assignedById", task.getAssignedBy() != null ? task.getAssignedBy().getId() : null);
+            map.put("leadId", task.getLead() != null ? task.getLead().getId() : null);
+        } else if (entity instanceof Client client) {
+            map.put("id", client.getId());
+            map.put("name", client.getName());
+            map.put("email", client.getEmail());
+            map.put("phone", client.getPhone());
+            map.put("company", client.getCompany());
+            map.put("address", client.getAddress());
+            map.put("status", client.getStatus());
+            map.put("createdAt", client.getCreatedAt());
+            map.put("assignedToId", client.getAssignedTo() != null ? client.getAssignedTo().getId() : null);
+        }
+        return map;
+    }
+}
@@ -1,9 +1,12 @@
 package com.sr.CRM.Service;
 
+import com.sr.CRM.Config.ReplicaRead;
+import com.sr.CRM.Events.DomainEvent;
 import com.sr.CRM.Exception.ResourceNotFoundException;
 import com.sr.CRM.Model.Client;
 import com.sr.CRM.Model.Users;
 import com.sr.CRM.Repository.ClientRepository;
+import com.sr.CRM.Util.AfterCommit;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -14,6 +17,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
 
 import java.util.List;
 
@@ -23,6 +30,44 @@ public class ClientService {
     private ClientRepository clientRepository;
     @Autowired
     private UserService userService;
+    @Autowired
+    private DuplicateIndex duplicateIndex;
+    @Autowired
+    private ChangeFeedService changeFeedService;
+    @Autowired
+    private InvalidationBus invalidationBus;
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Inside a transaction the duplicate index is updated only once it commits
+    public void onClientSaved(Client client) {
+        invalidationBus.publish("client", client.getId());
+        AfterCommit.run(() -> duplicateIndex.onClientSaved(client));
+    }
+
+    public void onClientDeleted(Long id) {
+        invalidationBus.publish("client", id);
+        AfterCommit.run(() -> duplicateIndex.onClientDeleted(id));
+    }
+
+    @PostConstruct
+    void subscribeToRemoteWrites() {
+        invalidationBus.subscribe("client", id -> clientRepository.findById(id)
+                .ifPresentOrElse(duplicateIndex::onClientSaved, () -> duplicateIndex.onClientDeleted(id)));
+    }
+
+    public String getEmployeeClientsETag() {
+        Users currentUser = userService.getCurrentUser();
+        return changeFeedService.listETag("client", currentUser.getId(), List.of(currentUser.getId()));
+    }
+
+    public String getTeamClientsETag() {
+        Users currentUser = userService.getCurrentUser();
+        List<Long> teamIds = userService.getTeamMembers(currentUser).stream().map(Users::getId).toList();
+        return changeFeedService.listETag("client", currentUser.getId(), teamIds);
+    }
 
     public Page<Client> getEmployeeClients(Pageable pageable) {
         Users currentUser = userService.getCurrentUser();
@@ -30,6 +75,7 @@ public class ClientService {
         return clientPage;
     }
 
+    @ReplicaRead
     public Page<Client> getTeamClients(Pageable pageable) {
         Users currentUser = userService.getCurrentUser();
         List<Users> teamMembers = userService.getTeamMembers(currentUser);
@@ -40,7 +86,7 @@ public class ClientService {
         return clientRepository.findAll();
     }
 
-    // @Transactional
+    @Transactional
     public ResponseEntity<String> updateClient(Long id, Client updatedClient, Authentication authentication) {
         Client client = clientRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Client not found with ID: " + id));
@@ -57,18 +103,26 @@ public class ClientService {
             client.setStatus(updatedClient.getStatus());
         if (updatedClient.getAddress() != null)
             client.setAddress(updatedClient.getAddress());
-        clientRepository.save(client);
+        Client savedClient = clientRepository.save(client);
+        onClientSaved(savedClient);
+        outboxService.recordClient(DomainEvent.CLIENT_UPDATED, savedClient);
         return ResponseEntity.ok("Client updated successfully");
     }
 
     public ResponseEntity<String> deleteClient(Long id) {
         try {
-            if (!clientRepository.existsById(id)) {
+            Client client = clientRepository.findById(id).orElse(null);
+            if (client == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body("Client not found with ID: " + id);
             }
 
-            clientRepository.deleteById(id);
+            // A foreign key violation surfaces when this commits, inside the try
+            transactionTemplate.executeWithoutResult(status -> {
+                outboxService.recordClient(DomainEvent.CLIENT_DELETED, client);
+                clientRepository.deleteById(id);
+                onClientDeleted(id);
+            });
             return ResponseEntity.ok("Client deleted successfully");
 
         } catch (EmptyResultDataAccessException e) {
@@ -0,0 +1,239 @@
+package com.sr.CRM.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sr.CRM.Model.Lead;
+import com.sr.CRM.Model.Tasks;
+import com.sr.CRM.Model.Users;
+import com.sr.CRM.Model.Lead.LeadStatus;
+import com.sr.CRM.Model.Tasks.TaskStatus;
+import com.sr.CRM.Repository.ClientRepository;
+import com.sr.CRM.Repository.LeadRepository;
+import com.sr.CRM.Repository.TaskRepository;
+import com.sr.CRM.Repository.UserRepository;
+import com.sr.CRM.Util.SingleFlightCache;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Builds each role's dashboard in one call. The independent queries are started together on
+ * virtual threads, so the response takes as long as the slowest query rather than the sum;
+ * a query that misses its timeout is reported under "unavailable" instead of failing the page.
+ * The same timeout is set on the statement, so the database cancels the query as well.
+ */
+@Service
+public class DashboardService {
+
+    private static final int RECENT_ACTIVITY_SIZE = 10;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SingleFlightCache analyticsReadCache;
+
+    @Autowired
+    @Qualifier("virtualThreadExecutor")
+    private ExecutorService virtualThreadExecutor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${crm.dashboard.query-timeout-ms:2000}")
+    private long queryTimeoutMs;
+
+    private TransactionTemplate queryTransaction;
+
+    // JPA turns the transaction timeout into each statement's query timeout (whole seconds, rounded up)
+    @PostConstruct
+    void initQueryTransaction() {
+        queryTransaction = new TransactionTemplate(transactionManager);
+        queryTransaction.setReadOnly(true);
+        queryTransaction.setTimeout((int) Math.max(1, (queryTimeoutMs + 999) / 1000));
+    }
+
+    public Map<String, Object> getEmployeeDashboard() {
+        Users currentUser = userService.getCurrentUser();
+        return analyticsReadCache.get("dashboard/employee:user:" + currentUser.getId(),
+                () -> teamDashboard(List.of(currentUser), new LinkedHashMap<>()), DashboardService::isComplete);
+    }
+
+    public Map<String, Object> getManagerDashboard() {
+        Users currentUser = userService.getCurrentUser();
+        return analyticsReadCache.get("dashboard/manager:user:" + currentUser.getId(),
+                () -> computeManagerDashboard(currentUser), DashboardService::isComplete);
+    }
+
+    public Map<String, Object> getAdminDashboard() {
+        return analyticsReadCache.get("dashboard/admin:all", this::computeAdminDashboard, DashboardService::isComplete);
+    }
+
+    // A page with timed-out parts is served once, not cached for every viewer until the TTL runs out
+    private static boolean isComplete(Map<String, Object> dashboard) {
+        return ((List<?>) dashboard.get("unavailable")).isEmpty();
+    }
+
+    private Map<String, Object> computeManagerDashboard(Users currentUser) {
+        List<Users> employees = userService.getReportingSubtree(currentUser);
+        List<Users> scope = new ArrayList<>(employees);
+        scope.add(currentUser);
+
+        Map<String, Object> dashboard = new LinkedHashMap<>();
+        dashboard.put("totalEmployees", employees.size());
+        return teamDashboard(scope, dashboard);
+    }
+
+    private Map<String, Object> computeAdminDashboard() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Supplier<Object>> queries = new LinkedHashMap<>();
+        queries.put("leadsByStatus", () -> toStatusCounts(leadRepository.countByStatus(), LeadStatus.values()));
+        queries.put("tasksByStatus", () -> toStatusCounts(taskRepository.countByStatus(), TaskStatus.values()));
+        queries.put("overdueTasks", () -> taskRepository.countByStatusNotAndDueDateBefore(TaskStatus.DONE, now));
+        queries.put("pendingConversions", () -> leadRepository.countByConversionStatus("PENDING"));
+        queries.put("totalUsers", () -> userRepository.count());
+        queries.put("totalClients", () -> clientRepository.count());
+        queries.put("recentLeads", () -> leadRepository.findTop5ByOrderByUpdatedAtDesc());
+        queries.put("recentTasks", () -> taskRepository.findTop5ByOrderByUpdatedAtDesc());
+        return assemble(runConcurrently(queries), new LinkedHashMap<>());
+    }
+
+    private Map<String, Object> teamDashboard(List<Users> scope, Map<String, Object> dashboard) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Supplier<Object>> queries = new LinkedHashMap<>();
+        queries.put("leadsByStatus",
+                () -> toStatusCounts(leadRepository.countByStatusForAssignees(scope), LeadStatus.values()));
+        queries.put("tasksByStatus",
+                () -> toStatusCounts(taskRepository.countByStatusForAssignees(scope), TaskStatus.values()));
+        queries.put("overdueTasks",
+                () -> taskRepository.countByAssignedToInAndStatusNotAndDueDateBefore(scope, TaskStatus.DONE, now));
+        queries.put("pendingConversions",
+                () -> leadRepository.countByAssignedToInAndConversionStatus(scope, "PENDING"));
+        queries.put("recentLeads", () -> leadRepository.findTop5ByAssignedToInOrderByUpdatedAtDesc(scope));
+        queries.put("recentTasks", () -> taskRepository.findTop5ByAssignedToInOrderByUpdatedAtDesc(scope));
+        return assemble(runConcurrently(queries), dashboard);
+    }
+
+    private Map<String, Object> runConcurrently(Map<String, Supplier<Object>> queries) {
+        Map<String, CompletableFuture<Object>> futures = new LinkedHashMap<>();
+        queries.forEach((name, query) -> futures.put(name,
+                CompletableFuture.supplyAsync(() -> queryTransaction.execute(status -> query.get()),
+                        virtualThreadExecutor)
+                        .orTimeout(queryTimeoutMs, TimeUnit.MILLISECONDS)));
+
+        Map<String, Object> results = new HashMap<>();
+        futures.forEach((name, future) -> {
+            try {
+                results.put(name, future.join());
+            } catch (CompletionException e) {
+                results.put(name, null);
+            }
+        });
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> assemble(Map<String, Object> results, Map<String, Object> dashboard) {
+        List<String> unavailable = new ArrayList<>();
+        results.forEach((name, value) -> {
+            if (value == null) {
+                unavailable.add(name);
+            }
+        });
+
+        Map<String, Long> leadsByStatus = (Map<String, Long>) results.get("leadsByStatus");
+        Map<String, Long> tasksByStatus = (Map<String, Long>) results.get("tasksByStatus");
+        dashboard.put("leadsByStatus", leadsByStatus);
+        dashboard.put("tasksByStatus", tasksByStatus);
+        dashboard.put("totalLeads", leadsByStatus != null ? sum(leadsByStatus) : null);
+        dashboard.put("totalTasks", tasksByStatus != null ? sum(tasksByStatus) : null);
+        dashboard.put("completedTasks", tasksByStatus != null ? tasksByStatus.get(TaskStatus.DONE.name()) : null);
+        dashboard.put("overdueTasks", results.get("overdueTasks"));
+        dashboard.put("pendingConversions", results.get("pendingConversions"));
+        if (results.containsKey("totalUsers")) {
+            dashboard.put("totalUsers", results.get("totalUsers"));
+            dashboard.put("totalClients", results.get("totalClients"));
+        }
+        dashboard.put("recentActivity", recentActivity((List<Lead>) results.get("recentLeads"),
+                (List<Tasks>) results.get("recentTasks")));
+        dashboard.put("unavailable", unavailable);
+        return dashboard;
+    }
+
+    private List<Map<String, Object>> recentActivity(List<Lead> leads, List<Tasks> tasks) {
+        List<Map<String, Object>> activity = new ArrayList<>();
+        if (leads != null) {
+            for (Lead lead : leads) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("type", "LEAD");
+                item.put("id", lead.getId());
+                item.put("title", lead.getName());
+                item.put("status", lead.getStatus());
+                item.put("assignedTo", lead.getAssignedTo() != null ? lead.getAssignedTo().getName() : null);
+                item.put("updatedAt", lead.getUpdatedAt());
+                activity.add(item);
+            }
+        }
+        if (tasks != null) {
+            for (Tasks task : tasks) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("type", "TASK");
+                item.put("id", task.getId());
+                item.put("title", task.getTitle());
+                item.put("status", task.getStatus());
+                item.put("assignedTo", task.getAssignedTo() != null ? task.getAssignedTo().getName() : null);
+                item.put("updatedAt", task.getUpdatedAt());
+                activity.add(item);
+            }
+        }
+        activity.sort(Comparator.comparing((Map<String, Object> item) -> (LocalDateTime) item.get("updatedAt"),
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        return activity.size() > RECENT_ACTIVITY_SIZE ? activity.subList(0, RECENT_ACTIVITY_SIZE) : activity;
+    }
+
+    private static Map<String, Long> toStatusCounts(List<Object[]> rows, Enum<?>[] statuses) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Enum<?> status : statuses) {
+            counts.put(status.name(), 0L);
+        }
+        for (Object[] row : rows) {
+            if (row[0] != null) {
+                counts.put(((Enum<?>) row[0]).name(), ((Number) row[1]).longValue());
+            }
+        }
+        return counts;
+    }
+
+    private static long sum(Map<String, Long> counts) {
+        return counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
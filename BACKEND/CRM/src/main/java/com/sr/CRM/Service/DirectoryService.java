@@ -0,0 +1,123 @@
+package com.sr.CRM.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.sr.CRM.Config.ReplicaRead;
+import com.sr.CRM.Exception.InvalidCursorException;
+import com.sr.CRM.Model.DTO.DirectoryFilterDTO;
+import com.sr.CRM.Repository.DirectoryRepository;
+import com.sr.CRM.Repository.DirectoryRepository.DirectoryRow;
+
+@Service
+public class DirectoryService {
+
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final String CSV_HEADER = "id,name,email,phoneNumber,username,position,department,managerId,"
+            + "managerName,roles";
+
+    @Autowired
+    private DirectoryRepository directoryRepository;
+
+    @ReplicaRead
+    public Map<String, Object> getPage(DirectoryFilterDTO filter, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String afterName = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = position.lastIndexOf('~');
+                if (separator < 0) {
+                    throw new InvalidCursorException("Invalid cursor");
+                }
+                afterName = position.substring(0, separator);
+                afterId = Long.parseLong(position.substring(separator + 1));
+            } catch (IllegalArgumentException e) {
+                // Covers both a bad Base64 string and NumberFormatException
+                throw new InvalidCursorException("Invalid cursor");
+            }
+        }
+
+        // One extra row tells whether another page exists without a COUNT over the table
+        List<DirectoryRow> rows = directoryRepository.findPage(filter, afterName, afterId, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<DirectoryRow> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        List<Map<String, Object>> employees = new ArrayList<>();
+        for (DirectoryRow row : page) {
+            Map<String, Object> employee = new LinkedHashMap<>();
+            employee.put("id", row.id());
+            employee.put("name", row.name());
+            employee.put("email", row.email());
+            employee.put("phoneNumber", row.phoneNumber());
+            employee.put("username", row.username());
+            employee.put("position", row.position());
+            employee.put("department", row.department());
+            employee.put("managerId", row.managerId());
+            employee.put("managerName", row.managerName());
+            employee.put("roles", row.roles() != null ? Arrays.asList(row.roles().split(",")) : List.of());
+            employees.add(employee);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("employees", employees);
+        if (hasMore) {
+            DirectoryRow last = page.get(page.size() - 1);
+            String position = last.name() + "~" + last.id();
+            response.put("nextCursor",
+                    Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8)));
+        }
+        return response;
+    }
+
+    // Rows are written as the driver fetches them, so memory stays flat however large the export
+    @ReplicaRead
+    public void exportCsv(DirectoryFilterDTO filter, OutputStream out) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.newLine();
+        directoryRepository.forEach(filter, row -> writeRow(writer, row));
+        writer.flush();
+    }
+
+    private static void writeRow(BufferedWriter writer, DirectoryRow row) {
+        try {
+            writer.write(String.join(",", csv(row.id()), csv(row.name()), csv(row.email()), csv(row.phoneNumber()),
+                    csv(row.username()), csv(row.position()), csv(row.department()), csv(row.managerId()),
+                    csv(row.managerName()), csv(row.roles() != null ? row.roles().replace(',', ';') : null)));
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // RFC 4180 quoting, plus a leading quote on values a spreadsheet would run as a formula
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
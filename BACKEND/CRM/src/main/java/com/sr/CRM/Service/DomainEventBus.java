@@ -0,0 +1,121 @@
+package com.sr.CRM.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.sr.CRM.Events.DomainEvent;
+
+/**
+ * In-process fan-out for events relayed from the outbox. Consumers subscribe by event type
+ * (or {@link #ALL}). A batch is split by aggregate: the events of one lead, task or client
+ * reach the consumers in outbox order, and once one of them fails the rest of that
+ * aggregate's events are held back for the retry. Different aggregates are handled in
+ * parallel on virtual threads, at most {@code crm.outbox.consumer-parallelism} at a time.
+ */
+@Component
+public class DomainEventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(DomainEventBus.class);
+
+    public static final String ALL = "*";
+
+    private record Subscription(String eventType, String consumer, Consumer<DomainEvent> handler) {
+    }
+
+    // Event id to the error of the first consumer that threw. Events in neither list came after a failure
+    // in their aggregate and were not handed to any consumer
+    public record DeliveryResult(List<Long> delivered, Map<Long, String> failed) {
+    }
+
+    @Autowired
+    @Qualifier("virtualThreadExecutor")
+    private ExecutorService virtualThreadExecutor;
+
+    @Value("${crm.outbox.consumer-parallelism:16}")
+    private int parallelism;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public void subscribe(String eventType, String consumer, Consumer<DomainEvent> handler) {
+        subscriptions.add(new Subscription(eventType, consumer, handler));
+    }
+
+    // Returns once every consumer has finished with every event in the batch
+    public DeliveryResult deliver(List<DomainEvent> events) throws InterruptedException {
+        Map<String, List<DomainEvent>> byAggregate = new LinkedHashMap<>();
+        for (DomainEvent event : events) {
+            byAggregate.computeIfAbsent(event.aggregateType() + ":" + event.aggregateId(), key -> new ArrayList<>())
+                    .add(event);
+        }
+
+        Set<Long> handled = ConcurrentHashMap.newKeySet();
+        Map<Long, String> failed = new ConcurrentHashMap<>();
+        Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        List<Future<?>> running = new ArrayList<>();
+        for (List<DomainEvent> aggregateEvents : byAggregate.values()) {
+            permits.acquire();
+            running.add(virtualThreadExecutor.submit(() -> {
+                try {
+                    for (DomainEvent event : aggregateEvents) {
+                        String error = handle(event);
+                        if (error != null) {
+                            failed.put(event.id(), error);
+                            break;
+                        }
+                        handled.add(event.id());
+                    }
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+        for (Future<?> task : running) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                // handle() catches consumer failures; anything else is a bug in the bus itself
+                log.error("Domain event delivery task failed", e.getCause());
+            }
+        }
+
+        List<Long> delivered = events.stream().map(DomainEvent::id).filter(handled::contains).toList();
+        return new DeliveryResult(delivered, failed);
+    }
+
+    // Every matching consumer runs even if an earlier one threw, so a retry repeats work for all of them
+    private String handle(DomainEvent event) {
+        String error = null;
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.eventType().equals(ALL) && !subscription.eventType().equals(event.type())) {
+                continue;
+            }
+            try {
+                subscription.handler().accept(event);
+            } catch (RuntimeException e) {
+                log.warn("Consumer {} failed on {} {} (attempt {}): {}", subscription.consumer(), event.type(),
+                        event.id(), event.attempt(), e.toString());
+                if (error == null) {
+                    error = subscription.consumer() + ": " + e;
+                }
+            }
+        }
+        return error;
+    }
+}
@@ -0,0 +1,403 @@
+package com.sr.CRM.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.sr.CRM.Model.Client;
+import com.sr.CRM.Model.Lead;
+import com.sr.CRM.Repository.ClientRepository;
+import com.sr.CRM.Repository.LeadRepository;
+import com.sr.CRM.Util.StringSimilarity;
+
+/**
+ * In-memory duplicate index over leads and clients. Exact matches are found through
+ * normalized email and phone keys; fuzzy candidates are blocked on shared name trigrams
+ * and then compared with Jaro-Winkler, weighted by whether the normalized companies agree.
+ * A check therefore only scores the handful of records that share a key or enough
+ * trigrams with the probe, never the whole table.
+ */
+@Component
+public class DuplicateIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(DuplicateIndex.class);
+
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9 ]");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Set<String> COMPANY_SUFFIXES = Set.of("inc", "llc", "ltd", "limited", "pvt", "private",
+            "corp", "corporation", "co", "company", "gmbh", "plc", "llp");
+    // Trigrams shared by this many records say nothing about identity and are skipped when blocking
+    private static final int MAX_POSTING_SIZE = 2000;
+    private static final double MIN_SHARED_TRIGRAMS = 0.4;
+    private static final double EMAIL_MATCH = 1.0;
+    private static final double PHONE_MATCH = 0.95;
+
+    public enum Kind {
+        LEAD, CLIENT
+    }
+
+    public record Ref(Kind kind, Long id) {
+    }
+
+    public record Match(Kind kind, Long id, double score, boolean exactKey, Long ownerId) {
+    }
+
+    private record Entry(Ref ref, String name, String email, String phone, String company, Long ownerId) {
+    }
+
+    // Everything a check reads; a reload builds a fresh one and swaps it in
+    private static final class Index {
+        private final Map<Ref, Entry> entries = new HashMap<>();
+        private final Map<String, Set<Ref>> byEmail = new HashMap<>();
+        private final Map<String, Set<Ref>> byPhone = new HashMap<>();
+        private final Map<String, Set<Ref>> byTrigram = new HashMap<>();
+    }
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Value("${crm.dedup.threshold:0.92}")
+    private double threshold;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Both guarded by the lock. While a reload reads the database, writes still go to the current index and
+    // are also noted here (latest state per record, empty for a delete), then replayed onto the new one
+    private Index index = new Index();
+    private Map<Ref, Optional<Entry>> writesDuringReload;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    // Startup and after missed invalidations. The database is read without the lock, so checks and writes
+    // only wait for the swap
+    public synchronized void reload() {
+        lock.writeLock().lock();
+        try {
+            writesDuringReload = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Index rebuilt = new Index();
+        boolean loaded = false;
+        try {
+            leadRepository.findAll().forEach(lead -> add(rebuilt, leadEntry(lead)));
+            clientRepository.findAll().forEach(client -> add(rebuilt, clientEntry(client)));
+            loaded = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (loaded) {
+                    writesDuringReload.forEach((ref, write) -> write.ifPresentOrElse(entry -> add(rebuilt, entry),
+                            () -> unindex(rebuilt, rebuilt.entries.remove(ref))));
+                    index = rebuilt;
+                }
+                writesDuringReload = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Loaded {} leads and clients into the duplicate index", size());
+    }
+
+    public Optional<Match> bestMatch(Ref exclude, String name, String email, String phone, String company) {
+        return findMatches(exclude, name, email, phone, company, threshold).stream().findFirst();
+    }
+
+    public List<Match> findMatches(Ref exclude, String name, String email, String phone, String company,
+            double minScore) {
+        Entry probe = entry(exclude, name, email, phone, company, null);
+        lock.readLock().lock();
+        try {
+            return match(index, probe, minScore);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every record paired with its matches above {@code minScore}, grouped into clusters
+     * (connected components), largest first.
+     */
+    public List<List<Match>> clusters(double minScore, int maxClusters) {
+        Map<Ref, Ref> parent = new HashMap<>();
+        Map<Ref, Match> members = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Entry entry : index.entries.values()) {
+                for (Match match : match(index, entry, minScore)) {
+                    Ref other = new Ref(match.kind(), match.id());
+                    members.putIfAbsent(other, match);
+                    members.putIfAbsent(entry.ref(),
+                            new Match(entry.ref().kind(), entry.ref().id(), match.score(), match.exactKey(),
+                                    entry.ownerId()));
+                    union(parent, entry.ref(), other);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Ref, List<Match>> grouped = new HashMap<>();
+        members.forEach((ref, match) -> grouped.computeIfAbsent(find(parent, ref), root -> new ArrayList<>())
+                .add(match));
+        return grouped.values().stream()
+                .sorted(Comparator.comparingInt((List<Match> cluster) -> cluster.size()).reversed())
+                .limit(maxClusters)
+                .toList();
+    }
+
+    public void onLeadSaved(Lead lead) {
+        put(leadEntry(lead));
+    }
+
+    public void onLeadDeleted(Long id) {
+        remove(new Ref(Kind.LEAD, id));
+    }
+
+    public void onClientSaved(Client client) {
+        put(clientEntry(client));
+    }
+
+    public void onClientDeleted(Long id) {
+        remove(new Ref(Kind.CLIENT, id));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<Match> match(Index index, Entry probe, double minScore) {
+        Set<Ref> candidates = new HashSet<>();
+        Set<Ref> emailHits = probe.email() != null ? index.byEmail.getOrDefault(probe.email(), Set.of())
+                : Set.of();
+        Set<Ref> phoneHits = probe.phone() != null ? index.byPhone.getOrDefault(probe.phone(), Set.of())
+                : Set.of();
+        candidates.addAll(emailHits);
+        candidates.addAll(phoneHits);
+
+        if (probe.name() != null) {
+            Set<String> grams = StringSimilarity.trigrams(probe.name());
+            Map<Ref, Integer> shared = new HashMap<>();
+            for (String gram : grams) {
+                Set<Ref> posting = index.byTrigram.get(gram);
+                if (posting != null && posting.size() <= MAX_POSTING_SIZE) {
+                    posting.forEach(ref -> shared.merge(ref, 1, Integer::sum));
+                }
+            }
+            int needed = (int) Math.ceil(grams.size() * MIN_SHARED_TRIGRAMS);
+            shared.forEach((ref, count) -> {
+                if (count >= needed) {
+                    candidates.add(ref);
+                }
+            });
+        }
+        candidates.remove(probe.ref());
+
+        List<Match> matches = new ArrayList<>();
+        for (Ref ref : candidates) {
+            Entry candidate = index.entries.get(ref);
+            if (candidate == null) {
+                continue;
+            }
+            boolean exact = emailHits.contains(ref) || phoneHits.contains(ref);
+            double score = emailHits.contains(ref) ? EMAIL_MATCH
+                    : phoneHits.contains(ref) ? PHONE_MATCH : nameScore(probe, candidate);
+            if (score >= minScore) {
+                matches.add(new Match(ref.kind(), ref.id(), score, exact, candidate.ownerId()));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(Match::score).reversed().thenComparing(Match::id));
+        return matches;
+    }
+
+    private static double nameScore(Entry a, Entry b) {
+        if (a.name() == null || b.name() == null) {
+            return 0.0;
+        }
+        double similarity = StringSimilarity.jaroWinkler(a.name(), b.name());
+        if (a.company() == null || b.company() == null) {
+            return similarity * 0.9;
+        }
+        return a.company().equals(b.company()) ? Math.min(1.0, similarity + 0.05) : similarity * 0.8;
+    }
+
+    private void put(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            add(index, entry);
+            if (writesDuringReload != null) {
+                writesDuringReload.put(entry.ref(), Optional.of(entry));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(Ref ref) {
+        lock.writeLock().lock();
+        try {
+            unindex(index, index.entries.remove(ref));
+            if (writesDuringReload != null) {
+                writesDuringReload.put(ref, Optional.empty());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void add(Index index, Entry entry) {
+        unindex(index, index.entries.put(entry.ref(), entry));
+        if (entry.email() != null) {
+            index.byEmail.computeIfAbsent(entry.email(), key -> new HashSet<>()).add(entry.ref());
+        }
+        if (entry.phone() != null) {
+            index.byPhone.computeIfAbsent(entry.phone(), key -> new HashSet<>()).add(entry.ref());
+        }
+        if (entry.name() != null) {
+            for (String gram : StringSimilarity.trigrams(entry.name())) {
+                index.byTrigram.computeIfAbsent(gram, key -> new HashSet<>()).add(entry.ref());
+            }
+        }
+    }
+
+    private static void unindex(Index index, Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        removeFrom(index.byEmail, entry.email(), entry.ref());
+        removeFrom(index.byPhone, entry.phone(), entry.ref());
+        if (entry.name() != null) {
+            for (String gram : StringSimilarity.trigrams(entry.name())) {
+                removeFrom(index.byTrigram, gram, entry.ref());
+            }
+        }
+    }
+
+    private static void removeFrom(Map<String, Set<Ref>> postings, String key, Ref ref) {
+        if (key == null) {
+            return;
+        }
+        Set<Ref> posting = postings.get(key);
+        if (posting != null && posting.remove(ref) && posting.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+
+    private static Ref find(Map<Ref, Ref> parent, Ref ref) {
+        Ref root = ref;
+        while (parent.containsKey(root) && !parent.get(root).equals(root)) {
+            root = parent.get(root);
+        }
+        // Path compression
+        Ref current = ref;
+        while (!current.equals(root)) {
+            Ref next = parent.get(current);
+            parent.put(current, root);
+            current = next;
+        }
+        return root;
+    }
+
+    private static void union(Map<Ref, Ref> parent, Ref a, Ref b) {
+        Ref rootA = find(parent, a);
+        Ref rootB = find(parent, b);
+        if (!rootA.equals(rootB)) {
+            parent.put(rootA, rootB);
+        }
+    }
+
+    private static Entry leadEntry(Lead lead) {
+        return entry(new Ref(Kind.LEAD, lead.getId()), lead.getName(), lead.getEmail(), lead.getPhone(),
+                lead.getCompany(), lead.getAssignedTo() != null ? lead.getAssignedTo().getId() : null);
+    }
+
+    private static Entry clientEntry(Client client) {
+        return entry(new Ref(Kind.CLIENT, client.getId()), client.getName(), client.getEmail(), client.getPhone(),
+                client.getCompany(), client.getAssignedTo() != null ? client.getAssignedTo().getId() : null);
+    }
+
+    private static Entry entry(Ref ref, String name, String email, String phone, String company, Long ownerId) {
+        return new Entry(ref, normalizeName(name), normalizeEmail(email), normalizePhone(phone),
+                normalizeCompany(company), ownerId);
+    }
+
+    static String normalizeEmail(String email) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        String value = email.trim().toLowerCase(Locale.ROOT);
+        int at = value.lastIndexOf('@');
+        if (at <= 0) {
+            return value;
+        }
+        String local = value.substring(0, at);
+        String domain = value.substring(at + 1);
+        int plus = local.indexOf('+');
+        if (plus > 0) {
+            local = local.substring(0, plus);
+        }
+        if (domain.equals("gmail.com") || domain.equals("googlemail.com")) {
+            local = local.replace(".", "");
+            domain = "gmail.com";
+        }
+        return local + "@" + domain;
+    }
+
+    static String normalizePhone(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        String digits = phone.replaceAll("\\D", "");
+        if (digits.length() < 7) {
+            return null;
+        }
+        return digits.length() > 10 ? digits.substring(digits.length() - 10) : digits;
+    }
+
+    static String normalizeCompany(String company) {
+        String value = normalizeName(company);
+        if (value == null) {
+            return null;
+        }
+        List<String> words = new ArrayList<>(List.of(value.split(" ")));
+        words.removeIf(COMPANY_SUFFIXES::contains);
+        String normalized = String.join(" ", words);
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    static String normalizeName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String value = NON_ALPHANUMERIC.matcher(name.toLowerCase(Locale.ROOT)).replaceAll(" ");
+        value = SPACES.matcher(value).replaceAll(" ").trim();
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,335 @@
+package com.sr.CRM.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Keeps the in-process caches and indexes of every backend node in step. A write publishes
+ * {@code NOTIFY crm_invalidate} with the entity type and ids; PostgreSQL delivers it when the
+ * writing transaction commits, and only then. Each node holds one dedicated connection that
+ * LISTENs on the channel and hands the ids to the handlers subscribed for that type. A
+ * node's own messages are skipped, since it already applied the change locally.
+ * <p>
+ * The same connection also LISTENs on {@code crm_live}, which carries small text messages that
+ * every other node should see, such as live events pushed on the node that relayed them.
+ * <p>
+ * Payload: {@code <nodeId>;<sentAtMillis>;<entityType>;<id>,<id>,...}, or
+ * {@code <nodeId>;<sentAtMillis>;<topic>;<message>} on {@code crm_live}
+ */
+@Component
+public class InvalidationBus implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationBus.class);
+
+    private static final String CHANNEL = "crm_invalidate";
+    private static final String BROADCAST_CHANNEL = "crm_live";
+    // NOTIFY payloads must stay under 8000 bytes
+    private static final int MAX_PAYLOAD = 7500;
+    private static final int POLL_MILLIS = 1000;
+    // A half-open connection (NAT or firewall drop, failover without RST) never fails a poll, so the
+    // listener sends a query every so often; it must answer within the network timeout
+    private static final int PROBE_EVERY_POLLS = 15;
+    private static final int NETWORK_TIMEOUT_MILLIS = 10_000;
+    static final String LISTENER_APPLICATION_NAME = "crm-invalidation-listener";
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final Object PENDING_KEY = new Object();
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, List<Consumer<Long>>> handlers = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<String>>> broadcastHandlers = new ConcurrentHashMap<>();
+    private final List<Runnable> resyncHandlers = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    @Qualifier("virtualThreadExecutor")
+    private ExecutorService virtualThreadExecutor;
+
+    @Value("${crm.invalidation.listen:true}")
+    private boolean listen;
+
+    private final Timer latency;
+    private final Counter received;
+    private final Counter failed;
+
+    private volatile boolean running = true;
+    private volatile Connection listenerConnection;
+
+    public InvalidationBus(MeterRegistry meterRegistry) {
+        latency = Timer.builder("crm.invalidation.latency")
+                .description("Time from a remote commit's NOTIFY to its local eviction")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        received = Counter.builder("crm.invalidation.received").register(meterRegistry);
+        failed = Counter.builder("crm.invalidation.handler.failed").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (listen) {
+            virtualThreadExecutor.submit(this::listenLoop);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        closeQuietly(listenerConnection);
+    }
+
+    /** Called on this node for every id another node invalidates. */
+    public void subscribe(String entityType, Consumer<Long> handler) {
+        handlers.computeIfAbsent(entityType, type -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /** Called on this node for every message another node broadcasts on the topic. */
+    public void onBroadcast(String topic, Consumer<String> handler) {
+        broadcastHandlers.computeIfAbsent(topic, key -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /**
+     * Sends the message to every other node. It is not batched to commit like {@link #publish}; inside a
+     * transaction PostgreSQL still holds it back until commit. Messages too big for one NOTIFY are refused.
+     */
+    public void broadcast(String topic, String message) {
+        String payload = nodeId + ";" + System.currentTimeMillis() + ";" + topic + ";" + message;
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Broadcast on " + topic + " exceeds " + MAX_PAYLOAD + " bytes");
+        }
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", BROADCAST_CHANNEL, payload);
+    }
+
+    /** Called after the listener reconnects; anything published while it was down was missed. */
+    public void onResync(Runnable handler) {
+        resyncHandlers.add(handler);
+    }
+
+    /**
+     * Inside a transaction the ids are collected and sent in one NOTIFY per type just before
+     * commit, so a bulk write costs one round trip and a rollback sends nothing.
+     */
+    public void publish(String entityType, Long id) {
+        if (id == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send(entityType, List.of(id));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Set<Long>> pending = (Map<String, Set<Long>>) TransactionSynchronizationManager
+                .getResource(PENDING_KEY);
+        if (pending == null) {
+            Map<String, Set<Long>> batch = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(PENDING_KEY, batch);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    batch.forEach((type, ids) -> send(type, new ArrayList<>(ids)));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_KEY);
+                }
+            });
+            pending = batch;
+        }
+        pending.computeIfAbsent(entityType, type -> new LinkedHashSet<>()).add(id);
+    }
+
+    private void send(String entityType, List<Long> ids) {
+        String prefix = nodeId + ";" + System.currentTimeMillis() + ";" + entityType + ";";
+        StringBuilder payload = new StringBuilder(prefix);
+        for (Long id : ids) {
+            String part = (payload.length() > prefix.length() ? "," : "") + id;
+            if (payload.length() + part.length() > MAX_PAYLOAD) {
+                notify(payload.toString());
+                payload = new StringBuilder(prefix);
+                part = id.toString();
+            }
+            payload.append(part);
+        }
+        notify(payload.toString());
+    }
+
+    private void notify(String payload) {
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, payload);
+    }
+
+    private void listenLoop() {
+        long backoff = 1000;
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    listenerProperties())) {
+                listenerConnection = connection;
+                connection.setNetworkTimeout(virtualThreadExecutor, NETWORK_TIMEOUT_MILLIS);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                    statement.execute("LISTEN " + BROADCAST_CHANNEL);
+                }
+                log.info("Listening for cache invalidations on {} as node {}", CHANNEL, nodeId);
+                backoff = 1000;
+                if (reconnecting) {
+                    resync();
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                int polls = 0;
+                while (running) {
+                    if (++polls % PROBE_EVERY_POLLS == 0) {
+                        probe(connection);
+                    }
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            // One bad payload or handler must not take the listener down with it
+                            try {
+                                if (BROADCAST_CHANNEL.equals(notification.getName())) {
+                                    handleBroadcast(notification.getParameter());
+                                } else {
+                                    handle(notification.getParameter());
+                                }
+                            } catch (RuntimeException e) {
+                                failed.increment();
+                                log.error("Could not apply invalidation {}", notification.getParameter(), e);
+                            }
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Invalidation listener lost its connection, retrying in {} ms: {}", backoff,
+                        e.toString());
+                reconnecting = true;
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    // Throws like a lost connection when the server does not answer
+    private static void probe(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT 1");
+        }
+    }
+
+    private Properties listenerProperties() {
+        Properties properties = new Properties();
+        if (dataSourceProperties.determineUsername() != null) {
+            properties.setProperty("user", dataSourceProperties.determineUsername());
+        }
+        if (dataSourceProperties.determinePassword() != null) {
+            properties.setProperty("password", dataSourceProperties.determinePassword());
+        }
+        properties.setProperty("tcpKeepAlive", "true");
+        properties.setProperty("ApplicationName", LISTENER_APPLICATION_NAME);
+        return properties;
+    }
+
+    private void handle(String payload) {
+        String[] parts = payload.split(";", 4);
+        if (parts.length < 4 || parts[0].equals(nodeId)) {
+            return;
+        }
+        received.increment();
+        List<Consumer<Long>> subscribers = handlers.getOrDefault(parts[2], List.of());
+        for (String id : parts[3].split(",")) {
+            for (Consumer<Long> handler : subscribers) {
+                try {
+                    handler.accept(Long.parseLong(id));
+                } catch (RuntimeException e) {
+                    failed.increment();
+                    log.error("Invalidation handler for {} {} failed", parts[2], id, e);
+                }
+            }
+        }
+        latency.record(Math.max(0, System.currentTimeMillis() - Long.parseLong(parts[1])), TimeUnit.MILLISECONDS);
+    }
+
+    private void handleBroadcast(String payload) {
+        String[] parts = payload.split(";", 4);
+        if (parts.length < 4 || parts[0].equals(nodeId)) {
+            return;
+        }
+        received.increment();
+        for (Consumer<String> handler : broadcastHandlers.getOrDefault(parts[2], List.of())) {
+            try {
+                handler.accept(parts[3]);
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("Broadcast handler for {} failed", parts[2], e);
+            }
+        }
+    }
+
+    private void resync() {
+        for (Runnable handler : resyncHandlers) {
+            try {
+                handler.run();
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("Invalidation resync handler failed", e);
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // Already broken
+        }
+    }
+}
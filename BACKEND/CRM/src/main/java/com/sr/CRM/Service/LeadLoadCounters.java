@@ -0,0 +1,105 @@
+package com.sr.CRM.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.sr.CRM.Model.Lead;
+import com.sr.CRM.Model.Lead.LeadStatus;
+import com.sr.CRM.Repository.LeadRepository;
+
+/**
+ * Open-lead count per employee, for lead routing. Loaded with one query at startup and then
+ * maintained from the LeadService hooks; the owner of each open lead is remembered so that
+ * reassignments, closes and deletes move the right counter without re-reading the lead.
+ */
+@Component
+public class LeadLoadCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadLoadCounters.class);
+
+    public static final List<LeadStatus> OPEN_STATUSES = List.of(LeadStatus.NEW, LeadStatus.CONTACTED,
+            LeadStatus.QUALIFIED);
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    private final Map<Long, AtomicInteger> openByUser = new ConcurrentHashMap<>();
+    private final Map<Long, Long> ownerByOpenLead = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        try (Stream<Object[]> rows = leadRepository.streamOpenLeadOwners(OPEN_STATUSES)) {
+            rows.forEach(row -> {
+                Long leadId = (Long) row[0];
+                Long ownerId = (Long) row[1];
+                if (ownerId != null && ownerByOpenLead.putIfAbsent(leadId, ownerId) == null) {
+                    counter(ownerId).incrementAndGet();
+                }
+            });
+        }
+        log.info("Loaded open-lead counters for {} employees", openByUser.size());
+    }
+
+    // After missed invalidations: move every lead to the owner the database has now
+    @Transactional(readOnly = true)
+    public void reload() {
+        Map<Long, Long> current = new HashMap<>();
+        try (Stream<Object[]> rows = leadRepository.streamOpenLeadOwners(OPEN_STATUSES)) {
+            rows.forEach(row -> {
+                if (row[1] != null) {
+                    current.put((Long) row[0], (Long) row[1]);
+                }
+            });
+        }
+        current.forEach(this::move);
+        for (Long leadId : ownerByOpenLead.keySet()) {
+            if (!current.containsKey(leadId)) {
+                move(leadId, null);
+            }
+        }
+        log.info("Reloaded open-lead counters for {} open leads", current.size());
+    }
+
+    public int openLeads(Long userId) {
+        AtomicInteger count = openByUser.get(userId);
+        return count != null ? count.get() : 0;
+    }
+
+    public void onLeadSaved(Lead lead) {
+        boolean open = lead.getAssignedTo() != null && OPEN_STATUSES.contains(lead.getStatus());
+        move(lead.getId(), open ? lead.getAssignedTo().getId() : null);
+    }
+
+    public void onLeadDeleted(Long leadId) {
+        move(leadId, null);
+    }
+
+    private void move(Long leadId, Long newOwner) {
+        ownerByOpenLead.compute(leadId, (id, previousOwner) -> {
+            if (previousOwner != null && !previousOwner.equals(newOwner)) {
+                counter(previousOwner).decrementAndGet();
+            }
+            if (newOwner != null && !newOwner.equals(previousOwner)) {
+                counter(newOwner).incrementAndGet();
+            }
+            return newOwner;
+        });
+    }
+
+    private AtomicInteger counter(Long userId) {
+        return openByUser.computeIfAbsent(userId, id -> new AtomicInteger());
+    }
+}
@@ -0,0 +1,40 @@
+package com.sr.CRM.Service;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.sr.CRM.Config.LeadRoutingProperties;
+import com.sr.CRM.Model.Users;
+import com.sr.CRM.Repository.UserRepository;
+
+@Service
+public class LeadRoutingService {
+
+    @Autowired
+    private Map<String, LeadRoutingStrategy> strategies;
+
+    @Autowired
+    private LeadRoutingProperties properties;
+
+    @Autowired
+    private LeadLoadCounters leadLoadCounters;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Routes within the manager's team; a manager without employees keeps the lead
+    public Users route(Users manager) {
+        List<Users> candidates = userRepository.findByManager(manager);
+        if (candidates.isEmpty()) {
+            return manager;
+        }
+        LeadRoutingStrategy strategy = strategies.get(properties.getStrategy());
+        if (strategy == null) {
+            throw new RuntimeException("Unknown lead routing strategy: " + properties.getStrategy());
+        }
+        return strategy.choose(manager.getId(), candidates, leadLoadCounters);
+    }
+}
@@ -0,0 +1,15 @@
+package com.sr.CRM.Service;
+
+import java.util.List;
+
+import com.sr.CRM.Model.Users;
+
+/**
+ * Picks the assignee for an unassigned lead from a non-empty candidate pool. Implementations
+ * are beans whose name is the value of {@code crm.lead-routing.strategy}; they must not hit
+ * the database, current loads come from {@link LeadLoadCounters}.
+ */
+public interface LeadRoutingStrategy {
+
+    Users choose(Long poolId, List<Users> candidates, LeadLoadCounters loads);
+}
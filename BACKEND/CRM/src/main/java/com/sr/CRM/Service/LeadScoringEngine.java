@@ -0,0 +1,325 @@
+package com.sr.CRM.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sr.CRM.Model.Lead;
+import com.sr.CRM.Model.Lead.LeadStatus;
+import com.sr.CRM.Model.Tasks;
+import com.sr.CRM.Model.Tasks.TaskPriority;
+import com.sr.CRM.Model.Tasks.TaskStatus;
+import com.sr.CRM.Repository.LeadRepository;
+import com.sr.CRM.Repository.TaskRepository;
+
+/**
+ * Scores every lead from its stage and its task activity, and keeps the open leads in
+ * sorted sets per owner, per team (keyed by the owner's manager) and overall, so the
+ * top k of any of them is the first k entries. A write only rescores the lead it
+ * touches. A full rebuild runs at startup and nightly to reconcile anything missed.
+ */
+@Component
+public class LeadScoringEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadScoringEngine.class);
+
+    private static final int MAX_COUNTED_DONE_TASKS = 10;
+
+    public record ScoredLead(Long leadId, long score, String name, String company, LeadStatus status,
+            Long ownerId) {
+    }
+
+    private record Entry(long score, long leadId) {
+        private static final Comparator<Entry> HOTTEST_FIRST = Comparator.comparingLong(Entry::score).reversed()
+                .thenComparing(Comparator.comparingLong(Entry::leadId).reversed());
+    }
+
+    private record TaskContribution(Long leadId, TaskPriority priority, TaskStatus status) {
+    }
+
+    // Everything the score depends on, so a rescore never reads the database
+    private static final class LeadState {
+        private String name;
+        private String company;
+        private LeadStatus status;
+        private String conversionStatus;
+        private Long ownerId;
+        private Long managerId;
+        private final int[] openTasksByPriority = new int[TaskPriority.values().length];
+        private int doneTasks;
+        private Entry indexed;
+        private Long indexedOwnerId;
+        private Long indexedManagerId;
+    }
+
+    private static final class Index {
+        private final Map<Long, LeadState> leads = new ConcurrentHashMap<>();
+        private final Map<Long, TaskContribution> tasks = new ConcurrentHashMap<>();
+        private final NavigableSet<Entry> all = new ConcurrentSkipListSet<>(Entry.HOTTEST_FIRST);
+        private final Map<Long, NavigableSet<Entry>> byOwner = new ConcurrentHashMap<>();
+        private final Map<Long, NavigableSet<Entry>> byTeam = new ConcurrentHashMap<>();
+    }
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private volatile Index index = new Index();
+    // Leads written while a rebuild is running; rescored from the database once it is swapped in
+    private volatile Set<Long> touchedDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(cron = "${crm.lead-scoring.rescore-cron:0 30 2 * * *}")
+    public synchronized void rebuild() {
+        touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+        Index rebuilt = new Index();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Lead> leads = leadRepository.streamAllForScoring()) {
+                leads.forEach(lead -> update(rebuilt, lead.getId(), state -> copyLead(state, lead)));
+            }
+            try (Stream<Object[]> rows = taskRepository.streamLeadTaskContributions()) {
+                rows.forEach(row -> applyTask(rebuilt, (Long) row[0],
+                        new TaskContribution((Long) row[1], (TaskPriority) row[2], (TaskStatus) row[3])));
+            }
+        });
+        index = rebuilt;
+
+        Set<Long> touched = touchedDuringRebuild;
+        touchedDuringRebuild = null;
+        for (Long leadId : touched) {
+            transactionTemplate.executeWithoutResult(status -> reloadLead(rebuilt, leadId));
+        }
+        log.info("Rescored {} leads ({} open)", rebuilt.leads.size(), rebuilt.all.size());
+    }
+
+    public List<ScoredLead> topForOwner(Long ownerId, int limit) {
+        Index current = index;
+        return top(current, List.of(current.byOwner.getOrDefault(ownerId, Collections.emptyNavigableSet())), limit);
+    }
+
+    // A manager's team is their employees' leads plus their own
+    public List<ScoredLead> topForTeam(Long managerId, int limit) {
+        Index current = index;
+        return top(current, List.of(current.byTeam.getOrDefault(managerId, Collections.emptyNavigableSet()),
+                current.byOwner.getOrDefault(managerId, Collections.emptyNavigableSet())), limit);
+    }
+
+    public List<ScoredLead> topOverall(int limit) {
+        Index current = index;
+        return top(current, List.of(current.all), limit);
+    }
+
+    public void onLeadSaved(Lead lead) {
+        markTouched(lead.getId());
+        update(index, lead.getId(), state -> copyLead(state, lead));
+    }
+
+    public void onLeadDeleted(Long leadId) {
+        markTouched(leadId);
+        Index current = index;
+        current.leads.computeIfPresent(leadId, (id, state) -> {
+            unindex(current, state);
+            return null;
+        });
+    }
+
+    public void onTaskSaved(Tasks task) {
+        Long leadId = task.getLead() != null ? task.getLead().getId() : null;
+        markTouched(leadId);
+        applyTask(index, task.getId(), leadId != null
+                ? new TaskContribution(leadId, task.getPriority(), task.getStatus())
+                : null);
+    }
+
+    public void onTaskDeleted(Long taskId) {
+        Index current = index;
+        TaskContribution previous = current.tasks.get(taskId);
+        markTouched(previous != null ? previous.leadId() : null);
+        applyTask(current, taskId, null);
+    }
+
+    private void applyTask(Index target, Long taskId, TaskContribution contribution) {
+        TaskContribution previous = contribution != null ? target.tasks.put(taskId, contribution)
+                : target.tasks.remove(taskId);
+        if (previous != null) {
+            update(target, previous.leadId(), state -> count(state, previous, -1));
+        }
+        if (contribution != null) {
+            update(target, contribution.leadId(), state -> count(state, contribution, 1));
+        }
+    }
+
+    private void update(Index target, Long leadId, Consumer<LeadState> change) {
+        if (leadId == null) {
+            return;
+        }
+        target.leads.compute(leadId, (id, state) -> {
+            LeadState current = state != null ? state : new LeadState();
+            change.accept(current);
+            unindex(target, current);
+            if (isOpen(current)) {
+                current.indexed = new Entry(score(current), id);
+                current.indexedOwnerId = current.ownerId;
+                current.indexedManagerId = current.managerId;
+                target.all.add(current.indexed);
+                target.byOwner.computeIfAbsent(current.ownerId,
+                        owner -> new ConcurrentSkipListSet<>(Entry.HOTTEST_FIRST)).add(current.indexed);
+                if (current.managerId != null) {
+                    target.byTeam.computeIfAbsent(current.managerId,
+                            manager -> new ConcurrentSkipListSet<>(Entry.HOTTEST_FIRST)).add(current.indexed);
+                }
+            }
+            return current;
+        });
+    }
+
+    private void unindex(Index target, LeadState state) {
+        if (state.indexed == null) {
+            return;
+        }
+        target.all.remove(state.indexed);
+        NavigableSet<Entry> owned = target.byOwner.get(state.indexedOwnerId);
+        if (owned != null) {
+            owned.remove(state.indexed);
+        }
+        if (state.indexedManagerId != null) {
+            NavigableSet<Entry> team = target.byTeam.get(state.indexedManagerId);
+            if (team != null) {
+                team.remove(state.indexed);
+            }
+        }
+        state.indexed = null;
+    }
+
+    private void reloadLead(Index target, Long leadId) {
+        // The counters start again from zero, so the lead's old task entries must go with them; a task that
+        // has since moved to another lead still gets taken off that lead by applyTask below
+        target.tasks.entrySet().removeIf(entry -> leadId.equals(entry.getValue().leadId()));
+        Lead lead = leadRepository.findById(leadId).orElse(null);
+        if (lead == null) {
+            target.leads.computeIfPresent(leadId, (id, state) -> {
+                unindex(target, state);
+                return null;
+            });
+            return;
+        }
+        update(target, leadId, state -> {
+            copyLead(state, lead);
+            Arrays.fill(state.openTasksByPriority, 0);
+            state.doneTasks = 0;
+        });
+        for (Tasks task : taskRepository.findByLeadId(leadId)) {
+            applyTask(target, task.getId(), new TaskContribution(leadId, task.getPriority(), task.getStatus()));
+        }
+    }
+
+    private void markTouched(Long leadId) {
+        Set<Long> touched = touchedDuringRebuild;
+        if (touched != null && leadId != null) {
+            touched.add(leadId);
+        }
+    }
+
+    private static List<ScoredLead> top(Index current, List<NavigableSet<Entry>> sources, int limit) {
+        // Merge the heads of already-sorted sets; only the first k entries of each are visited
+        List<Iterator<Entry>> iterators = new ArrayList<>();
+        List<Entry> heads = new ArrayList<>();
+        for (NavigableSet<Entry> source : sources) {
+            Iterator<Entry> iterator = source.iterator();
+            iterators.add(iterator);
+            heads.add(iterator.hasNext() ? iterator.next() : null);
+        }
+        List<ScoredLead> result = new ArrayList<>();
+        while (result.size() < limit) {
+            int best = -1;
+            for (int i = 0; i < heads.size(); i++) {
+                if (heads.get(i) != null
+                        && (best < 0 || Entry.HOTTEST_FIRST.compare(heads.get(i), heads.get(best)) < 0)) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            Entry entry = heads.get(best);
+            heads.set(best, iterators.get(best).hasNext() ? iterators.get(best).next() : null);
+            LeadState state = current.leads.get(entry.leadId());
+            if (state != null) {
+                result.add(new ScoredLead(entry.leadId(), entry.score(), state.name, state.company, state.status,
+                        state.ownerId));
+            }
+        }
+        return result;
+    }
+
+    private static void copyLead(LeadState state, Lead lead) {
+        state.name = lead.getName();
+        state.company = lead.getCompany();
+        state.status = lead.getStatus();
+        state.conversionStatus = lead.getConversionStatus();
+        state.ownerId = lead.getAssignedTo() != null ? lead.getAssignedTo().getId() : null;
+        state.managerId = lead.getAssignedTo() != null && lead.getAssignedTo().getManager() != null
+                ? lead.getAssignedTo().getManager().getId()
+                : null;
+    }
+
+    private static void count(LeadState state, TaskContribution task, int delta) {
+        if (task.status() == TaskStatus.DONE) {
+            state.doneTasks += delta;
+        } else if (task.priority() != null) {
+            state.openTasksByPriority[task.priority().ordinal()] += delta;
+        }
+    }
+
+    private static boolean isOpen(LeadState state) {
+        return state.ownerId != null && state.status != null && LeadLoadCounters.OPEN_STATUSES.contains(state.status);
+    }
+
+    static long score(LeadState state) {
+        long score = switch (state.status) {
+            case NEW -> 10;
+            case CONTACTED -> 25;
+            case QUALIFIED -> 50;
+            case LOST, CONVERTED -> 0;
+        };
+        if ("PENDING".equals(state.conversionStatus)) {
+            score += 20;
+        }
+        if (state.company != null && !state.company.isBlank()) {
+            score += 5;
+        }
+        int[] open = state.openTasksByPriority;
+        score += 8L * open[TaskPriority.URGENT.ordinal()] + 5L * open[TaskPriority.HIGH.ordinal()]
+                + 3L * open[TaskPriority.MEDIUM.ordinal()] + open[TaskPriority.LOW.ordinal()];
+        score += 4L * Math.min(state.doneTasks, MAX_COUNTED_DONE_TASKS);
+        return score;
+    }
+}
@@ -1,20 +1,31 @@
 package com.sr.CRM.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
+import com.sr.CRM.Config.ReplicaRead;
+import com.sr.CRM.Events.DomainEvent;
 import com.sr.CRM.Exception.ResourceNotFoundException;
 import com.sr.CRM.Model.Lead;
 import com.sr.CRM.Model.Users;
@@ -22,11 +33,31 @@ import com.sr.CRM.Model.Lead.LeadStatus;
 import com.sr.CRM.Model.DTO.LeadDTO; // New DTO for creating leads
 import com.sr.CRM.Model.DTO.LeadUpdateDTO;
 import com.sr.CRM.Repository.LeadRepository;
+import com.sr.CRM.Repository.LeadPipelineRow;
+import com.sr.CRM.Repository.ProjectionRepository;
 import com.sr.CRM.Repository.UserRepository;
+import com.sr.CRM.Util.AfterCommit;
+import com.sr.CRM.Util.SingleFlightCache;
+
+import jakarta.annotation.PostConstruct;
 
 @Service
 public class LeadService {
 
+    // ?fields= names for lead lists, mapped to the attribute each one selects
+    public static final Map<String, String> LIST_FIELDS = Map.ofEntries(
+            Map.entry("id", "id"),
+            Map.entry("name", "name"),
+            Map.entry("email", "email"),
+            Map.entry("phone", "phone"),
+            Map.entry("company", "company"),
+            Map.entry("status", "status"),
+            Map.entry("conversionStatus", "conversionStatus"),
+            Map.entry("createdAt", "createdAt"),
+            Map.entry("updatedAt", "updatedAt"),
+            Map.entry("assignedTo", "assignedTo.name"),
+            Map.entry("assignedToId", "assignedTo.id"));
+
     @Autowired
     private UserService userService;
 
@@ -36,6 +67,49 @@ public class LeadService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SingleFlightCache leadPipelineCache;
+
+    @Autowired
+    private NextTaskIndex nextTaskIndex;
+
+    @Autowired
+    private LeadRoutingService leadRoutingService;
+
+    @Autowired
+    private LeadLoadCounters leadLoadCounters;
+
+    @Autowired
+    private LeadScoringEngine leadScoringEngine;
+
+    @Autowired
+    private DuplicateIndex duplicateIndex;
+
+    @Autowired
+    private LeadStatusHistory leadStatusHistory;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private ProjectionRepository projectionRepository;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Value("${crm.dedup.mode:flag}")
+    private String dedupMode;
+
+    private static final String ALL_PIPELINES = "leads/pipeline:all:";
+
+    // Owner of each assigned lead, so a write also reaches the pipeline views of the owner it leaves
+    private final Map<Long, Long> pipelineOwnerByLead = new ConcurrentHashMap<>();
+    // Owners covered by each cached own/team pipeline view
+    private final Map<String, Set<Long>> pipelineScopes = new ConcurrentHashMap<>();
+
     public Page<Map<String, Object>> getLeadById(Long id, Pageable pageable) {
         Users currentUser = userService.getCurrentUser();
         Lead lead = leadRepository.findById(id)
@@ -60,6 +134,11 @@ public class LeadService {
         return new PageImpl<>(List.of(leadMap), pageable, 1);
     }
 
+    public String getLeadsETag() {
+        Users currentUser = userService.getCurrentUser();
+        return changeFeedService.listETag("lead", currentUser.getId(), List.of(currentUser.getId()));
+    }
+
     public Page<Map<String, Object>> getLeads(Pageable pageable) {
         Users currentUser = userService.getCurrentUser();
         if (currentUser == null) {
@@ -92,6 +171,7 @@ public class LeadService {
                 response.size());
     }
 
+    @Transactional
     public Lead saveLead(LeadDTO leadDTO) {
         Users currentUser = userService.getCurrentUser();
         if (currentUser == null) {
@@ -114,23 +194,73 @@ public class LeadService {
                 throw new ResourceNotFoundException("You are not authorized to assign to this employee");
             }
             lead.setAssignedTo(assignedUser);
+        } else if (currentUser.getRoles().contains("ROLE_MANAGER") && Boolean.TRUE.equals(leadDTO.getAutoAssign())) {
+            lead.setAssignedTo(leadRoutingService.route(currentUser));
         } else {
             lead.setAssignedTo(currentUser);
         }
 
         LocalDateTime now = LocalDateTime.now();
+        DuplicateIndex.Match duplicate = "off".equals(dedupMode) ? null
+                : duplicateIndex.bestMatch(null, lead.getName(), lead.getEmail(), lead.getPhone(), lead.getCompany())
+                        .orElse(null);
+        if (duplicate != null && "merge".equals(dedupMode)) {
+            Lead merged = mergeIntoExisting(duplicate, lead, now);
+            if (merged != null) {
+                return merged;
+            }
+        }
+        if (duplicate != null) {
+            lead.setDuplicateScore(duplicate.score());
+            if (duplicate.kind() == DuplicateIndex.Kind.LEAD) {
+                lead.setDuplicateOfLeadId(duplicate.id());
+            } else {
+                lead.setDuplicateOfClientId(duplicate.id());
+            }
+        }
+
         lead.setCreatedAt(now);
         lead.setUpdatedAt(now);
-        return leadRepository.save(lead);
+        lead.setStatusChangedAt(now);
+        Lead savedLead = leadRepository.save(lead);
+        leadStatusHistory.record(savedLead, null, null, currentUser.getId(), now);
+        onLeadSaved(savedLead);
+        outboxService.recordLead(DomainEvent.LEAD_CREATED, savedLead, Map.of("createdById", currentUser.getId()));
+        return savedLead;
+    }
+
+    // Only exact email/phone matches on a lead with the same assignee are merged; anything else is flagged
+    private Lead mergeIntoExisting(DuplicateIndex.Match duplicate, Lead incoming, LocalDateTime now) {
+        if (duplicate.kind() != DuplicateIndex.Kind.LEAD || !duplicate.exactKey()
+                || !incoming.getAssignedTo().getId().equals(duplicate.ownerId())) {
+            return null;
+        }
+        Lead existing = leadRepository.findById(duplicate.id()).orElse(null);
+        if (existing == null) {
+            return null;
+        }
+        if (existing.getPhone() == null || existing.getPhone().isBlank())
+            existing.setPhone(incoming.getPhone());
+        if (existing.getCompany() == null || existing.getCompany().isBlank())
+            existing.setCompany(incoming.getCompany());
+        existing.setUpdatedAt(now);
+        Lead savedLead = leadRepository.save(existing);
+        onLeadSaved(savedLead);
+        outboxService.recordLead(DomainEvent.LEAD_UPDATED, savedLead);
+        return savedLead;
     }
 
     public Page<Lead> getLeadsByAssignedTo(Users user, Pageable pageable) {
         return leadRepository.findByAssignedTo(user, pageable);
     }
 
+    @Transactional
     public ResponseEntity<String> adminUpdateLead(Long id, @Validated LeadUpdateDTO leadUpdateDTO) {
         Lead lead = leadRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Lead not found with ID: " + id));
+        LeadStatus previousStatus = lead.getStatus();
+        LocalDateTime previousChangeAt = lead.getStatusChangedAt();
+        Long previousOwnerId = lead.getAssignedTo().getId();
 
         if (leadUpdateDTO.getName() != null)
             lead.setName(leadUpdateDTO.getName());
@@ -153,10 +283,15 @@ public class LeadService {
         }
 
         lead.setUpdatedAt(LocalDateTime.now());
-        leadRepository.save(lead);
+        Lead savedLead = leadRepository.save(lead);
+        recordStatusChange(savedLead, previousStatus, previousChangeAt, userService.getCurrentUser());
+        onLeadSaved(savedLead);
+        outboxService.recordLead(savedLead.getAssignedTo().getId().equals(previousOwnerId)
+                ? DomainEvent.LEAD_UPDATED : DomainEvent.LEAD_ASSIGNED, savedLead);
         return ResponseEntity.ok("Lead updated successfully.");
     }
 
+    @Transactional
     public ResponseEntity<LeadDTO> employeeLeadUpdate(Long id, @Validated LeadUpdateDTO leadDTO) {
         Users currentUser = userService.getCurrentUser();
         if (currentUser == null) {
@@ -178,11 +313,16 @@ public class LeadService {
             lead.setPhone(leadDTO.getPhone());
         if (leadDTO.getCompany() != null)
             lead.setCompany(leadDTO.getCompany());
+        LeadStatus previousStatus = lead.getStatus();
+        LocalDateTime previousChangeAt = lead.getStatusChangedAt();
         if (leadDTO.getStatus() != null)
             lead.setStatus(leadDTO.getStatus());
 
         lead.setUpdatedAt(LocalDateTime.now());
-        leadRepository.save(lead);
+        Lead savedLead = leadRepository.save(lead);
+        recordStatusChange(savedLead, previousStatus, previousChangeAt, currentUser);
+        onLeadSaved(savedLead);
+        outboxService.recordLead(DomainEvent.LEAD_UPDATED, savedLead);
 
         // Convert Lead to LeadDTO
         LeadDTO updatedLeadDTO = new LeadDTO();
@@ -198,6 +338,7 @@ public class LeadService {
         return ResponseEntity.ok(updatedLeadDTO);
     }
 
+    @Transactional
     public ResponseEntity<String> managerUpdateLead(Long id, @Validated LeadUpdateDTO leadUpdateDTO) {
         Users currentUser = userService.getCurrentUser();
         if (currentUser == null) {
@@ -224,6 +365,9 @@ public class LeadService {
             lead.setPhone(leadUpdateDTO.getPhone());
         if (leadUpdateDTO.getCompany() != null)
             lead.setCompany(leadUpdateDTO.getCompany());
+        LeadStatus previousStatus = lead.getStatus();
+        LocalDateTime previousChangeAt = lead.getStatusChangedAt();
+        Long previousOwnerId = lead.getAssignedTo().getId();
         if (leadUpdateDTO.getStatus() != null)
             lead.setStatus(leadUpdateDTO.getStatus());
         if (leadUpdateDTO.getAssignedToId() != null) {
@@ -238,28 +382,29 @@ public class LeadService {
         }
 
         lead.setUpdatedAt(LocalDateTime.now());
-        leadRepository.save(lead);
+        Lead savedLead = leadRepository.save(lead);
+        recordStatusChange(savedLead, previousStatus, previousChangeAt, currentUser);
+        onLeadSaved(savedLead);
+        outboxService.recordLead(savedLead.getAssignedTo().getId().equals(previousOwnerId)
+                ? DomainEvent.LEAD_UPDATED : DomainEvent.LEAD_ASSIGNED, savedLead);
         return ResponseEntity.ok("Lead updated successfully.");
     }
 
+    @ReplicaRead
     public Page<Map<String, Object>> getAllLeadsOfEmployeesUnderThisManager(Pageable pageable) {
         Users currentUser = userService.getCurrentUser();
         if (!currentUser.getRoles().contains("ROLE_MANAGER")) {
             throw new RuntimeException("Access denied: only managers can view this data.");
         }
 
-        List<Users> employees = userRepository.findByManager(currentUser);
-        if (employees.isEmpty()) {
+        List<Long> employeeIds = userService.getReportingSubtreeIds(currentUser);
+        if (employeeIds.isEmpty()) {
             return new PageImpl<>(new ArrayList<>(), pageable, 0);
         }
 
-        List<Lead> allLeads = new ArrayList<>();
-        for (Users employee : employees) {
-            allLeads.addAll(leadRepository.findByAssignedTo(employee));
-        }
-
+        Page<Lead> leadPage = leadRepository.findPageByOwners(employeeIds, pageable);
         List<Map<String, Object>> response = new ArrayList<>();
-        for (Lead lead : allLeads) {
+        for (Lead lead : leadPage.getContent()) {
             Map<String, Object> leadMap = new HashMap<>();
             leadMap.put("id", lead.getId());
             leadMap.put("name", lead.getName());
@@ -272,12 +417,10 @@ public class LeadService {
             leadMap.put("updatedAt", lead.getUpdatedAt());
             response.add(leadMap);
         }
-
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), response.size());
-        return new PageImpl<>(response.subList(start, end), pageable, response.size());
+        return new PageImpl<>(response, pageable, leadPage.getTotalElements());
     }
 
+    @Transactional
     public ResponseEntity<String> deleteLead(Long id) {
         Users currentUser = userService.getCurrentUser();
         Lead lead = leadRepository.findById(id)
@@ -289,10 +432,13 @@ public class LeadService {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not authorized to delete this lead");
         }
 
+        outboxService.recordLead(DomainEvent.LEAD_DELETED, lead);
         leadRepository.deleteById(id);
+        onLeadDeleted(id);
         return ResponseEntity.ok("Lead deleted successfully.");
     }
 
+    @Transactional
     public ResponseEntity<String> approveConversion(Long id, boolean approve, String responseMessage) {
         Users currentUser = userService.getCurrentUser();
         if (!currentUser.getRoles().contains("ROLE_MANAGER")) {
@@ -318,11 +464,13 @@ public class LeadService {
         } else {
             lead.setConversionStatus("DENIED");
             lead.setConversionMessage(responseMessage != null ? responseMessage : "Conversion denied");
-            leadRepository.save(lead);
+            onLeadSaved(leadRepository.save(lead));
+            outboxService.recordLead(DomainEvent.LEAD_CONVERSION_DENIED, lead);
             return ResponseEntity.ok("Conversion request denied.");
         }
     }
 
+    @ReplicaRead
     public Page<Lead> getAllLeads(Pageable pageable, String status) {
         if (status != null && !status.isEmpty()) {
             return leadRepository.findByStatus(Lead.LeadStatus.valueOf(status), pageable);
@@ -330,24 +478,28 @@ public class LeadService {
         return leadRepository.findAll(pageable);
     }
 
+    @ReplicaRead
+    public Page<Map<String, Object>> getAllLeads(Pageable pageable, String status, List<String> fields) {
+        Specification<Lead> byStatus = status != null && !status.isEmpty()
+                ? (root, query, cb) -> cb.equal(root.get("status"), LeadStatus.valueOf(status))
+                : null;
+        return projectionRepository.findPage(Lead.class, LIST_FIELDS, fields, byStatus, pageable);
+    }
+
     public Page<Map<String, Object>> getPendingLeadsForManager(Pageable pageable) {
         Users currentUser = userService.getCurrentUser();
         if (!currentUser.getRoles().contains("ROLE_MANAGER")) {
             throw new RuntimeException("Access denied: only managers can view this data.");
         }
 
-        List<Users> employees = userRepository.findByManager(currentUser);
-        if (employees.isEmpty()) {
+        List<Long> employeeIds = userService.getReportingSubtreeIds(currentUser);
+        if (employeeIds.isEmpty()) {
             return new PageImpl<>(new ArrayList<>(), pageable, 0);
         }
 
-        List<Lead> pendingLeads = new ArrayList<>();
-        for (Users employee : employees) {
-            pendingLeads.addAll(leadRepository.findByAssignedToAndConversionStatus(employee, "PENDING"));
-        }
-
+        Page<Lead> leadPage = leadRepository.findPageByOwnersAndConversionStatus(employeeIds, "PENDING", pageable);
         List<Map<String, Object>> response = new ArrayList<>();
-        for (Lead lead : pendingLeads) {
+        for (Lead lead : leadPage.getContent()) {
             Map<String, Object> leadMap = new HashMap<>();
             leadMap.put("id", lead.getId());
             leadMap.put("name", lead.getName());
@@ -363,8 +515,254 @@ public class LeadService {
             leadMap.put("conversionMessage", lead.getConversionMessage());
             response.add(leadMap);
         }
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), response.size());
-        return new PageImpl<>(response.subList(start, end), pageable, response.size());
+        return new PageImpl<>(response, pageable, leadPage.getTotalElements());
+    }
+
+    public Map<String, Object> getPipeline(String scope, int limit) {
+        Users currentUser = userService.getCurrentUser();
+        int leadLimit = Math.max(1, Math.min(limit, 50));
+
+        List<Long> userIds;
+        switch (scope) {
+            case "own":
+                userIds = List.of(currentUser.getId());
+                break;
+            case "team":
+                userIds = new ArrayList<>(userService.getTeamMembers(currentUser).stream().map(Users::getId).toList());
+                userIds.add(currentUser.getId());
+                break;
+            case "all":
+                if (!currentUser.getRoles().contains("ROLE_ADMIN")) {
+                    throw new RuntimeException("Access denied: only admins can view the whole pipeline.");
+                }
+                userIds = null;
+                break;
+            default:
+                throw new RuntimeException("Unknown pipeline scope: " + scope);
+        }
+
+        String key = "leads/pipeline:" + scope + ":user:" + currentUser.getId() + ":limit:" + leadLimit;
+        List<Long> scopeIds = userIds;
+        if (scopeIds != null) {
+            pipelineScopes.put(key, Set.copyOf(scopeIds));
+        }
+        return leadPipelineCache.get(key, () -> computePipeline(scopeIds, leadLimit));
+    }
+
+    public List<Map<String, Object>> getTopLeads(String scope, int limit) {
+        Users currentUser = userService.getCurrentUser();
+        int leadLimit = Math.max(1, Math.min(limit, 100));
+
+        List<LeadScoringEngine.ScoredLead> leads;
+        switch (scope) {
+            case "own":
+                leads = leadScoringEngine.topForOwner(currentUser.getId(), leadLimit);
+                break;
+            case "team":
+                if (!currentUser.getRoles().contains("ROLE_MANAGER")) {
+                    throw new RuntimeException("Access denied: only managers can view their team's leads.");
+                }
+                leads = leadScoringEngine.topForTeam(currentUser.getId(), leadLimit);
+                break;
+            case "all":
+                if (!currentUser.getRoles().contains("ROLE_ADMIN")) {
+                    throw new RuntimeException("Access denied: only admins can rank all leads.");
+                }
+                leads = leadScoringEngine.topOverall(leadLimit);
+                break;
+            default:
+                throw new RuntimeException("Unknown lead scope: " + scope);
+        }
+
+        List<Map<String, Object>> response = new ArrayList<>();
+        for (LeadScoringEngine.ScoredLead lead : leads) {
+            Map<String, Object> leadMap = new HashMap<>();
+            leadMap.put("id", lead.leadId());
+            leadMap.put("score", lead.score());
+            leadMap.put("name", lead.name());
+            leadMap.put("company", lead.company());
+            leadMap.put("status", lead.status());
+            leadMap.put("assignedToId", lead.ownerId());
+            response.add(leadMap);
+        }
+        return response;
+    }
+
+    public Map<String, Object> getDuplicateReport(double minScore, int limit) {
+        int clusterLimit = Math.max(1, Math.min(limit, 500));
+        List<Map<String, Object>> clusters = new ArrayList<>();
+        for (List<DuplicateIndex.Match> cluster : duplicateIndex.clusters(minScore, clusterLimit)) {
+            List<Map<String, Object>> members = new ArrayList<>();
+            for (DuplicateIndex.Match member : cluster) {
+                Map<String, Object> memberMap = new HashMap<>();
+                memberMap.put("type", member.kind());
+                memberMap.put("id", member.id());
+                memberMap.put("score", member.score());
+                memberMap.put("exactKey", member.exactKey());
+                memberMap.put("assignedToId", member.ownerId());
+                members.add(memberMap);
+            }
+            Map<String, Object> clusterMap = new HashMap<>();
+            clusterMap.put("size", members.size());
+            clusterMap.put("members", members);
+            clusters.add(clusterMap);
+        }
+
+        Map<String, Object> report = new HashMap<>();
+        report.put("threshold", minScore);
+        report.put("indexed", duplicateIndex.size());
+        report.put("clusters", clusters);
+        return report;
+    }
+
+    private Map<String, Object> computePipeline(List<Long> userIds, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<LeadPipelineRow> rows = leadRepository.findPipeline(userIds == null,
+                userIds == null ? List.of(-1L) : userIds,
+                now.minusDays(7), now.minusDays(30), now.minusDays(90), limit);
+
+        Map<String, Map<String, Object>> stages = new LinkedHashMap<>();
+        for (LeadStatus status : LeadStatus.values()) {
+            Map<String, Object> stage = new HashMap<>();
+            stage.put("status", status.name());
+            stage.put("count", 0L);
+            stage.put("ageBuckets", ageBuckets(0, 0, 0, 0));
+            stage.put("recentLeads", new ArrayList<Map<String, Object>>());
+            stages.put(status.name(), stage);
+        }
+
+        for (LeadPipelineRow row : rows) {
+            Map<String, Object> stage = stages.get(row.getStatus());
+            if (stage == null) {
+                continue;
+            }
+            long count = row.getStageCount();
+            stage.put("count", count);
+            stage.put("ageBuckets", ageBuckets(row.getAgeUpTo7Days(),
+                    row.getAgeUpTo30Days() - row.getAgeUpTo7Days(),
+                    row.getAgeUpTo90Days() - row.getAgeUpTo30Days(),
+                    count - row.getAgeUpTo90Days()));
+
+            Map<String, Object> leadMap = new HashMap<>();
+            leadMap.put("id", row.getId());
+            leadMap.put("name", row.getName());
+            leadMap.put("company", row.getCompany());
+            leadMap.put("updatedAt", row.getUpdatedAt());
+            leadMap.put("assignedToId", row.getAssignedToId());
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> recentLeads = (List<Map<String, Object>>) stage.get("recentLeads");
+            recentLeads.add(leadMap);
+        }
+
+        Map<String, Object> pipeline = new HashMap<>();
+        pipeline.put("stages", new ArrayList<>(stages.values()));
+        return pipeline;
+    }
+
+    private static Map<String, Long> ageBuckets(long upTo7, long upTo30, long upTo90, long over90) {
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        buckets.put("0-7d", upTo7);
+        buckets.put("8-30d", upTo30);
+        buckets.put("31-90d", upTo90);
+        buckets.put("90d+", over90);
+        return buckets;
+    }
+
+    // Call in the transaction that saved the lead; appends to the status log if the status moved
+    public void recordStatusChange(Lead lead, LeadStatus previousStatus, LocalDateTime previousChangeAt,
+            Users changedBy) {
+        if (lead.getStatus() == previousStatus) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        lead.setStatusChangedAt(now);
+        leadStatusHistory.record(lead, previousStatus, previousChangeAt,
+                changedBy != null ? changedBy.getId() : null, now);
+        outboxService.recordLead(DomainEvent.LEAD_STATUS_CHANGED, lead,
+                Collections.singletonMap("previousStatus", previousStatus));
+    }
+
+    // Conversion deletes the lead, so its CONVERTED transition has to be logged beforehand
+    public void recordConversion(Lead lead) {
+        LeadStatus previousStatus = lead.getStatus();
+        lead.setStatus(LeadStatus.CONVERTED);
+        recordStatusChange(lead, previousStatus, lead.getStatusChangedAt(), userService.getCurrentUser());
+    }
+
+    // Keeps derived read models in step with lead writes, including the ones LeadController makes.
+    // Inside a transaction they are updated only once it commits.
+    public void onLeadSaved(Lead lead) {
+        invalidationBus.publish("lead", lead.getId());
+        AfterCommit.run(() -> applyLeadSaved(lead));
+    }
+
+    public void onLeadDeleted(Long id) {
+        invalidationBus.publish("lead", id);
+        AfterCommit.run(() -> applyLeadDeleted(id));
+    }
+
+    @PostConstruct
+    void subscribeToRemoteWrites() {
+        invalidationBus.subscribe("lead", this::reloadLead);
+        invalidationBus.onResync(this::reloadPipelineOwners);
+        // Lead writes missed while disconnected could be anywhere, so rebuild rather than patch
+        invalidationBus.onResync(leadScoringEngine::rebuild);
+        invalidationBus.onResync(duplicateIndex::reload);
+        invalidationBus.onResync(leadLoadCounters::reload);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPipelineOwners() {
+        for (Object[] row : leadRepository.findLeadOwners()) {
+            pipelineOwnerByLead.putIfAbsent((Long) row[0], (Long) row[1]);
+        }
+    }
+
+    private void reloadPipelineOwners() {
+        pipelineOwnerByLead.clear();
+        loadPipelineOwners();
+        leadPipelineCache.invalidateAll();
+        pipelineScopes.clear();
+    }
+
+    // Only the views that counted the lead before or count it now: its old and new owner's own view, the
+    // team views that include either of them, and the admin-wide views
+    private void invalidatePipelines(Long leadId, Long ownerId) {
+        Long previousOwnerId = ownerId != null ? pipelineOwnerByLead.put(leadId, ownerId)
+                : pipelineOwnerByLead.remove(leadId);
+        leadPipelineCache.invalidateIf(key -> {
+            if (key.startsWith(ALL_PIPELINES)) {
+                return true;
+            }
+            Set<Long> owners = pipelineScopes.get(key);
+            boolean stale = owners == null || (ownerId != null && owners.contains(ownerId))
+                    || (previousOwnerId != null && owners.contains(previousOwnerId));
+            if (stale) {
+                // The scope goes with its view; the next read of that view records it again
+                pipelineScopes.remove(key);
+            }
+            return stale;
+        });
+    }
+
+    // Another node wrote the lead; bring this node's indexes in line with the database
+    private void reloadLead(Long id) {
+        leadRepository.findById(id).ifPresentOrElse(this::applyLeadSaved, () -> applyLeadDeleted(id));
+    }
+
+    private void applyLeadSaved(Lead lead) {
+        invalidatePipelines(lead.getId(), lead.getAssignedTo() != null ? lead.getAssignedTo().getId() : null);
+        nextTaskIndex.onLeadSaved(lead);
+        leadLoadCounters.onLeadSaved(lead);
+        leadScoringEngine.onLeadSaved(lead);
+        duplicateIndex.onLeadSaved(lead);
+    }
+
+    private void applyLeadDeleted(Long id) {
+        invalidatePipelines(id, null);
+        nextTaskIndex.onLeadDeleted(id);
+        leadLoadCounters.onLeadDeleted(id);
+        leadScoringEngine.onLeadDeleted(id);
+        duplicateIndex.onLeadDeleted(id);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,69 @@
+package com.sr.CRM.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.sr.CRM.Model.Lead;
+import com.sr.CRM.Model.LeadStatusEvent;
+import com.sr.CRM.Model.Lead.LeadStatus;
+import com.sr.CRM.Repository.LeadHistoryRepository;
+import com.sr.CRM.Repository.LeadHistoryRepository.DurationSample;
+import com.sr.CRM.Util.DurationHistogram;
+
+/**
+ * Records lead status changes. Each change appends a lead_status_events row and adds one
+ * duration sample for every earlier stage the lead has been in, measured from when it first
+ * entered that stage, so "NEW to QUALIFIED" is answerable even when CONTACTED came between.
+ * Callers must be in the transaction that saves the lead.
+ */
+@Component
+public class LeadStatusHistory {
+
+    @Autowired
+    private LeadHistoryRepository leadHistoryRepository;
+
+    public void record(Lead lead, LeadStatus fromStatus, LocalDateTime previousChangeAt, Long changedBy,
+            LocalDateTime changedAt) {
+        if (lead.getStatus() == null || lead.getStatus() == fromStatus) {
+            return;
+        }
+        Long repId = lead.getAssignedTo() != null ? lead.getAssignedTo().getId() : 0L;
+
+        LeadStatusEvent event = new LeadStatusEvent();
+        event.setLeadId(lead.getId());
+        event.setFromStatus(fromStatus);
+        event.setToStatus(lead.getStatus());
+        event.setRepId(repId);
+        event.setChangedBy(changedBy);
+        event.setChangedAt(changedAt);
+        if (previousChangeAt != null) {
+            event.setSecondsInPreviousStage(Duration.between(previousChangeAt, changedAt).getSeconds());
+        }
+
+        List<DurationSample> samples = new ArrayList<>();
+        if (fromStatus != null) {
+            Map<LeadStatus, LocalDateTime> entered = leadHistoryRepository.firstEntries(lead.getId());
+            // Only the first arrival in a stage counts towards its durations
+            if (!entered.containsKey(lead.getStatus())) {
+                // Leads from before the log existed: assume they entered their stages when created / last changed
+                entered.putIfAbsent(LeadStatus.NEW, lead.getCreatedAt());
+                entered.putIfAbsent(fromStatus, previousChangeAt != null ? previousChangeAt : lead.getCreatedAt());
+                entered.forEach((stage, at) -> {
+                    if (stage != lead.getStatus() && at != null && !at.isAfter(changedAt)) {
+                        long seconds = Duration.between(at, changedAt).getSeconds();
+                        samples.add(new DurationSample(repId, stage, lead.getStatus(), changedAt.toLocalDate(),
+                                DurationHistogram.bucketOf(seconds)));
+                    }
+                });
+            }
+        }
+        leadHistoryRepository.insertEvents(List.of(event));
+        leadHistoryRepository.addDurations(samples);
+    }
+}
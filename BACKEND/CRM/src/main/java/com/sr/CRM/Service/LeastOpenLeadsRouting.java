@@ -0,0 +1,26 @@
+package com.sr.CRM.Service;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.sr.CRM.Model.Users;
+
+@Component("least-open-leads")
+public class LeastOpenLeadsRouting implements LeadRoutingStrategy {
+
+    // Ties go to the lowest id so the choice is deterministic
+    @Override
+    public Users choose(Long poolId, List<Users> candidates, LeadLoadCounters loads) {
+        Users chosen = null;
+        int chosenLoad = Integer.MAX_VALUE;
+        for (Users candidate : candidates) {
+            int load = loads.openLeads(candidate.getId());
+            if (load < chosenLoad || (load == chosenLoad && candidate.getId() < chosen.getId())) {
+                chosen = candidate;
+                chosenLoad = load;
+            }
+        }
+        return chosen;
+    }
+}
@@ -0,0 +1,331 @@
+package com.sr.CRM.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+
+import com.sr.CRM.Events.DomainEvent;
+import com.sr.CRM.Events.LiveEvent;
+import com.sr.CRM.Events.TaskOverdueEvent;
+import com.sr.CRM.Events.TaskReminderEvent;
+import com.sr.CRM.Model.Users;
+import com.sr.CRM.Util.AfterCommit;
+import com.sr.CRM.Util.DropOldestQueue;
+import com.sr.CRM.Util.RingBuffer;
+import com.sr.CRM.Util.RingBuffer.Entry;
+
+/**
+ * Server-sent events for /api/stream. Domain events relayed from the outbox and task
+ * timers are published into a ring buffer; one dispatcher thread copies each event into
+ * the bounded queue of every subscriber it is addressed to, and each subscriber has its
+ * own virtual thread writing its queue to the connection. A slow client only loses its
+ * own oldest events and never holds up a write or another client. The ring also lets a
+ * reconnecting client resume from Last-Event-ID. Event ids carry a per-process epoch, so
+ * an id issued before a restart or by another node is never taken for a position in this
+ * ring; such a client is told to resync instead.
+ * <p>
+ * Outbox events are relayed, and task timers fire, on one node only, while the addressed
+ * users may be connected to any node. Every event appended here is therefore also broadcast
+ * through {@link InvalidationBus}, and each other node appends it to its own ring.
+ */
+@Service
+public class LiveEventService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveEventService.class);
+
+    private static final int DISPATCH_BATCH = 512;
+    private static final String BROADCAST_TOPIC = "live";
+    // Keeps a broadcast inside one NOTIFY; only free text such as a conversion message gets this long
+    private static final int MAX_BROADCAST_TEXT = 1000;
+    // Relayed domain events and the stream event name each one is pushed as
+    private static final Map<String, String> STREAM_TYPES = Map.of(
+            DomainEvent.TASK_CREATED, "task.assigned",
+            DomainEvent.TASK_ASSIGNED, "task.assigned",
+            DomainEvent.LEAD_CREATED, "lead.assigned",
+            DomainEvent.LEAD_ASSIGNED, "lead.assigned",
+            DomainEvent.LEAD_STATUS_CHANGED, "lead.status-changed",
+            DomainEvent.LEAD_CONVERSION_REQUESTED, "lead.conversion-pending",
+            DomainEvent.LEAD_CONVERSION_DENIED, "lead.conversion-denied",
+            DomainEvent.LEAD_CONVERTED, "lead.conversion-approved");
+    // Offered on close to wake the subscriber's writer; never sent
+    private static final Entry<LiveEvent> WAKE_UP = new Entry<>(-1, null);
+
+    private static final class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final DropOldestQueue<Entry<LiveEvent>> queue;
+        private volatile boolean closed;
+
+        private Subscriber(Long userId, SseEmitter emitter, int queueSize) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new DropOldestQueue<>(queueSize);
+        }
+    }
+
+    @Autowired
+    @Qualifier("virtualThreadExecutor")
+    private ExecutorService virtualThreadExecutor;
+
+    @Autowired
+    private DomainEventBus domainEventBus;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${crm.stream.ring-size:8192}")
+    private int ringSize;
+
+    @Value("${crm.stream.subscriber-queue-size:256}")
+    private int queueSize;
+
+    @Value("${crm.stream.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${crm.stream.heartbeat-ms:25000}")
+    private long heartbeatMillis;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE), 36);
+    private RingBuffer<LiveEvent> ring;
+    private volatile boolean running = true;
+
+    @PostConstruct
+    void init() {
+        ring = new RingBuffer<>(ringSize);
+        STREAM_TYPES.keySet().forEach(type -> domainEventBus.subscribe(type, "live-events", this::onDomainEvent));
+        invalidationBus.onBroadcast(BROADCAST_TOPIC, this::onRemoteEvent);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        virtualThreadExecutor.submit(this::dispatch);
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        subscribers.values().forEach(set -> set.forEach(this::close));
+    }
+
+    public SseEmitter subscribe(Users user, String lastEventId) {
+        Subscriber subscriber = new Subscriber(user.getId(), new SseEmitter(timeoutMillis), queueSize);
+        subscriber.emitter.onCompletion(() -> close(subscriber));
+        subscriber.emitter.onTimeout(() -> close(subscriber));
+        subscriber.emitter.onError(error -> close(subscriber));
+        subscribers.computeIfAbsent(user.getId(), id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        // Everything after this point reaches the queue; the replay covers what came before
+        long registeredAt = ring.lastSequence();
+        virtualThreadExecutor.submit(() -> drain(subscriber, lastEventId, registeredAt));
+        return subscriber.emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    // A redelivered outbox event gets a new ring sequence, so a client may see it twice
+    void onDomainEvent(DomainEvent event) {
+        Map<String, Object> payload = event.payload();
+        if (event.type().equals(DomainEvent.LEAD_CREATED)
+                && Objects.equals(payload.get("assignedToId"), payload.get("createdById"))) {
+            return;
+        }
+        Map<String, Object> data = new HashMap<>(payload);
+        data.remove("managerId");
+        data.remove("createdById");
+        Object message = data.remove("conversionMessage");
+        if (event.type().startsWith("LeadConversion") || event.type().equals(DomainEvent.LEAD_CONVERTED)) {
+            data.put("message", message);
+        }
+        appendEverywhere(new LiveEvent(STREAM_TYPES.get(event.type()), audience(payload), data, event.occurredAt()));
+    }
+
+    @EventListener
+    public void onTaskReminder(TaskReminderEvent event) {
+        publish("task.reminder", Set.of(event.assignedToId()),
+                Map.of("taskId", event.taskId(), "dueDate", event.dueDate()));
+    }
+
+    @EventListener
+    public void onTaskOverdue(TaskOverdueEvent event) {
+        publish("task.overdue", Set.of(event.assignedToId()),
+                Map.of("taskId", event.taskId(), "dueDate", event.dueDate()));
+    }
+
+    // Published once the surrounding transaction commits, so a rolled-back write sends nothing
+    public void publish(String type, Set<Long> recipientIds, Map<String, Object> data) {
+        LiveEvent event = new LiveEvent(type, Set.copyOf(recipientIds), data, LocalDateTime.now());
+        AfterCommit.run(() -> appendEverywhere(event));
+    }
+
+    private void appendEverywhere(LiveEvent event) {
+        ring.append(event);
+        try {
+            invalidationBus.broadcast(BROADCAST_TOPIC, objectMapper.writeValueAsString(fitted(event)));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Could not send live event {} to the other nodes: {}", event.type(), e.toString());
+        }
+    }
+
+    // Another node appended this event; its own subscribers already have it
+    private void onRemoteEvent(String message) {
+        try {
+            ring.append(objectMapper.readValue(message, LiveEvent.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable live event broadcast: {}", e.getOriginalMessage());
+        }
+    }
+
+    private void dispatch() {
+        long cursor = ring.lastSequence();
+        while (running) {
+            try {
+                if (!ring.awaitAfter(cursor, 1, TimeUnit.SECONDS)) {
+                    continue;
+                }
+                for (Entry<LiveEvent> entry : ring.readAfter(cursor, DISPATCH_BATCH)) {
+                    cursor = entry.sequence();
+                    for (Long recipientId : entry.item().recipientIds()) {
+                        Set<Subscriber> connections = subscribers.get(recipientId);
+                        if (connections != null) {
+                            connections.forEach(subscriber -> subscriber.queue.offer(entry));
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Live event dispatch failed", e);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber, String lastEventId, long registeredAt) {
+        try {
+            long sent = registeredAt;
+            Long resumeAfter = lastEventId != null ? resumePoint(lastEventId, registeredAt) : null;
+            if (lastEventId != null && (resumeAfter == null || resumeAfter + 1 < ring.oldestSequence())) {
+                // Missed more than the ring holds, or the id is not from this ring; the client should reload
+                // instead of trusting the stream
+                subscriber.emitter.send(SseEmitter.event().name("resync").data("{}", MediaType.APPLICATION_JSON));
+            }
+            if (resumeAfter != null && resumeAfter < registeredAt) {
+                List<Entry<LiveEvent>> missed = ring.readAfter(resumeAfter,
+                        (int) Math.min(registeredAt - resumeAfter, ringSize));
+                for (Entry<LiveEvent> entry : missed) {
+                    if (entry.sequence() <= registeredAt && entry.item().recipientIds().contains(subscriber.userId)) {
+                        send(subscriber, entry);
+                    }
+                }
+            }
+            while (!subscriber.closed) {
+                Entry<LiveEvent> entry = subscriber.queue.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                if (entry == null) {
+                    subscriber.emitter.send(SseEmitter.event().comment("keepalive"));
+                } else if (entry.sequence() > sent) {
+                    send(subscriber, entry);
+                    sent = entry.sequence();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the emitter callbacks may not fire for a broken connection
+        } finally {
+            close(subscriber);
+        }
+    }
+
+    // The sequence a Last-Event-ID of this process points at, or null for any other id
+    private Long resumePoint(String lastEventId, long registeredAt) {
+        int separator = lastEventId.indexOf('.');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(epoch)) {
+            return null;
+        }
+        try {
+            long sequence = Long.parseLong(lastEventId.substring(separator + 1));
+            return sequence >= 0 && sequence <= registeredAt ? sequence : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void send(Subscriber subscriber, Entry<LiveEvent> entry) throws IOException {
+        Map<String, Object> payload = new HashMap<>(entry.item().data());
+        payload.put("occurredAt", entry.item().occurredAt());
+        subscriber.emitter.send(SseEmitter.event()
+                .id(epoch + "." + entry.sequence())
+                .name(entry.item().type())
+                .data(payload, MediaType.APPLICATION_JSON));
+    }
+
+    private void close(Subscriber subscriber) {
+        if (subscriber.closed) {
+            return;
+        }
+        subscriber.closed = true;
+        subscriber.queue.offer(WAKE_UP);
+        subscribers.computeIfPresent(subscriber.userId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+        if (subscriber.queue.dropped() > 0) {
+            log.debug("Subscriber {} dropped {} live events", subscriber.userId, subscriber.queue.dropped());
+        }
+        try {
+            subscriber.emitter.complete();
+        } catch (RuntimeException e) {
+            // Already completed
+        }
+    }
+
+    private static LiveEvent fitted(LiveEvent event) {
+        Map<String, Object> data = new HashMap<>(event.data());
+        data.replaceAll((key, value) -> value instanceof String text && text.length() > MAX_BROADCAST_TEXT
+                ? text.substring(0, MAX_BROADCAST_TEXT)
+                : value);
+        return new LiveEvent(event.type(), event.recipientIds(), data, event.occurredAt());
+    }
+
+    // The assignee and their manager
+    private static Set<Long> audience(Map<String, Object> payload) {
+        Set<Long> ids = new HashSet<>();
+        for (String key : List.of("assignedToId", "managerId")) {
+            if (payload.get(key) instanceof Number id) {
+                ids.add(id.longValue());
+            }
+        }
+        return ids;
+    }
+}
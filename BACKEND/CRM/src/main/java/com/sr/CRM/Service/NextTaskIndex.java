@@ -0,0 +1,274 @@
+package com.sr.CRM.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.sr.CRM.Model.Lead;
+import com.sr.CRM.Model.Lead.LeadStatus;
+import com.sr.CRM.Model.Tasks;
+import com.sr.CRM.Model.Tasks.TaskPriority;
+import com.sr.CRM.Model.Tasks.TaskStatus;
+import com.sr.CRM.Repository.TaskRepository;
+import com.sr.CRM.Util.IndexedPriorityHeap;
+
+/**
+ * Per-user heap of open tasks ordered by a "virtual deadline": the due date pulled forward
+ * by the task's priority and by how warm its lead is. The score doesn't depend on the
+ * current time, so it only changes when the task or its lead is written. A user's heap is
+ * loaded on first use and then kept current from the TaskService and LeadService write paths.
+ */
+@Component
+public class NextTaskIndex {
+
+    // Undated tasks are ranked as if due two weeks after they were created
+    private static final Duration NO_DUE_DATE_HORIZON = Duration.ofDays(14);
+
+    public record NextTask(Long id, String title, LocalDateTime dueDate, TaskPriority priority, TaskStatus status,
+            LocalDateTime createdAt, Long leadId, String company, LeadStatus leadStatus) {
+
+        private NextTask withLead(Lead lead) {
+            return new NextTask(id, title, dueDate, priority, status, createdAt,
+                    lead != null ? lead.getId() : null,
+                    lead != null ? lead.getCompany() : null,
+                    lead != null ? lead.getStatus() : null);
+        }
+    }
+
+    private static final class UserTasks {
+        private final IndexedPriorityHeap<Long> heap = new IndexedPriorityHeap<>();
+        private final Map<Long, NextTask> tasks = new HashMap<>();
+        // Completed once the first load is merged in; until then writes are also noted below, since
+        // they are newer than the rows the load may return
+        private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+        private final Set<Long> touchedTasks = new HashSet<>();
+        private final Map<Long, Lead> touchedLeads = new HashMap<>();
+    }
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    private final Map<Long, UserTasks> byUser = new ConcurrentHashMap<>();
+    private final Map<Long, Long> ownerByTask = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> tasksByLead = new ConcurrentHashMap<>();
+    private final Set<UserTasks> loading = ConcurrentHashMap.newKeySet();
+
+    public List<NextTask> next(Long userId, int limit) {
+        UserTasks user = byUser.get(userId);
+        if (user == null) {
+            UserTasks installed = new UserTasks();
+            user = byUser.putIfAbsent(userId, installed);
+            if (user == null) {
+                user = installed;
+                load(userId, installed);
+            }
+        }
+        awaitLoad(user);
+        synchronized (user) {
+            return user.heap.top(limit).stream().map(user.tasks::get).toList();
+        }
+    }
+
+    // Drops every loaded heap; each user is reloaded from the database on their next request
+    public void invalidateAll() {
+        byUser.clear();
+        ownerByTask.clear();
+        tasksByLead.clear();
+    }
+
+    // A write is applied to the heap straight away and, while a load is running, noted so that the
+    // load's older row for the same task cannot replace it
+    public void onTaskSaved(Tasks task) {
+        noteWhileLoading(user -> user.touchedTasks.add(task.getId()));
+        Long owner = task.getAssignedTo() != null ? task.getAssignedTo().getId() : null;
+        Long previousOwner = ownerByTask.get(task.getId());
+        if (previousOwner != null && !previousOwner.equals(owner)) {
+            onTaskDeleted(task.getId());
+        }
+        if (owner == null) {
+            return;
+        }
+        byUser.computeIfPresent(owner, (userId, user) -> {
+            synchronized (user) {
+                if (task.getStatus() == TaskStatus.DONE) {
+                    remove(user, task.getId());
+                } else {
+                    put(userId, user, toNextTask(task));
+                }
+            }
+            return user;
+        });
+    }
+
+    public void onTaskDeleted(Long taskId) {
+        noteWhileLoading(user -> user.touchedTasks.add(taskId));
+        Long owner = ownerByTask.get(taskId);
+        if (owner == null) {
+            return;
+        }
+        byUser.computeIfPresent(owner, (userId, user) -> {
+            synchronized (user) {
+                remove(user, taskId);
+            }
+            return user;
+        });
+    }
+
+    public void onLeadSaved(Lead lead) {
+        rescoreLeadTasks(lead.getId(), lead);
+    }
+
+    public void onLeadDeleted(Long leadId) {
+        rescoreLeadTasks(leadId, null);
+    }
+
+    private void rescoreLeadTasks(Long leadId, Lead lead) {
+        noteWhileLoading(user -> user.touchedLeads.put(leadId, lead));
+        Set<Long> taskIds = tasksByLead.get(leadId);
+        if (taskIds == null) {
+            return;
+        }
+        for (Long taskId : List.copyOf(taskIds)) {
+            Long owner = ownerByTask.get(taskId);
+            if (owner == null) {
+                continue;
+            }
+            byUser.computeIfPresent(owner, (userId, user) -> {
+                synchronized (user) {
+                    NextTask current = user.tasks.get(taskId);
+                    if (current != null) {
+                        put(userId, user, current.withLead(lead));
+                    }
+                }
+                return user;
+            });
+        }
+    }
+
+    // Runs after the entry is in the map, so the query holds no map lock and other users never wait on it
+    private void load(Long userId, UserTasks user) {
+        loading.add(user);
+        try {
+            List<Tasks> rows = taskRepository.findOpenTasksWithLead(userId, TaskStatus.DONE);
+            synchronized (user) {
+                for (Tasks task : rows) {
+                    if (user.touchedTasks.contains(task.getId())) {
+                        continue;
+                    }
+                    NextTask next = toNextTask(task);
+                    if (next.leadId() != null && user.touchedLeads.containsKey(next.leadId())) {
+                        next = next.withLead(user.touchedLeads.get(next.leadId()));
+                    }
+                    put(userId, user, next);
+                }
+                user.touchedTasks.clear();
+                user.touchedLeads.clear();
+                user.loaded.complete(null);
+            }
+        } catch (RuntimeException e) {
+            byUser.remove(userId, user);
+            user.loaded.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(user);
+        }
+    }
+
+    private void noteWhileLoading(Consumer<UserTasks> note) {
+        for (UserTasks user : loading) {
+            synchronized (user) {
+                if (!user.loaded.isDone()) {
+                    note.accept(user);
+                }
+            }
+        }
+    }
+
+    private static void awaitLoad(UserTasks user) {
+        try {
+            user.loaded.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void put(Long userId, UserTasks user, NextTask task) {
+        NextTask previous = user.tasks.put(task.id(), task);
+        if (previous != null && previous.leadId() != null && !previous.leadId().equals(task.leadId())) {
+            unindexLead(previous.leadId(), task.id());
+        }
+        if (task.leadId() != null) {
+            tasksByLead.computeIfAbsent(task.leadId(), id -> ConcurrentHashMap.newKeySet()).add(task.id());
+        }
+        ownerByTask.put(task.id(), userId);
+        user.heap.upsert(task.id(), score(task));
+    }
+
+    private void remove(UserTasks user, Long taskId) {
+        NextTask previous = user.tasks.remove(taskId);
+        user.heap.remove(taskId);
+        ownerByTask.remove(taskId);
+        if (previous != null && previous.leadId() != null) {
+            unindexLead(previous.leadId(), taskId);
+        }
+    }
+
+    private void unindexLead(Long leadId, Long taskId) {
+        tasksByLead.computeIfPresent(leadId, (id, taskIds) -> {
+            taskIds.remove(taskId);
+            return taskIds.isEmpty() ? null : taskIds;
+        });
+    }
+
+    private static NextTask toNextTask(Tasks task) {
+        return new NextTask(task.getId(), task.getTitle(), task.getDueDate(), task.getPriority(), task.getStatus(),
+                task.getCreatedAt(), null, null, null).withLead(task.getLead());
+    }
+
+    // Lower is more urgent: epoch millis of the virtual deadline
+    static long score(NextTask task) {
+        LocalDateTime anchor = task.dueDate() != null ? task.dueDate()
+                : (task.createdAt() != null ? task.createdAt() : LocalDateTime.now()).plus(NO_DUE_DATE_HORIZON);
+        long deadline = anchor.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return deadline - priorityBoost(task.priority()).toMillis() - leadStatusBoost(task.leadStatus()).toMillis();
+    }
+
+    private static Duration priorityBoost(TaskPriority priority) {
+        if (priority == null) {
+            return Duration.ZERO;
+        }
+        return switch (priority) {
+            case URGENT -> Duration.ofDays(3);
+            case HIGH -> Duration.ofDays(1);
+            case MEDIUM -> Duration.ZERO;
+            case LOW -> Duration.ofDays(-1);
+        };
+    }
+
+    private static Duration leadStatusBoost(LeadStatus status) {
+        if (status == null) {
+            return Duration.ZERO;
+        }
+        return switch (status) {
+            case QUALIFIED -> Duration.ofDays(1);
+            case CONTACTED -> Duration.ofHours(12);
+            case NEW -> Duration.ZERO;
+            case LOST, CONVERTED -> Duration.ofDays(-2);
+        };
+    }
+}
@@ -0,0 +1,216 @@
+package com.sr.CRM.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sr.CRM.Events.DomainEvent;
+import com.sr.CRM.Repository.OutboxRepository;
+import com.sr.CRM.Repository.OutboxRepository.Failure;
+import com.sr.CRM.Repository.OutboxRepository.PendingEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Moves committed outbox rows onto the DomainEventBus. Each batch is claimed with
+ * {@code FOR UPDATE SKIP LOCKED}, delivered, and acknowledged in the same transaction, so
+ * every node can run a relay without two of them taking the same rows, and a relay that
+ * dies mid-batch leaves its rows to the next one. Delivery is therefore at least once.
+ * A batch holds at most one event per aggregate, the oldest one still pending, so an
+ * aggregate's events are delivered in order across nodes and retries.
+ * Local commits wake the relay straight away; rows written on other nodes are picked up
+ * by polling.
+ */
+@Component
+public class OutboxRelay implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD = new TypeReference<>() {
+    };
+    private static final long MAX_BACKOFF_SECONDS = 600;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private DomainEventBus domainEventBus;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("virtualThreadExecutor")
+    private ExecutorService virtualThreadExecutor;
+
+    @Value("${crm.outbox.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${crm.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${crm.outbox.poll-ms:1000}")
+    private long pollMillis;
+
+    @Value("${crm.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${crm.outbox.retention-hours:24}")
+    private long retentionHours;
+
+    private final TransactionTemplate transactionTemplate;
+    private final Semaphore wakeUps = new Semaphore(0);
+    private final Timer lag;
+    private final Counter delivered;
+    private final Counter failed;
+    private final Counter dead;
+
+    private volatile boolean running = true;
+
+    public OutboxRelay(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        lag = Timer.builder("crm.outbox.lag")
+                .description("Time from the writing transaction to the last consumer finishing")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        delivered = Counter.builder("crm.outbox.delivered").register(meterRegistry);
+        failed = Counter.builder("crm.outbox.failed").register(meterRegistry);
+        dead = Counter.builder("crm.outbox.dead").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            virtualThreadExecutor.submit(this::relayLoop);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        wakeUps.release();
+    }
+
+    public void wakeUp() {
+        wakeUps.release();
+    }
+
+    @Scheduled(fixedDelayString = "${crm.outbox.purge-interval-ms:3600000}",
+            initialDelayString = "${crm.outbox.purge-interval-ms:3600000}")
+    public void purgePublished() {
+        int purged = outboxRepository.purgePublishedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (purged > 0) {
+            log.info("Purged {} published outbox events", purged);
+        }
+    }
+
+    private void relayLoop() {
+        while (running) {
+            try {
+                wakeUps.tryAcquire(pollMillis, TimeUnit.MILLISECONDS);
+                wakeUps.drainPermits();
+                // Publishing an event can make its aggregate's next one claimable, so keep going until
+                // a batch comes back empty
+                int relayed;
+                do {
+                    relayed = relayBatch();
+                } while (running && relayed > 0);
+            } catch (RuntimeException e) {
+                log.error("Outbox relay failed; retrying on the next poll", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    int relayBatch() {
+        Integer claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<PendingEvent> rows = outboxRepository.claim(now, batchSize);
+            if (rows.isEmpty()) {
+                return 0;
+            }
+            List<DomainEvent> events = new ArrayList<>();
+            List<Failure> failures = new ArrayList<>();
+            for (PendingEvent row : rows) {
+                try {
+                    events.add(new DomainEvent(row.id(), row.eventType(), row.aggregateType(), row.aggregateId(),
+                            objectMapper.readValue(row.payload(), PAYLOAD), row.occurredAt(), row.attempts() + 1));
+                } catch (JsonProcessingException e) {
+                    failures.add(new Failure(row.id(), row.attempts() + 1, now, now, truncate(e.toString())));
+                }
+            }
+
+            DomainEventBus.DeliveryResult result;
+            try {
+                result = domainEventBus.deliver(events);
+            } catch (InterruptedException e) {
+                // Shutting down; the rows go back to the table for the next relay
+                Thread.currentThread().interrupt();
+                status.setRollbackOnly();
+                return 0;
+            }
+
+            LocalDateTime deliveredAt = LocalDateTime.now();
+            outboxRepository.markPublished(result.delivered(), deliveredAt);
+            Set<Long> deliveredIds = new HashSet<>(result.delivered());
+            for (DomainEvent event : events) {
+                String error = result.failed().get(event.id());
+                if (deliveredIds.contains(event.id())) {
+                    lag.record(Duration.between(event.occurredAt(), deliveredAt).abs());
+                } else if (error == null) {
+                    continue; // held back behind a failed event of its aggregate; stays pending as it is
+                } else if (event.attempt() >= maxAttempts) {
+                    log.error("Giving up on outbox event {} ({}) after {} attempts: {}", event.id(), event.type(),
+                            event.attempt(), error);
+                    failures.add(new Failure(event.id(), event.attempt(), deliveredAt, deliveredAt, truncate(error)));
+                } else {
+                    long backoff = Math.min(1L << Math.min(event.attempt(), 20), MAX_BACKOFF_SECONDS);
+                    failures.add(new Failure(event.id(), event.attempt(), deliveredAt.plusSeconds(backoff), null,
+                            truncate(error)));
+                }
+            }
+            outboxRepository.markFailed(failures);
+
+            delivered.increment(result.delivered().size());
+            failed.increment(result.failed().size());
+            dead.increment(failures.stream().filter(failure -> failure.deadAt() != null).count());
+            return rows.size();
+        });
+        if (Thread.currentThread().isInterrupted()) {
+            running = false;
+        }
+        return claimed != null ? claimed : 0;
+    }
+
+    private static String truncate(String error) {
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,128 @@
+package com.sr.CRM.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sr.CRM.Model.Client;
+import com.sr.CRM.Model.Lead;
+import com.sr.CRM.Model.OutboxEvent;
+import com.sr.CRM.Model.Tasks;
+import com.sr.CRM.Model.Users;
+import com.sr.CRM.Repository.OutboxRepository;
+
+/**
+ * Write side of the transactional outbox. Events recorded during a transaction are buffered
+ * and inserted into outbox_events in one batch just before it commits, so they exist if and
+ * only if the change does; OutboxRelay delivers them to the DomainEventBus afterwards.
+ */
+@Service
+public class OutboxService {
+
+    private static final Object PENDING_KEY = new Object();
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public void recordLead(String type, Lead lead) {
+        recordLead(type, lead, Map.of());
+    }
+
+    public void recordLead(String type, Lead lead, Map<String, Object> extra) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("leadId", lead.getId());
+        payload.put("name", lead.getName());
+        payload.put("company", lead.getCompany());
+        payload.put("status", lead.getStatus());
+        payload.put("conversionStatus", lead.getConversionStatus());
+        payload.put("conversionMessage", lead.getConversionMessage());
+        putOwner(payload, lead.getAssignedTo());
+        payload.putAll(extra);
+        record(type, "lead", lead.getId(), payload);
+    }
+
+    public void recordTask(String type, Tasks task) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("taskId", task.getId());
+        payload.put("title", task.getTitle());
+        payload.put("dueDate", task.getDueDate());
+        payload.put("priority", task.getPriority());
+        payload.put("status", task.getStatus());
+        payload.put("leadId", task.getLead() != null ? task.getLead().getId() : null);
+        payload.put("assignedById", task.getAssignedBy() != null ? task.getAssignedBy().getId() : null);
+        putOwner(payload, task.getAssignedTo());
+        record(type, "task", task.getId(), payload);
+    }
+
+    public void recordClient(String type, Client client) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("clientId", client.getId());
+        payload.put("name", client.getName());
+        payload.put("company", client.getCompany());
+        payload.put("status", client.getStatus());
+        putOwner(payload, client.getAssignedTo());
+        record(type, "client", client.getId(), payload);
+    }
+
+    public void record(String type, String aggregateType, Long aggregateId, Map<String, Object> payload) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException(type + " must be recorded in the transaction that made the change");
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize the payload of " + type, e);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        pending().add(new OutboxEvent(null, type, aggregateType, aggregateId, json, now, now, 0, null, null));
+    }
+
+    private List<OutboxEvent> pending() {
+        @SuppressWarnings("unchecked")
+        List<OutboxEvent> pending = (List<OutboxEvent>) TransactionSynchronizationManager.getResource(PENDING_KEY);
+        if (pending != null) {
+            return pending;
+        }
+        List<OutboxEvent> batch = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(PENDING_KEY, batch);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                outboxRepository.insertAll(batch);
+            }
+
+            @Override
+            public void afterCommit() {
+                outboxRelay.wakeUp();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_KEY);
+            }
+        });
+        return batch;
+    }
+
+    // The assignee and their manager, so consumers can address notifications without a lookup
+    private static void putOwner(Map<String, Object> payload, Users owner) {
+        payload.put("assignedToId", owner != null ? owner.getId() : null);
+        payload.put("managerId", owner != null && owner.getManager() != null ? owner.getManager().getId() : null);
+    }
+}
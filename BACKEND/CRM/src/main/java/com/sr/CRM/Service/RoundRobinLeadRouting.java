@@ -0,0 +1,24 @@
+package com.sr.CRM.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.sr.CRM.Model.Users;
+
+@Component("round-robin")
+public class RoundRobinLeadRouting implements LeadRoutingStrategy {
+
+    private final Map<Long, AtomicLong> cursors = new ConcurrentHashMap<>();
+
+    @Override
+    public Users choose(Long poolId, List<Users> candidates, LeadLoadCounters loads) {
+        List<Users> ordered = candidates.stream().sorted(Comparator.comparing(Users::getId)).toList();
+        long turn = cursors.computeIfAbsent(poolId, id -> new AtomicLong()).getAndIncrement();
+        return ordered.get((int) Math.floorMod(turn, (long) ordered.size()));
+    }
+}
@@ -0,0 +1,207 @@
+package com.sr.CRM.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sr.CRM.Events.TaskOverdueEvent;
+import com.sr.CRM.Events.TaskReminderEvent;
+import com.sr.CRM.Model.Tasks;
+import com.sr.CRM.Model.Tasks.TaskStatus;
+import com.sr.CRM.Repository.ChangeSequence;
+import com.sr.CRM.Repository.TaskRepository;
+import com.sr.CRM.Util.HierarchicalTimingWheel;
+import com.sr.CRM.Util.HierarchicalTimingWheel.Timeout;
+
+/**
+ * Keeps a reminder and an overdue timer for every open task with a due date. Timers are
+ * loaded once at startup and then maintained from the TaskService write paths, so the
+ * tasks table is never polled. Every node arms every timer; a firing timer first claims its
+ * reminder or overdue flag with a conditional update, and only the node that wins the claim
+ * publishes the event.
+ */
+@Component
+public class TaskDueDateScheduler implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskDueDateScheduler.class);
+
+    private enum Kind {
+        REMINDER, OVERDUE
+    }
+
+    private record Deadline(Kind kind, Long taskId, Long assignedToId, LocalDateTime dueDate) {
+    }
+
+    private record TaskTimers(Timeout<Deadline> reminder, Timeout<Deadline> overdue) {
+    }
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ChangeSequence changeSequence;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("virtualThreadExecutor")
+    private ExecutorService virtualThreadExecutor;
+
+    @Value("${crm.tasks.reminder-before-minutes:60}")
+    private long reminderBeforeMinutes;
+
+    @Value("${crm.tasks.timer-tick-ms:1000}")
+    private long tickMillis;
+
+    private final Map<Long, TaskTimers> timersByTask = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-due-date-wheel");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile HierarchicalTimingWheel<Deadline> wheel;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOpenTasks() {
+        // Marked without an event each: these fell due while no node was watching, and arming a timer per
+        // task would send them all at once as separate updates
+        Integer backlog = transactionTemplate.execute(status -> {
+            changeSequence.prepareTransaction();
+            return taskRepository.markPastDueOverdue(LocalDateTime.now());
+        });
+        if (backlog != null && backlog > 0) {
+            log.info("Marked {} past-due tasks overdue", backlog);
+        }
+        wheel = new HierarchicalTimingWheel<>(tickMillis, System.currentTimeMillis());
+        armOpenTasks();
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        log.info("Loaded {} task due-date timers", wheel.size());
+    }
+
+    // After missed invalidations. Timers left behind for tasks that were closed or deleted meanwhile
+    // are harmless: their claim finds nothing to update when they fire
+    public void reload() {
+        if (wheel != null) {
+            armOpenTasks();
+        }
+    }
+
+    private void armOpenTasks() {
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = taskRepository.streamOpenTaskDueDates(TaskStatus.DONE)) {
+                rows.forEach(row -> register((Long) row[0], (Long) row[1], (LocalDateTime) row[2]));
+            }
+        });
+    }
+
+    public void schedule(Tasks task) {
+        boolean open = task.getStatus() != TaskStatus.DONE && task.getDueDate() != null
+                && task.getAssignedTo() != null;
+        timersByTask.compute(task.getId(), (taskId, existing) -> {
+            cancelTimers(existing);
+            return open ? createTimers(taskId, task.getAssignedTo().getId(), task.getDueDate()) : null;
+        });
+    }
+
+    public void cancel(Long taskId) {
+        cancelTimers(timersByTask.remove(taskId));
+    }
+
+    private void register(Long taskId, Long assignedToId, LocalDateTime dueDate) {
+        timersByTask.compute(taskId, (id, existing) -> {
+            cancelTimers(existing);
+            return createTimers(id, assignedToId, dueDate);
+        });
+    }
+
+    private TaskTimers createTimers(Long taskId, Long assignedToId, LocalDateTime dueDate) {
+        HierarchicalTimingWheel<Deadline> current = wheel;
+        if (current == null) {
+            return null; // not started yet; the startup load will pick the task up
+        }
+        long dueMillis = toEpochMillis(dueDate);
+        long reminderMillis = dueMillis - TimeUnit.MINUTES.toMillis(reminderBeforeMinutes);
+        Timeout<Deadline> reminder = reminderMillis > System.currentTimeMillis()
+                ? current.schedule(reminderMillis, new Deadline(Kind.REMINDER, taskId, assignedToId, dueDate))
+                : null;
+        Timeout<Deadline> overdue = current.schedule(dueMillis,
+                new Deadline(Kind.OVERDUE, taskId, assignedToId, dueDate));
+        return new TaskTimers(reminder, overdue);
+    }
+
+    private void cancelTimers(TaskTimers timers) {
+        if (timers == null || wheel == null) {
+            return;
+        }
+        if (timers.reminder() != null) {
+            wheel.cancel(timers.reminder());
+        }
+        wheel.cancel(timers.overdue());
+    }
+
+    private void tick() {
+        try {
+            List<Deadline> expired = wheel.advance(System.currentTimeMillis());
+            for (Deadline deadline : expired) {
+                virtualThreadExecutor.execute(() -> fire(deadline));
+            }
+        } catch (RuntimeException e) {
+            log.error("Task due-date wheel tick failed", e);
+        }
+    }
+
+    private void fire(Deadline deadline) {
+        try {
+            if (deadline.kind() == Kind.REMINDER) {
+                if (taskRepository.claimReminder(deadline.taskId(), TaskStatus.DONE, deadline.dueDate()) > 0) {
+                    eventPublisher.publishEvent(
+                            new TaskReminderEvent(deadline.taskId(), deadline.assignedToId(), deadline.dueDate()));
+                }
+                return;
+            }
+            timersByTask.computeIfPresent(deadline.taskId(),
+                    (taskId, timers) -> timers.overdue().getPayload() == deadline ? null : timers);
+            // The change_seq value has to be taken in the transaction that writes it, see ChangeSequence
+            Integer marked = transactionTemplate.execute(status -> taskRepository.markOverdue(deadline.taskId(),
+                    TaskStatus.DONE, LocalDateTime.now(), changeSequence.next()));
+            if (marked != null && marked > 0) {
+                eventPublisher.publishEvent(
+                        new TaskOverdueEvent(deadline.taskId(), deadline.assignedToId(), deadline.dueDate()));
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to process {} timer for task {}", deadline.kind(), deadline.taskId(), e);
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Override
+    public void destroy() {
+        ticker.shutdownNow();
+    }
+}
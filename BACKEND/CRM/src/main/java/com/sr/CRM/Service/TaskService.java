@@ -1,35 +1,85 @@
 package com.sr.CRM.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.validation.annotation.Validated;
 
+import com.sr.CRM.Config.ReplicaRead;
+import com.sr.CRM.Events.DomainEvent;
+import com.sr.CRM.Exception.InvalidCursorException;
 import com.sr.CRM.Exception.ResourceNotFoundException;
 import com.sr.CRM.Model.Lead;
 import com.sr.CRM.Model.Tasks;
 import com.sr.CRM.Model.Users;
 import com.sr.CRM.Model.DTO.TaskDTO;
+import com.sr.CRM.Model.DTO.TaskFilterDTO;
+import com.sr.CRM.Model.DTO.TaskStatusUpdateDTO;
 import com.sr.CRM.Model.DTO.TaskUpdateDTO;
 import com.sr.CRM.Model.Tasks.TaskPriority;
 import com.sr.CRM.Model.Tasks.TaskStatus;
 import com.sr.CRM.Repository.LeadRepository;
+import com.sr.CRM.Repository.ProjectionRepository;
+import com.sr.CRM.Repository.TaskBatchRepository;
+import com.sr.CRM.Repository.TaskBoardRow;
 import com.sr.CRM.Repository.TaskRepository;
+import com.sr.CRM.Repository.TaskSpecifications;
 import com.sr.CRM.Repository.UserRepository;
+import com.sr.CRM.Util.AfterCommit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 @Service
 public class TaskService {
 
+    private static final List<String> BOARD_COLUMNS = List.of("TODO", "IN_PROGRESS", "DONE", "OVERDUE");
+    private static final int MAX_BOARD_CARDS = 100;
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int MAX_NEXT_TASKS = 50;
+    private static final LocalDateTime BOARD_CURSOR_START = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime BOARD_NO_DUE_DATE = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    // ?fields= names for task lists, mapped to the attribute each one selects
+    public static final Map<String, String> LIST_FIELDS = Map.ofEntries(
+            Map.entry("id", "id"),
+            Map.entry("title", "title"),
+            Map.entry("description", "description"),
+            Map.entry("dueDate", "dueDate"),
+            Map.entry("status", "status"),
+            Map.entry("priority", "priority"),
+            Map.entry("overdue", "overdue"),
+            Map.entry("createdAt", "createdAt"),
+            Map.entry("updatedAt", "updatedAt"),
+            Map.entry("assignedTo", "assignedTo.name"),
+            Map.entry("assignedToId", "assignedTo.id"),
+            Map.entry("assignedBy", "assignedBy.name"),
+            Map.entry("assignedById", "assignedBy.id"),
+            Map.entry("leadId", "lead.id"));
+
     @Autowired
     private UserService userService;
 
@@ -42,10 +92,38 @@ public class TaskService {
     @Autowired
     private LeadRepository leadRepository;
 
+    @Autowired
+    private TaskBatchRepository taskBatchRepository;
+
+    @Autowired
+    private TaskDueDateScheduler taskDueDateScheduler;
+
+    @Autowired
+    private NextTaskIndex nextTaskIndex;
+
+    @Autowired
+    private LeadScoringEngine leadScoringEngine;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private ProjectionRepository projectionRepository;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     public Page<Tasks> getTasksByAssignedTo(Users user, Pageable pageable) {
         return taskRepository.findByAssignedTo(user, pageable);
     }
 
+    @Transactional
     public Tasks addTask(TaskDTO taskDTO) {
         Users currentUser = userService.getCurrentUser();
         if (currentUser == null) {
@@ -84,7 +162,175 @@ public class TaskService {
         task.setCreatedAt(LocalDateTime.now());
         task.setUpdatedAt(LocalDateTime.now());
 
-        return taskRepository.save(task);
+        Tasks savedTask = taskRepository.save(task);
+        onTaskSaved(savedTask);
+        outboxService.recordTask(DomainEvent.TASK_CREATED, savedTask);
+        return savedTask;
+    }
+
+    @Transactional
+    public List<Map<String, Object>> addTasks(List<TaskDTO> taskDTOs) {
+        if (taskDTOs.size() > MAX_BATCH_SIZE) {
+            throw new RuntimeException("A batch can contain at most " + MAX_BATCH_SIZE + " tasks");
+        }
+        Users currentUser = userService.getCurrentUser();
+        LocalDateTime now = LocalDateTime.now();
+
+        // Resolve the team, assignees and leads once for the whole batch
+        Set<Long> assignable = new HashSet<>(userService.getReportingSubtreeIds(currentUser));
+        Map<Long, Lead> leads = new HashMap<>();
+        for (Lead lead : leadRepository.findAllById(taskDTOs.stream()
+                .map(TaskDTO::getLeadId).filter(Objects::nonNull).distinct().toList())) {
+            leads.put(lead.getId(), lead);
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        List<Tasks> accepted = new ArrayList<>();
+        List<Map<String, Object>> acceptedResults = new ArrayList<>();
+        for (int i = 0; i < taskDTOs.size(); i++) {
+            TaskDTO taskDTO = taskDTOs.get(i);
+            Map<String, Object> result = new HashMap<>();
+            result.put("index", i);
+            results.add(result);
+
+            String error = null;
+            Users assignedTo = currentUser;
+            if (taskDTO.getAssignedToId() != null && !taskDTO.getAssignedToId().equals(currentUser.getId())) {
+                // A reference is enough for the insert; the row is only read if a later hook needs more
+                assignedTo = assignable.contains(taskDTO.getAssignedToId())
+                        ? userRepository.getReferenceById(taskDTO.getAssignedToId())
+                        : null;
+            }
+            if (taskDTO.getTitle() == null || taskDTO.getTitle().isBlank()
+                    || taskDTO.getDescription() == null || taskDTO.getDescription().isBlank()) {
+                error = "Title and description are required";
+            } else if (assignedTo == null) {
+                error = "You cannot assign this task to this user";
+            } else if (taskDTO.getLeadId() != null && !leads.containsKey(taskDTO.getLeadId())) {
+                error = "Lead not found with ID: " + taskDTO.getLeadId();
+            } else if (taskDTO.getDueDate() != null && taskDTO.getDueDate().isBefore(now)) {
+                error = "Due date must be in the future";
+            }
+            if (error != null) {
+                result.put("status", "REJECTED");
+                result.put("error", error);
+                continue;
+            }
+
+            Tasks task = new Tasks();
+            task.setLead(taskDTO.getLeadId() != null ? leads.get(taskDTO.getLeadId()) : null);
+            task.setTitle(taskDTO.getTitle());
+            task.setDescription(taskDTO.getDescription());
+            task.setDueDate(taskDTO.getDueDate());
+            task.setAssignedTo(assignedTo);
+            task.setAssignedBy(currentUser);
+            task.setStatus(taskDTO.getStatus() != null ? taskDTO.getStatus() : TaskStatus.TODO);
+            task.setPriority(taskDTO.getPriority() != null ? taskDTO.getPriority() : TaskPriority.MEDIUM);
+            task.setCreatedAt(now);
+            task.setUpdatedAt(now);
+            task.setOverdue(false);
+            accepted.add(task);
+            acceptedResults.add(result);
+        }
+
+        try {
+            taskBatchRepository.insertAll(accepted);
+        } catch (DataAccessException e) {
+            failBatch(acceptedResults, e);
+            return results;
+        }
+        for (int i = 0; i < accepted.size(); i++) {
+            acceptedResults.get(i).put("status", "CREATED");
+            acceptedResults.get(i).put("id", accepted.get(i).getId());
+            onTaskSaved(accepted.get(i));
+            outboxService.recordTask(DomainEvent.TASK_CREATED, accepted.get(i));
+        }
+        return results;
+    }
+
+    @Transactional
+    public List<Map<String, Object>> updateTaskStatuses(List<TaskStatusUpdateDTO> updates) {
+        if (updates.size() > MAX_BATCH_SIZE) {
+            throw new RuntimeException("A batch can contain at most " + MAX_BATCH_SIZE + " updates");
+        }
+        Users currentUser = userService.getCurrentUser();
+        LocalDateTime now = LocalDateTime.now();
+
+        // One query for the tasks and one for the team; every item is checked against both
+        Set<Long> allowedAssignees = new HashSet<>();
+        allowedAssignees.add(currentUser.getId());
+        allowedAssignees.addAll(userService.getReportingSubtreeIds(currentUser));
+        Map<Long, Tasks> tasks = new HashMap<>();
+        for (Tasks task : taskRepository.findAllById(updates.stream()
+                .map(TaskStatusUpdateDTO::getTaskId).filter(Objects::nonNull).distinct().toList())) {
+            // Written by the batch UPDATE below, so the commit must not flush them a second time
+            entityManager.detach(task);
+            tasks.put(task.getId(), task);
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        List<Map<String, Object>> acceptedResults = new ArrayList<>();
+        List<Long> taskIds = new ArrayList<>();
+        List<TaskStatus> statuses = new ArrayList<>();
+        for (int i = 0; i < updates.size(); i++) {
+            TaskStatusUpdateDTO update = updates.get(i);
+            Tasks task = tasks.get(update.getTaskId());
+            Map<String, Object> result = new HashMap<>();
+            result.put("index", i);
+            result.put("id", update.getTaskId());
+            results.add(result);
+
+            if (task == null) {
+                result.put("status", "REJECTED");
+                result.put("error", "Task not found with ID: " + update.getTaskId());
+            } else if (update.getStatus() == null) {
+                result.put("status", "REJECTED");
+                result.put("error", "Status is required");
+            } else if (!allowedAssignees.contains(task.getAssignedTo().getId())) {
+                result.put("status", "REJECTED");
+                result.put("error", "You are not authorized to update this task");
+            } else {
+                result.put("status", "UPDATED");
+                acceptedResults.add(result);
+                taskIds.add(task.getId());
+                statuses.add(update.getStatus());
+                task.setStatus(update.getStatus());
+                task.setUpdatedAt(now);
+            }
+        }
+
+        int[] updated;
+        try {
+            updated = taskBatchRepository.updateStatuses(taskIds, statuses, now);
+        } catch (DataAccessException e) {
+            failBatch(acceptedResults, e);
+            return results;
+        }
+        for (int i = 0; i < taskIds.size(); i++) {
+            // Deleted since it was read above
+            if (updated[i] == 0) {
+                acceptedResults.get(i).put("status", "REJECTED");
+                acceptedResults.get(i).put("error", "Task not found with ID: " + taskIds.get(i));
+                continue;
+            }
+            onTaskSaved(tasks.get(taskIds.get(i)));
+            outboxService.recordTask(DomainEvent.TASK_UPDATED, tasks.get(taskIds.get(i)));
+        }
+        return results;
+    }
+
+    // A JDBC batch is all or nothing: roll back whatever it wrote and report every item it carried as failed
+    private static void failBatch(List<Map<String, Object>> acceptedResults, DataAccessException e) {
+        TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        for (Map<String, Object> result : acceptedResults) {
+            result.put("status", "FAILED");
+            result.put("error", "Batch write failed: " + e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    public String getMyTasksETag() {
+        Users currentUser = userService.getCurrentUser();
+        return changeFeedService.listETag("task", currentUser.getId(), List.of(currentUser.getId()));
     }
 
     public Page<Map<String, Object>> getMyTasks(Pageable pageable) {
@@ -121,9 +367,11 @@ public class TaskService {
         return new PageImpl<>(response, pageable, tasksPage.getTotalElements());
     }
 
+    @Transactional
     public ResponseEntity<String> adminTaskUpdate(Long id, @Validated TaskUpdateDTO taskUpdateDTO) {
         Tasks task = taskRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Task not found with ID: " + id));
+        Long previousAssigneeId = task.getAssignedTo().getId();
 
         if (taskUpdateDTO.getDueDate() != null && taskUpdateDTO.getDueDate().isBefore(LocalDateTime.now())) {
             throw new RuntimeException("Due date must be in the future");
@@ -148,10 +396,14 @@ public class TaskService {
         }
 
         task.setUpdatedAt(LocalDateTime.now());
-        taskRepository.save(task);
+        Tasks savedTask = taskRepository.save(task);
+        onTaskSaved(savedTask);
+        outboxService.recordTask(savedTask.getAssignedTo().getId().equals(previousAssigneeId)
+                ? DomainEvent.TASK_UPDATED : DomainEvent.TASK_ASSIGNED, savedTask);
         return ResponseEntity.ok("Task updated successfully.");
     }
 
+    @Transactional
     public ResponseEntity<String> employeeTaskUpdate(Long id, @Validated TaskUpdateDTO taskDTO) {
         Users currentUser = userService.getCurrentUser();
         if (currentUser == null) {
@@ -169,6 +421,11 @@ public class TaskService {
             return ResponseEntity.badRequest().body("Due date must be in the future");
         }
 
+        // Employees cannot change assignedTo; checked first, as edits to the managed task are flushed on commit
+        if (taskDTO.getAssignedToId() != null && !taskDTO.getAssignedToId().equals(currentUser.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Employees cannot reassign tasks");
+        }
+
         if (taskDTO.getTitle() != null)
             task.setTitle(taskDTO.getTitle());
         if (taskDTO.getDescription() != null)
@@ -185,13 +442,10 @@ public class TaskService {
             task.setLead(lead);
         }
 
-        // Employees cannot change assignedTo
-        if (taskDTO.getAssignedToId() != null && !taskDTO.getAssignedToId().equals(currentUser.getId())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Employees cannot reassign tasks");
-        }
-
         task.setUpdatedAt(LocalDateTime.now());
-        taskRepository.save(task);
+        Tasks savedTask = taskRepository.save(task);
+        onTaskSaved(savedTask);
+        outboxService.recordTask(DomainEvent.TASK_UPDATED, savedTask);
         return ResponseEntity.ok("Task updated successfully.");
     }
 
@@ -226,6 +480,7 @@ public class TaskService {
         return taskMap;
     }
 
+    @Transactional
     public ResponseEntity<String> deleteTask(Long id) {
         Users currentUser = userService.getCurrentUser();
         Tasks task = taskRepository.findById(id)
@@ -237,24 +492,29 @@ public class TaskService {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not authorized to delete this task");
         }
 
+        outboxService.recordTask(DomainEvent.TASK_DELETED, task);
         taskRepository.deleteById(id);
+        onTaskDeleted(id);
         return ResponseEntity.ok("Task deleted successfully.");
     }
 
-    public Page<Map<String, Object>> getAllTasksOfEmployees(Pageable pageable, String status) {
+    @ReplicaRead
+    public Page<Map<String, Object>> getAllTasksOfEmployees(Pageable pageable, TaskFilterDTO filter) {
         Users currentUser = userService.getCurrentUser();
         if (!currentUser.getRoles().contains("ROLE_MANAGER")) {
             throw new RuntimeException("Access denied: only managers can view this data.");
         }
 
-        List<Users> employees = userRepository.findByManager(currentUser);
-        if (employees.isEmpty()) {
+        List<Long> employeeIds = userService.getReportingSubtreeIds(currentUser);
+        if (employeeIds.isEmpty()) {
             return new PageImpl<>(new ArrayList<>(), pageable, 0);
         }
+        if (filter.getAssignedToId() != null && !employeeIds.contains(filter.getAssignedToId())) {
+            throw new RuntimeException("Access denied: this employee is not in your team.");
+        }
 
-        Page<Tasks> tasksPage = status != null && !status.isEmpty()
-                ? taskRepository.findByAssignedToInAndStatus(employees, status, pageable)
-                : taskRepository.findByAssignedToIn(employees, pageable);
+        Page<Tasks> tasksPage = taskRepository.findAll(
+                TaskSpecifications.matching(filter, employeeIds, LocalDateTime.now()), withDefaultSort(pageable));
 
         List<Map<String, Object>> response = new ArrayList<>();
         for (Tasks task : tasksPage.getContent()) {
@@ -281,6 +541,7 @@ public class TaskService {
         return new PageImpl<>(response, pageable, tasksPage.getTotalElements());
     }
 
+    @Transactional
     public ResponseEntity<String> managerTaskUpdate(Long id, @Validated TaskUpdateDTO taskDTO) {
         Users currentUser = userService.getCurrentUser();
         if (currentUser == null) {
@@ -302,6 +563,17 @@ public class TaskService {
             return ResponseEntity.badRequest().body("Due date must be in the future");
         }
 
+        // Checked before the task is touched, as edits to the managed task are flushed on commit
+        Users assignedTo = null;
+        if (taskDTO.getAssignedToId() != null) {
+            assignedTo = userRepository.findById(taskDTO.getAssignedToId())
+                    .orElseThrow(() -> new ResourceNotFoundException(
+                            "User not found with ID: " + taskDTO.getAssignedToId()));
+            if (!userService.isManagerOf(currentUser, assignedTo) && !assignedTo.getId().equals(currentUser.getId())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You cannot assign this task to this user");
+            }
+        }
+
         if (taskDTO.getTitle() != null)
             task.setTitle(taskDTO.getTitle());
         if (taskDTO.getDescription() != null)
@@ -312,16 +584,8 @@ public class TaskService {
             task.setStatus(taskDTO.getStatus());
         if (taskDTO.getPriority() != null)
             task.setPriority(taskDTO.getPriority());
-
-        if (taskDTO.getAssignedToId() != null) {
-            Users assignedTo = userRepository.findById(taskDTO.getAssignedToId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "User not found with ID: " + taskDTO.getAssignedToId()));
-            if (!userService.isManagerOf(currentUser, assignedTo) && !assignedTo.getId().equals(currentUser.getId())) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You cannot assign this task to this user");
-            }
+        if (assignedTo != null)
             task.setAssignedTo(assignedTo);
-        }
 
         if (taskDTO.getAssignedById() != null) {
             Users assignedBy = userRepository.findById(taskDTO.getAssignedById())
@@ -333,14 +597,194 @@ public class TaskService {
         }
 
         task.setUpdatedAt(LocalDateTime.now());
-        taskRepository.save(task);
+        Tasks savedTask = taskRepository.save(task);
+        onTaskSaved(savedTask);
+        outboxService.recordTask(savedTask.getAssignedTo().getId().equals(assignedUser.getId())
+                ? DomainEvent.TASK_UPDATED : DomainEvent.TASK_ASSIGNED, savedTask);
         return ResponseEntity.ok("Task updated successfully.");
     }
 
-    public Page<Tasks> getAllTasks(Pageable pageable, String status) {
-        if (status != null && !status.isEmpty()) {
-            return taskRepository.findByStatus(status, pageable);
+    @ReplicaRead
+    public Page<Tasks> getAllTasks(Pageable pageable, TaskFilterDTO filter) {
+        return taskRepository.findAll(TaskSpecifications.matching(filter, null, LocalDateTime.now()),
+                withDefaultSort(pageable));
+    }
+
+    @ReplicaRead
+    public Page<Map<String, Object>> getAllTasks(Pageable pageable, TaskFilterDTO filter, List<String> fields) {
+        return projectionRepository.findPage(Tasks.class, LIST_FIELDS, fields,
+                TaskSpecifications.matching(filter, null, LocalDateTime.now()), withDefaultSort(pageable));
+    }
+
+    // Unsorted grids follow the (status, due_date) index order instead of heap order
+    private static Pageable withDefaultSort(Pageable pageable) {
+        if (pageable.getSort().isSorted()) {
+            return pageable;
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                Sort.by(Sort.Order.asc("dueDate"), Sort.Order.asc("id")));
+    }
+
+    public Map<String, Object> getTaskBoard(int limit) {
+        Users currentUser = userService.getCurrentUser();
+        int cardLimit = Math.max(1, Math.min(limit, MAX_BOARD_CARDS));
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<String, Long> countByColumn = new HashMap<>();
+        for (Object[] row : taskRepository.countBoardColumns(currentUser.getId(), now)) {
+            countByColumn.put((String) row[0], ((Number) row[1]).longValue());
         }
-        return taskRepository.findAll(pageable);
+
+        List<Map<String, Object>> columns = new ArrayList<>();
+        for (String column : BOARD_COLUMNS) {
+            long count = countByColumn.getOrDefault(column, 0L);
+            List<TaskBoardRow> cards = count == 0 ? List.of()
+                    : boardCards(currentUser.getId(), column, now, BOARD_CURSOR_START, 0L, cardLimit);
+            Map<String, Object> columnMap = boardColumn(column, cards, count > cards.size());
+            columnMap.put("count", count);
+            columns.add(columnMap);
+        }
+
+        Map<String, Object> board = new HashMap<>();
+        board.put("columns", columns);
+        return board;
+    }
+
+    public Map<String, Object> getTaskBoardColumn(String column, String cursor, int limit) {
+        if (!BOARD_COLUMNS.contains(column)) {
+            throw new RuntimeException("Unknown board column: " + column);
+        }
+        Users currentUser = userService.getCurrentUser();
+        int cardLimit = Math.max(1, Math.min(limit, MAX_BOARD_CARDS));
+
+        LocalDateTime afterDue = BOARD_CURSOR_START;
+        long afterId = 0L;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = position.indexOf('~');
+                if (separator < 0) {
+                    throw new InvalidCursorException("Invalid cursor");
+                }
+                afterDue = separator == 0 ? BOARD_NO_DUE_DATE : LocalDateTime.parse(position.substring(0, separator));
+                afterId = Long.parseLong(position.substring(separator + 1));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new InvalidCursorException("Invalid cursor");
+            }
+        }
+
+        List<TaskBoardRow> cards = boardCards(currentUser.getId(), column, LocalDateTime.now(), afterDue, afterId,
+                cardLimit);
+        return boardColumn(column, cards, cards.size() == cardLimit);
+    }
+
+    // One page of a column, ordered by (due date, id) with undated cards last. Each status is read with its own
+    // LIMIT query on idx_tasks_board; OVERDUE merges the TODO and IN_PROGRESS pages here
+    private List<TaskBoardRow> boardCards(Long userId, String column, LocalDateTime now, LocalDateTime afterDue,
+            long afterId, int limit) {
+        boolean overdue = column.equals("OVERDUE");
+        List<String> statuses = overdue ? List.of(TaskStatus.TODO.name(), TaskStatus.IN_PROGRESS.name())
+                : List.of(column);
+        LocalDateTime dueFrom = overdue || column.equals(TaskStatus.DONE.name()) ? BOARD_CURSOR_START : now;
+        LocalDateTime dueTo = overdue ? now : BOARD_NO_DUE_DATE;
+
+        List<TaskBoardRow> cards = new ArrayList<>();
+        if (afterDue.isBefore(BOARD_NO_DUE_DATE)) {
+            for (String status : statuses) {
+                cards.addAll(taskRepository.findBoardDatedCards(userId, status, dueFrom, dueTo, afterDue, afterId,
+                        limit));
+            }
+            if (statuses.size() > 1) {
+                cards.sort(Comparator.comparing(TaskBoardRow::getDueDate).thenComparing(TaskBoardRow::getId));
+                cards = new ArrayList<>(cards.subList(0, Math.min(limit, cards.size())));
+            }
+        }
+        if (!overdue && cards.size() < limit) {
+            long afterUndatedId = afterDue.isBefore(BOARD_NO_DUE_DATE) ? 0L : afterId;
+            cards.addAll(taskRepository.findBoardUndatedCards(userId, column, afterUndatedId, limit - cards.size()));
+        }
+        return cards;
+    }
+
+    private Map<String, Object> boardColumn(String column, List<TaskBoardRow> cards, boolean hasMore) {
+        List<Map<String, Object>> cardMaps = new ArrayList<>();
+        for (TaskBoardRow card : cards) {
+            Map<String, Object> cardMap = new HashMap<>();
+            cardMap.put("id", card.getId());
+            cardMap.put("title", card.getTitle());
+            cardMap.put("dueDate", card.getDueDate());
+            cardMap.put("priority", card.getPriority());
+            cardMap.put("status", card.getStatus());
+            cardMap.put("leadId", card.getLeadId());
+            cardMaps.add(cardMap);
+        }
+
+        Map<String, Object> columnMap = new HashMap<>();
+        columnMap.put("column", column);
+        columnMap.put("cards", cardMaps);
+        if (hasMore && !cards.isEmpty()) {
+            TaskBoardRow last = cards.get(cards.size() - 1);
+            String position = (last.getDueDate() != null ? last.getDueDate().toString() : "") + "~" + last.getId();
+            columnMap.put("nextCursor",
+                    Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8)));
+        }
+        return columnMap;
+    }
+
+    public List<Map<String, Object>> getNextTasks(int limit) {
+        Users currentUser = userService.getCurrentUser();
+        LocalDateTime now = LocalDateTime.now();
+        List<Map<String, Object>> response = new ArrayList<>();
+        for (NextTaskIndex.NextTask task : nextTaskIndex.next(currentUser.getId(),
+                Math.max(1, Math.min(limit, MAX_NEXT_TASKS)))) {
+            Map<String, Object> taskMap = new HashMap<>();
+            taskMap.put("id", task.id());
+            taskMap.put("title", task.title());
+            taskMap.put("dueDate", task.dueDate());
+            taskMap.put("priority", task.priority());
+            taskMap.put("status", task.status());
+            taskMap.put("overdue", task.dueDate() != null && task.dueDate().isBefore(now));
+            taskMap.put("leadId", task.leadId());
+            taskMap.put("company", task.company());
+            taskMap.put("leadStatus", task.leadStatus());
+            response.add(taskMap);
+        }
+        return response;
+    }
+
+    // Keeps the due-date timers and next-task index in step with task writes, including generated ones.
+    // Inside a transaction they are updated only once it commits.
+    public void onTaskSaved(Tasks task) {
+        invalidationBus.publish("task", task.getId());
+        AfterCommit.run(() -> applyTaskSaved(task));
+    }
+
+    public void onTaskDeleted(Long id) {
+        invalidationBus.publish("task", id);
+        AfterCommit.run(() -> applyTaskDeleted(id));
+    }
+
+    @PostConstruct
+    void subscribeToRemoteWrites() {
+        invalidationBus.subscribe("task", this::reloadTask);
+        invalidationBus.onResync(nextTaskIndex::invalidateAll);
+        invalidationBus.onResync(taskDueDateScheduler::reload);
+    }
+
+    // Another node wrote the task; every node keeps its own timers and indexes over all tasks
+    private void reloadTask(Long id) {
+        taskRepository.findById(id).ifPresentOrElse(this::applyTaskSaved, () -> applyTaskDeleted(id));
+    }
+
+    private void applyTaskSaved(Tasks task) {
+        taskDueDateScheduler.schedule(task);
+        nextTaskIndex.onTaskSaved(task);
+        leadScoringEngine.onTaskSaved(task);
+    }
+
+    private void applyTaskDeleted(Long id) {
+        taskDueDateScheduler.cancel(id);
+        nextTaskIndex.onTaskDeleted(id);
+        leadScoringEngine.onTaskDeleted(id);
     }
-}
\ No newline at end of file
+}
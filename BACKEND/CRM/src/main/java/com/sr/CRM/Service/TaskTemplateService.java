@@ -0,0 +1,389 @@
+package com.sr.CRM.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sr.CRM.Events.DomainEvent;
+import com.sr.CRM.Exception.ResourceNotFoundException;
+import com.sr.CRM.Model.Client;
+import com.sr.CRM.Model.Lead;
+import com.sr.CRM.Model.TaskTemplate;
+import com.sr.CRM.Model.Tasks;
+import com.sr.CRM.Model.Users;
+import com.sr.CRM.Model.DTO.TaskTemplateDTO;
+import com.sr.CRM.Model.Tasks.TaskPriority;
+import com.sr.CRM.Model.Tasks.TaskStatus;
+import com.sr.CRM.Repository.ClientRepository;
+import com.sr.CRM.Repository.LeadRepository;
+import com.sr.CRM.Repository.TaskBatchRepository;
+import com.sr.CRM.Repository.TaskRepository;
+import com.sr.CRM.Repository.TaskTemplateRepository;
+import com.sr.CRM.Repository.UserRepository;
+import com.sr.CRM.Util.RecurrenceRule;
+
+/**
+ * Recurring task templates. Only the occurrences inside a rolling window exist as task
+ * rows; the generator extends each template's window in the background and inserts the
+ * new occurrences in JDBC batches. Occurrences past the window are computed on read.
+ */
+@Service
+public class TaskTemplateService {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskTemplateService.class);
+
+    private static final int TEMPLATES_PER_TRANSACTION = 50;
+    private static final int MAX_OCCURRENCES_PER_RUN = 1000;
+    private static final int INSERT_CHUNK = 200;
+    private static final int MAX_UPCOMING_DAYS = 90;
+    private static final int MAX_UPCOMING = 200;
+
+    @Autowired
+    private TaskTemplateRepository taskTemplateRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskBatchRepository taskBatchRepository;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${crm.recurring-tasks.window-days:14}")
+    private long windowDays;
+
+    public Map<String, Object> createTemplate(TaskTemplateDTO templateDTO) {
+        Users currentUser = userService.getCurrentUser();
+        TaskTemplate template = new TaskTemplate();
+        template.setCreatedBy(currentUser);
+        template.setActive(true);
+        apply(template, templateDTO, currentUser);
+        template.setMaterializedThrough(LocalDateTime.now());
+
+        List<Tasks> created = new ArrayList<>();
+        TaskTemplate saved = transactionTemplate.execute(status -> {
+            TaskTemplate persisted = taskTemplateRepository.save(template);
+            created.addAll(materialize(persisted, horizon()));
+            return persisted;
+        });
+        created.forEach(taskService::onTaskSaved);
+        return toMap(saved);
+    }
+
+    public List<Map<String, Object>> getTemplates() {
+        Users currentUser = userService.getCurrentUser();
+        List<Users> scope = new ArrayList<>(userService.getReportingSubtree(currentUser));
+        scope.add(currentUser);
+        return taskTemplateRepository.findByAssignedToInOrCreatedByOrderByIdDesc(scope, currentUser).stream()
+                .map(this::toMap)
+                .toList();
+    }
+
+    public Map<String, Object> updateTemplate(Long id, TaskTemplateDTO templateDTO) {
+        Users currentUser = userService.getCurrentUser();
+        TaskTemplate template = findEditableTemplate(id, currentUser);
+        apply(template, templateDTO, currentUser);
+
+        // Regenerate the window under the new schedule; started or finished occurrences are kept
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> removed = new ArrayList<>();
+        List<Tasks> created = new ArrayList<>();
+        TaskTemplate saved = transactionTemplate.execute(status -> {
+            removed.addAll(deleteFutureOccurrences(template.getId(), now));
+            template.setMaterializedThrough(now);
+            TaskTemplate persisted = taskTemplateRepository.save(template);
+            if (Boolean.TRUE.equals(persisted.getActive())) {
+                created.addAll(materialize(persisted, horizon()));
+            }
+            return persisted;
+        });
+        removed.forEach(taskService::onTaskDeleted);
+        created.forEach(taskService::onTaskSaved);
+        return toMap(saved);
+    }
+
+    public ResponseEntity<String> deleteTemplate(Long id) {
+        Users currentUser = userService.getCurrentUser();
+        TaskTemplate template = findEditableTemplate(id, currentUser);
+        List<Long> removed = transactionTemplate.execute(status -> {
+            List<Long> taskIds = deleteFutureOccurrences(template.getId(), LocalDateTime.now());
+            taskTemplateRepository.delete(template);
+            return taskIds;
+        });
+        removed.forEach(taskService::onTaskDeleted);
+        return ResponseEntity.ok("Task template deleted successfully.");
+    }
+
+    /**
+     * The caller's open tasks due in the next {@code days}, with the occurrences that the
+     * generator hasn't written yet merged in by due date. Every source is already sorted,
+     * so this is a k-way merge that stops at {@code limit}.
+     */
+    public List<Map<String, Object>> getUpcoming(int days, int limit) {
+        Users currentUser = userService.getCurrentUser();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime through = now.plusDays(Math.max(1, Math.min(days, MAX_UPCOMING_DAYS)));
+        int max = Math.max(1, Math.min(limit, MAX_UPCOMING));
+
+        List<Iterator<Map<String, Object>>> sources = new ArrayList<>();
+        sources.add(taskRepository
+                .findByAssignedToAndStatusNotAndDueDateBetweenOrderByDueDateAscIdAsc(currentUser, TaskStatus.DONE,
+                        now, through)
+                .stream().map(this::toUpcoming).iterator());
+        for (TaskTemplate template : taskTemplateRepository.findByAssignedToAndActiveTrue(currentUser)) {
+            LocalDateTime after = template.getMaterializedThrough() != null
+                    && template.getMaterializedThrough().isAfter(now) ? template.getMaterializedThrough() : now;
+            if (!after.isBefore(through)) {
+                continue;
+            }
+            List<LocalDateTime> occurrences;
+            try {
+                occurrences = RecurrenceRule.parse(template.getRecurrence())
+                        .occurrences(template.getStartsAt(), after, through, max);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            sources.add(occurrences.stream().map(due -> toUpcoming(template, due)).iterator());
+        }
+
+        record Head(Map<String, Object> item, Iterator<Map<String, Object>> source) {
+        }
+        PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing(
+                (Head head) -> (LocalDateTime) head.item().get("dueDate")));
+        for (Iterator<Map<String, Object>> source : sources) {
+            if (source.hasNext()) {
+                heads.add(new Head(source.next(), source));
+            }
+        }
+        List<Map<String, Object>> upcoming = new ArrayList<>();
+        while (!heads.isEmpty() && upcoming.size() < max) {
+            Head head = heads.poll();
+            upcoming.add(head.item());
+            if (head.source().hasNext()) {
+                heads.add(new Head(head.source().next(), head.source()));
+            }
+        }
+        return upcoming;
+    }
+
+    @Scheduled(fixedDelayString = "${crm.recurring-tasks.generator-interval-ms:300000}",
+            initialDelayString = "${crm.recurring-tasks.generator-initial-delay-ms:30000}")
+    public void materializeDueTemplates() {
+        LocalDateTime horizon = horizon();
+        while (true) {
+            List<Tasks> created = transactionTemplate.execute(status -> {
+                List<TaskTemplate> templates = taskTemplateRepository.lockDueForMaterialization(horizon,
+                        PageRequest.of(0, TEMPLATES_PER_TRANSACTION));
+                if (templates.isEmpty()) {
+                    return null;
+                }
+                List<Tasks> tasks = new ArrayList<>();
+                for (TaskTemplate template : templates) {
+                    tasks.addAll(materialize(template, horizon));
+                }
+                return tasks;
+            });
+            if (created == null) {
+                return;
+            }
+            created.forEach(taskService::onTaskSaved);
+        }
+    }
+
+    // Inserts the template's occurrences up to the horizon and moves its window forward
+    private List<Tasks> materialize(TaskTemplate template, LocalDateTime horizon) {
+        List<LocalDateTime> dueDates;
+        try {
+            dueDates = RecurrenceRule.parse(template.getRecurrence()).occurrences(template.getStartsAt(),
+                    template.getMaterializedThrough(), horizon, MAX_OCCURRENCES_PER_RUN);
+        } catch (IllegalArgumentException e) {
+            log.warn("Deactivating task template {} with an invalid recurrence rule: {}", template.getId(),
+                    e.getMessage());
+            template.setActive(false);
+            return List.of();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Tasks> tasks = new ArrayList<>();
+        for (LocalDateTime dueDate : dueDates) {
+            Tasks task = new Tasks();
+            task.setTitle(template.getTitle());
+            task.setDescription(template.getDescription());
+            task.setDueDate(dueDate);
+            task.setPriority(template.getPriority());
+            task.setStatus(TaskStatus.TODO);
+            task.setLead(template.getLead());
+            task.setClient(template.getClient());
+            task.setAssignedTo(template.getAssignedTo());
+            task.setAssignedBy(template.getCreatedBy());
+            task.setTemplateId(template.getId());
+            task.setCreatedAt(now);
+            task.setUpdatedAt(now);
+            task.setOverdue(false);
+            tasks.add(task);
+        }
+        for (int i = 0; i < tasks.size(); i += INSERT_CHUNK) {
+            taskBatchRepository.insertAll(tasks.subList(i, Math.min(i + INSERT_CHUNK, tasks.size())));
+        }
+        tasks.forEach(task -> outboxService.recordTask(DomainEvent.TASK_CREATED, task));
+        // A capped run resumes from its last occurrence on the next pass
+        template.setMaterializedThrough(dueDates.size() == MAX_OCCURRENCES_PER_RUN
+                ? dueDates.get(dueDates.size() - 1)
+                : horizon);
+        return tasks;
+    }
+
+    private List<Long> deleteFutureOccurrences(Long templateId, LocalDateTime now) {
+        List<Tasks> pending = taskRepository.findByTemplateIdAndStatusAndDueDateAfter(templateId, TaskStatus.TODO,
+                now);
+        pending.forEach(task -> outboxService.recordTask(DomainEvent.TASK_DELETED, task));
+        taskRepository.deleteAllInBatch(pending);
+        changeFeedService.recordDeletions(pending);
+        return pending.stream().map(Tasks::getId).toList();
+    }
+
+    private void apply(TaskTemplate template, TaskTemplateDTO templateDTO, Users currentUser) {
+        if (templateDTO.getTitle() == null || templateDTO.getTitle().isBlank()
+                || templateDTO.getDescription() == null || templateDTO.getDescription().isBlank()) {
+            throw new RuntimeException("Title and description are required");
+        }
+        if (templateDTO.getStartsAt() == null) {
+            throw new RuntimeException("Start date is required");
+        }
+        try {
+            RecurrenceRule.parse(templateDTO.getRecurrence());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+
+        Users assignedTo = currentUser;
+        if (templateDTO.getAssignedToId() != null) {
+            assignedTo = userRepository.findById(templateDTO.getAssignedToId())
+                    .orElseThrow(() -> new ResourceNotFoundException(
+                            "User not found with ID: " + templateDTO.getAssignedToId()));
+            if (!userService.isManagerOf(currentUser, assignedTo) && !assignedTo.getId().equals(currentUser.getId())) {
+                throw new RuntimeException("You cannot assign this task to this user");
+            }
+        }
+        Lead lead = null;
+        if (templateDTO.getLeadId() != null) {
+            lead = leadRepository.findById(templateDTO.getLeadId())
+                    .orElseThrow(() -> new ResourceNotFoundException(
+                            "Lead not found with ID: " + templateDTO.getLeadId()));
+        }
+        Client client = null;
+        if (templateDTO.getClientId() != null) {
+            client = clientRepository.findById(templateDTO.getClientId())
+                    .orElseThrow(() -> new ResourceNotFoundException(
+                            "Client not found with ID: " + templateDTO.getClientId()));
+        }
+
+        template.setTitle(templateDTO.getTitle());
+        template.setDescription(templateDTO.getDescription());
+        template.setPriority(templateDTO.getPriority() != null ? templateDTO.getPriority() : TaskPriority.MEDIUM);
+        template.setRecurrence(templateDTO.getRecurrence().trim());
+        template.setStartsAt(templateDTO.getStartsAt());
+        template.setAssignedTo(assignedTo);
+        template.setLead(lead);
+        template.setClient(client);
+    }
+
+    private TaskTemplate findEditableTemplate(Long id, Users currentUser) {
+        TaskTemplate template = taskTemplateRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Task template not found with ID: " + id));
+        boolean allowed = template.getCreatedBy().getId().equals(currentUser.getId())
+                || template.getAssignedTo().getId().equals(currentUser.getId())
+                || userService.isManagerOf(currentUser, template.getAssignedTo());
+        if (!allowed) {
+            throw new RuntimeException("Access denied: You are not authorized to modify this task template");
+        }
+        return template;
+    }
+
+    private LocalDateTime horizon() {
+        return LocalDateTime.now().plusDays(windowDays);
+    }
+
+    private Map<String, Object> toMap(TaskTemplate template) {
+        Map<String, Object> templateMap = new HashMap<>();
+        templateMap.put("id", template.getId());
+        templateMap.put("title", template.getTitle());
+        templateMap.put("description", template.getDescription());
+        templateMap.put("priority", template.getPriority());
+        templateMap.put("recurrence", template.getRecurrence());
+        templateMap.put("startsAt", template.getStartsAt());
+        templateMap.put("active", template.getActive());
+        templateMap.put("materializedThrough", template.getMaterializedThrough());
+        templateMap.put("leadId", template.getLead() != null ? template.getLead().getId() : null);
+        templateMap.put("clientId", template.getClient() != null ? template.getClient().getId() : null);
+        templateMap.put("assignedTo", template.getAssignedTo().getUsername());
+        templateMap.put("assignedToId", template.getAssignedTo().getId());
+        templateMap.put("createdBy", template.getCreatedBy().getUsername());
+        return templateMap;
+    }
+
+    private Map<String, Object> toUpcoming(Tasks task) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("id", task.getId());
+        item.put("templateId", task.getTemplateId());
+        item.put("title", task.getTitle());
+        item.put("dueDate", task.getDueDate());
+        item.put("priority", task.getPriority());
+        item.put("status", task.getStatus());
+        item.put("leadId", task.getLead() != null ? task.getLead().getId() : null);
+        item.put("clientId", task.getClient() != null ? task.getClient().getId() : null);
+        item.put("virtual", false);
+        return item;
+    }
+
+    private Map<String, Object> toUpcoming(TaskTemplate template, LocalDateTime dueDate) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("id", null);
+        item.put("templateId", template.getId());
+        item.put("title", template.getTitle());
+        item.put("dueDate", dueDate);
+        item.put("priority", template.getPriority());
+        item.put("status", TaskStatus.TODO);
+        item.put("leadId", template.getLead() != null ? template.getLead().getId() : null);
+        item.put("clientId", template.getClient() != null ? template.getClient().getId() : null);
+        item.put("virtual", true);
+        return item;
+    }
+}
@@ -1,14 +1,22 @@
 package com.sr.CRM.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -17,23 +25,64 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.sr.CRM.Config.ReplicaRead;
 import com.sr.CRM.Exception.ResourceNotFoundException;
 import com.sr.CRM.Model.Users;
 import com.sr.CRM.Model.DTO.UserDTO;
+import com.sr.CRM.Repository.OrgRollupRepository;
+import com.sr.CRM.Repository.ProjectionRepository;
 import com.sr.CRM.Repository.UserRepository;
+import com.sr.CRM.Util.AfterCommit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
 
-import jakarta.transaction.Transactional;
 
 @Service
 public class UserService {
 
+    // Second-level cache regions, declared in ehcache.xml
+    private static final String USER_REGION = "users";
+    private static final String USER_ROLES_REGION = "users-roles";
+    private static final String USER_QUERY_REGION = "users-queries";
+
+    // ?fields= names for the employee list; "roles" is loaded separately from user_roles
+    public static final Map<String, String> EMPLOYEE_FIELDS = Map.ofEntries(
+            Map.entry("id", "id"),
+            Map.entry("name", "name"),
+            Map.entry("email", "email"),
+            Map.entry("phoneNumber", "phoneNumber"),
+            Map.entry("address", "address"),
+            Map.entry("username", "username"),
+            Map.entry("position", "position"),
+            Map.entry("department", "department"),
+            Map.entry("managerId", "manager.id"),
+            Map.entry("managerName", "manager.name"),
+            Map.entry("roles", "roles"));
+
+    public static final List<String> DEFAULT_EMPLOYEE_FIELDS = List.of("id", "name", "email", "phoneNumber",
+            "address", "username", "position", "department", "managerId", "roles");
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private OrgRollupRepository orgRollupRepository;
+
+    @Autowired
+    private ProjectionRepository projectionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
     public UserService(PasswordEncoder passwordEncoder) {
         this.passwordEncoder = passwordEncoder;
     }
@@ -69,7 +118,10 @@ public class UserService {
             user.setDepartment(userDTO.getDepartment());
             user.setRoles(roles);
 
-            return userRepository.save(user);
+            Users saved = userRepository.save(user);
+            // Other nodes may hold a cached empty team or user lookup for this user
+            evictUser(saved.getId());
+            return saved;
         } catch (Exception e) {
             e.printStackTrace();
             throw new RuntimeException("Error adding Employee: " + e.getMessage());
@@ -100,7 +152,10 @@ public class UserService {
             user.setDepartment(userDTO.getDepartment());
             user.setRoles(roles);
 
-            return userRepository.save(user);
+            Users saved = userRepository.save(user);
+            // Other nodes may hold a cached empty team or user lookup for this user
+            evictUser(saved.getId());
+            return saved;
         } catch (Exception e) {
             e.printStackTrace();
             throw new RuntimeException("Error adding admin: " + e.getMessage());
@@ -118,8 +173,26 @@ public class UserService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
     }
 
+    // Directly or further up; the manager chain is loaded eagerly with the employee
     public boolean isManagerOf(Users manager, Users employee) {
-        return employee.getManager() != null && employee.getManager().getId().equals(manager.getId());
+        Users current = employee.getManager();
+        for (int depth = 0; current != null && depth < OrgRollupRepository.MAX_DEPTH; depth++) {
+            if (current.getId().equals(manager.getId())) {
+                return true;
+            }
+            current = current.getManager();
+        }
+        return false;
+    }
+
+    // Everyone reporting to the manager at any depth; routing and the employee picker stay on direct reports
+    public List<Users> getReportingSubtree(Users manager) {
+        return userRepository.findAllById(getReportingSubtreeIds(manager));
+    }
+
+    // The same subtree straight from the recursive CTE, for callers that only filter or check by id
+    public List<Long> getReportingSubtreeIds(Users manager) {
+        return orgRollupRepository.subtreeIds(manager.getId());
     }
 
     public List<Users> getEmployeesUnderManager(Users manager) {
@@ -141,16 +214,44 @@ public class UserService {
         }).collect(Collectors.toList());
     }
 
-    public List<Users> getAllEmployees() {
-        // return userRepository.findByRolesContains("ROLE_EMPLOYEE");
-        return userRepository.findAll();
+    /**
+     * Every user with only the requested fields, or {@link #DEFAULT_EMPLOYEE_FIELDS}. The
+     * password hash and the manager chain are never serialized; roles come from one extra
+     * query over the element collection.
+     */
+    @ReplicaRead
+    public List<Map<String, Object>> getAllEmployees(List<String> fields) {
+        List<String> selected = fields != null ? fields : DEFAULT_EMPLOYEE_FIELDS;
+        boolean withRoles = selected.contains("roles");
+        List<String> columns = new ArrayList<>(selected);
+        columns.remove("roles");
+        if (withRoles && !columns.contains("id")) {
+            columns.add("id");
+        }
+        List<Map<String, Object>> rows = projectionRepository
+                .findPage(Users.class, EMPLOYEE_FIELDS, columns, null, Pageable.unpaged(Sort.by("id")))
+                .getContent();
+        if (withRoles && !rows.isEmpty()) {
+            List<Long> ids = rows.stream().map(row -> (Long) row.get("id")).toList();
+            Map<Long, Set<String>> roles = new HashMap<>();
+            for (Object[] row : userRepository.findRolesByUserIds(ids)) {
+                roles.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((String) row[1]);
+            }
+            for (Map<String, Object> row : rows) {
+                row.put("roles", roles.getOrDefault((Long) row.get("id"), Set.of()));
+                if (!selected.contains("id")) {
+                    row.remove("id");
+                }
+            }
+        }
+        return rows;
     }
 
     public List<Users> getTeamMembers(Users currentUser) {
         if (!currentUser.getRoles().contains("ROLE_MANAGER")) {
             throw new RuntimeException("Access denied: only managers can view team members.");
         }
-        return userRepository.findByManager(currentUser);
+        return getReportingSubtree(currentUser);
     }
 
     // @Transactional
@@ -279,6 +380,7 @@ public class UserService {
                 employee.setManager(updatedEmployee.getManager());
 
             userRepository.save(employee);
+            evictUser(employee.getId());
             return ResponseEntity.ok("Employee updated successfully");
         } catch (DataIntegrityViolationException e) {
             e.printStackTrace();
@@ -301,6 +403,7 @@ public class UserService {
 
             // Delete related records to avoid foreign key constraints
             userRepository.deleteById(id); // Adjust based on actual related tables
+            evictUser(id);
             return ResponseEntity.ok("Employee deleted successfully");
         } catch (DataIntegrityViolationException e) {
             e.printStackTrace();
@@ -315,6 +418,59 @@ public class UserService {
         }
     }
 
+    /**
+     * Drops the user's cached row and roles, and every cached user query, once the write
+     * commits. Hibernate already keeps the cache in step with writes made through the
+     * session; this also covers JPQL updates and anything else that bypasses it.
+     */
+    public void evictUser(Long userId) {
+        invalidationBus.publish("user", userId);
+        AfterCommit.run(() -> evictLocally(userId));
+    }
+
+    @PostConstruct
+    void subscribeToRemoteWrites() {
+        invalidationBus.subscribe("user", this::evictLocally);
+        invalidationBus.onResync(() -> {
+            org.hibernate.Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+            cache.evictEntityData(Users.class);
+            cache.evictCollectionData(Users.class.getName() + ".roles");
+            cache.evictQueryRegion(USER_QUERY_REGION);
+        });
+    }
+
+    private void evictLocally(Long userId) {
+        org.hibernate.Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(Users.class, userId);
+        cache.evictCollectionData(Users.class.getName() + ".roles", userId);
+        cache.evictQueryRegion(USER_QUERY_REGION);
+    }
+
+    public Map<String, Object> getCacheStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("secondLevel", hitRatio(statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount()));
+        stats.put("queryCache", hitRatio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()));
+        for (String region : List.of(USER_REGION, USER_ROLES_REGION)) {
+            CacheRegionStatistics regionStats = statistics.getDomainDataRegionStatistics(region);
+            stats.put(region, hitRatio(regionStats.getHitCount(), regionStats.getMissCount()));
+        }
+        CacheRegionStatistics queryRegion = statistics.getQueryRegionStatistics(USER_QUERY_REGION);
+        stats.put(USER_QUERY_REGION, queryRegion != null
+                ? hitRatio(queryRegion.getHitCount(), queryRegion.getMissCount())
+                : hitRatio(0, 0));
+        return stats;
+    }
+
+    private static Map<String, Object> hitRatio(long hits, long misses) {
+        Map<String, Object> ratio = new LinkedHashMap<>();
+        ratio.put("hits", hits);
+        ratio.put("misses", misses);
+        ratio.put("hitRatio", hits + misses == 0 ? null : (double) hits / (hits + misses));
+        return ratio;
+    }
+
     private boolean isValidEmail(String email) {
         return email != null && email.matches("^[\\w-\\.]+@([\\w-]+\\.)+[\\w-]{2,4}$");
     }
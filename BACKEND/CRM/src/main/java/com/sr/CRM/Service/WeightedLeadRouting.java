@@ -0,0 +1,43 @@
+package com.sr.CRM.Service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.sr.CRM.Config.LeadRoutingProperties;
+import com.sr.CRM.Model.Users;
+
+/**
+ * Least-loaded routing where load is scaled by capacity: an employee with weight 2 is
+ * considered as busy as a weight-1 colleague when holding twice as many open leads.
+ */
+@Component("weighted")
+public class WeightedLeadRouting implements LeadRoutingStrategy {
+
+    @Autowired
+    private LeadRoutingProperties properties;
+
+    @Override
+    public Users choose(Long poolId, List<Users> candidates, LeadLoadCounters loads) {
+        Users chosen = null;
+        double chosenLoad = Double.MAX_VALUE;
+        for (Users candidate : candidates) {
+            double weight = weight(candidate);
+            if (weight <= 0) {
+                continue;
+            }
+            double load = (loads.openLeads(candidate.getId()) + 1) / weight;
+            if (load < chosenLoad || (load == chosenLoad && candidate.getId() < chosen.getId())) {
+                chosen = candidate;
+                chosenLoad = load;
+            }
+        }
+        return chosen != null ? chosen : candidates.get(0);
+    }
+
+    private double weight(Users user) {
+        return properties.getPositionWeights().getOrDefault(user.getPosition(), 1.0)
+                * properties.getDepartmentWeights().getOrDefault(user.getDepartment(), 1.0);
+    }
+}
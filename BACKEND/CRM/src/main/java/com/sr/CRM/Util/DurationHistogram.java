@@ -0,0 +1,48 @@
+package com.sr.CRM.Util;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Log-scale duration buckets: four per doubling of (hours + 1), so a reported percentile is
+ * within about 10% of the true value while a bucket set stays a few dozen entries long.
+ */
+public final class DurationHistogram {
+
+    private static final int BUCKETS_PER_DOUBLING = 4;
+
+    private DurationHistogram() {
+    }
+
+    public static int bucketOf(long seconds) {
+        double hours = Math.max(0, seconds) / 3600.0;
+        return (int) Math.floor(BUCKETS_PER_DOUBLING * log2(1 + hours));
+    }
+
+    // Geometric midpoint of the bucket, in days
+    public static double representativeDays(int bucket) {
+        double hours = Math.pow(2, (bucket + 0.5) / BUCKETS_PER_DOUBLING) - 1;
+        return hours / 24.0;
+    }
+
+    /** The {@code fraction} percentile (0.5 for the median) of a bucket -> count histogram. */
+    public static Double percentileDays(Map<Integer, Long> counts, double fraction) {
+        long total = counts.values().stream().mapToLong(Long::longValue).sum();
+        if (total == 0) {
+            return null;
+        }
+        long rank = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (Map.Entry<Integer, Long> bucket : new TreeMap<>(counts).entrySet()) {
+            seen += bucket.getValue();
+            if (seen >= rank) {
+                return Math.round(representativeDays(bucket.getKey()) * 100) / 100.0;
+            }
+        }
+        return null;
+    }
+
+    private static double log2(double value) {
+        return Math.log(value) / Math.log(2);
+    }
+}
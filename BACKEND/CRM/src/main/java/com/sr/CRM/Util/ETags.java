@@ -0,0 +1,34 @@
+package com.sr.CRM.Util;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String strong(Object... parts) {
+        StringBuilder tag = new StringBuilder("\"");
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                tag.append('-');
+            }
+            tag.append(parts[i]);
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Answers the request with 304 when If-None-Match matches; otherwise sets the ETag so the
+     * next poll can send it. "private, no-cache" replaces Spring Security's no-store default,
+     * which would stop browsers from keeping the body to revalidate.
+     */
+    public static boolean notModified(WebRequest request, String etag) {
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        }
+        return request.checkNotModified(etag);
+    }
+}
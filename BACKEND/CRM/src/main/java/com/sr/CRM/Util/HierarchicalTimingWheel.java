@@ -0,0 +1,186 @@
+package com.sr.CRM.Util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hierarchical timing wheel (Varghese &amp; Lauck): six levels of 64 slots, each level
+ * 64 times coarser than the one below. Scheduling and cancelling are O(1) list
+ * operations; timers on coarser levels are cascaded down as the wheel turns, so each
+ * timer moves at most once per level. Nothing polls: {@link #advance(long)} only
+ * visits the slots for the ticks that actually elapsed.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 6;
+    private static final long MAX_TICKS = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    public static final class Timeout<T> {
+        private final long deadlineTick;
+        private final T payload;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private Bucket<T> bucket;
+
+        private Timeout(long deadlineTick, T payload) {
+            this.deadlineTick = deadlineTick;
+            this.payload = payload;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+    }
+
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+
+        private void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        private void remove(Timeout<T> timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        private Timeout<T> drain() {
+            Timeout<T> drained = head;
+            head = null;
+            return drained;
+        }
+    }
+
+    private final long tickMillis;
+    private final Bucket<T>[][] wheels;
+    private final Bucket<T> due = new Bucket<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        this.wheels = new Bucket[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheels[level][slot] = new Bucket<>();
+            }
+        }
+    }
+
+    public Timeout<T> schedule(long deadlineMillis, T payload) {
+        lock.lock();
+        try {
+            long deadlineTick = Math.min(Math.max(deadlineMillis / tickMillis, currentTick), currentTick + MAX_TICKS);
+            Timeout<T> timeout = new Timeout<>(deadlineTick, payload);
+            place(timeout);
+            size++;
+            return timeout;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean cancel(Timeout<T> timeout) {
+        lock.lock();
+        try {
+            if (timeout.bucket == null) {
+                return false;
+            }
+            timeout.bucket.remove(timeout);
+            size--;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Turns the wheel up to {@code nowMillis} and returns the payloads of every timer
+     * that expired; callers run them outside the wheel's lock.
+     */
+    public List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        lock.lock();
+        try {
+            collect(due.drain(), expired);
+            while (currentTick < targetTick) {
+                currentTick++;
+                for (int level = 1; level < LEVELS; level++) {
+                    long levelShift = (long) SLOT_BITS * level;
+                    if ((currentTick & ((1L << levelShift) - 1)) != 0) {
+                        break;
+                    }
+                    Timeout<T> cascaded = wheels[level][(int) ((currentTick >>> levelShift) & SLOT_MASK)].drain();
+                    while (cascaded != null) {
+                        Timeout<T> next = cascaded.next;
+                        place(cascaded);
+                        cascaded = next;
+                    }
+                }
+                collect(wheels[0][(int) (currentTick & SLOT_MASK)].drain(), expired);
+                collect(due.drain(), expired);
+            }
+            return expired;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        long remaining = timeout.deadlineTick - currentTick;
+        if (remaining <= 0) {
+            due.add(timeout);
+            return;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && remaining >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) ((timeout.deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        wheels[level][slot].add(timeout);
+    }
+
+    private void collect(Timeout<T> timeout, List<T> expired) {
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            expired.add(timeout.payload);
+            size--;
+            timeout = next;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.sr.CRM.Util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Binary min-heap keyed by an id, with a position index so that a key's score can be
+ * changed or the key removed in O(log n). {@link #top(int)} reads the k smallest entries
+ * without disturbing the heap by exploring it best-first, which costs O(k log k) however
+ * large the heap is. Not thread-safe; callers guard each instance.
+ */
+public class IndexedPriorityHeap<K extends Comparable<K>> {
+
+    private final List<K> keys = new ArrayList<>();
+    private final List<Long> scores = new ArrayList<>();
+    private final Map<K, Integer> positions = new HashMap<>();
+
+    public void upsert(K key, long score) {
+        Integer position = positions.get(key);
+        if (position == null) {
+            keys.add(key);
+            scores.add(score);
+            positions.put(key, keys.size() - 1);
+            siftUp(keys.size() - 1);
+            return;
+        }
+        long previous = scores.get(position);
+        scores.set(position, score);
+        if (score < previous) {
+            siftUp(position);
+        } else if (score > previous) {
+            siftDown(position);
+        }
+    }
+
+    public boolean remove(K key) {
+        Integer position = positions.remove(key);
+        if (position == null) {
+            return false;
+        }
+        int last = keys.size() - 1;
+        if (position != last) {
+            move(last, position);
+            keys.remove(last);
+            scores.remove(last);
+            siftDown(position);
+            siftUp(position);
+        } else {
+            keys.remove(last);
+            scores.remove(last);
+        }
+        return true;
+    }
+
+    public boolean contains(K key) {
+        return positions.containsKey(key);
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public List<K> top(int k) {
+        List<K> result = new ArrayList<>(Math.min(k, keys.size()));
+        if (keys.isEmpty() || k <= 0) {
+            return result;
+        }
+        // Frontier of heap positions; a child can only be a candidate once its parent is taken
+        PriorityQueue<Integer> frontier = new PriorityQueue<>(this::compare);
+        frontier.add(0);
+        while (!frontier.isEmpty() && result.size() < k) {
+            int position = frontier.poll();
+            result.add(keys.get(position));
+            int left = 2 * position + 1;
+            if (left < keys.size()) {
+                frontier.add(left);
+            }
+            if (left + 1 < keys.size()) {
+                frontier.add(left + 1);
+            }
+        }
+        return result;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (compare(position, parent) >= 0) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        int size = keys.size();
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            if (left < size && compare(left, smallest) < 0) {
+                smallest = left;
+            }
+            if (left + 1 < size && compare(left + 1, smallest) < 0) {
+                smallest = left + 1;
+            }
+            if (smallest == position) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    // Ties on score fall back to the key so the order is stable between calls
+    private int compare(int a, int b) {
+        int byScore = Long.compare(scores.get(a), scores.get(b));
+        return byScore != 0 ? byScore : keys.get(a).compareTo(keys.get(b));
+    }
+
+    private void swap(int a, int b) {
+        K key = keys.get(a);
+        long score = scores.get(a);
+        keys.set(a, keys.get(b));
+        scores.set(a, scores.get(b));
+        keys.set(b, key);
+        scores.set(b, score);
+        positions.put(keys.get(a), a);
+        positions.put(keys.get(b), b);
+    }
+
+    private void move(int from, int to) {
+        keys.set(to, keys.get(from));
+        scores.set(to, scores.get(from));
+        positions.put(keys.get(to), to);
+    }
+}
@@ -0,0 +1,182 @@
+package com.sr.CRM.Util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The subset of RFC 5545 RRULE used by task templates: FREQ=DAILY|WEEKLY|MONTHLY with
+ * optional INTERVAL, BYDAY (weekly only), COUNT and UNTIL, e.g.
+ * {@code FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,TH;COUNT=10}. Occurrences keep the time of day
+ * of the start; monthly rules skip months that don't have the start's day of month.
+ */
+public class RecurrenceRule {
+
+    public enum Frequency {
+        DAILY, WEEKLY, MONTHLY
+    }
+
+    private static final DateTimeFormatter UNTIL_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter UNTIL_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final Frequency frequency;
+    private final int interval;
+    private final Set<DayOfWeek> byDay;
+    private final Integer count;
+    private final LocalDateTime until;
+
+    private RecurrenceRule(Frequency frequency, int interval, Set<DayOfWeek> byDay, Integer count,
+            LocalDateTime until) {
+        this.frequency = frequency;
+        this.interval = interval;
+        this.byDay = byDay;
+        this.count = count;
+        this.until = until;
+    }
+
+    public static RecurrenceRule parse(String rule) {
+        if (rule == null || rule.isBlank()) {
+            throw new IllegalArgumentException("Recurrence rule is required");
+        }
+        Frequency frequency = null;
+        int interval = 1;
+        Set<DayOfWeek> byDay = EnumSet.noneOf(DayOfWeek.class);
+        Integer count = null;
+        LocalDateTime until = null;
+
+        String body = rule.trim().startsWith("RRULE:") ? rule.trim().substring(6) : rule.trim();
+        try {
+            for (String part : body.split(";")) {
+                String[] pair = part.split("=", 2);
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("Invalid recurrence rule part: " + part);
+                }
+                String value = pair[1].trim().toUpperCase();
+                switch (pair[0].trim().toUpperCase()) {
+                    case "FREQ" -> frequency = Frequency.valueOf(value);
+                    case "INTERVAL" -> interval = Integer.parseInt(value);
+                    case "COUNT" -> count = Integer.parseInt(value);
+                    case "UNTIL" -> until = parseUntil(value);
+                    case "BYDAY" -> {
+                        for (String day : value.split(",")) {
+                            byDay.add(parseDay(day.trim()));
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("Unsupported recurrence rule part: " + pair[0]);
+                }
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid recurrence rule: " + rule);
+        }
+
+        if (frequency == null) {
+            throw new IllegalArgumentException("Recurrence rule must have a FREQ");
+        }
+        if (interval < 1 || (count != null && count < 1)) {
+            throw new IllegalArgumentException("INTERVAL and COUNT must be positive");
+        }
+        if (!byDay.isEmpty() && frequency != Frequency.WEEKLY) {
+            throw new IllegalArgumentException("BYDAY is only supported for WEEKLY rules");
+        }
+        return new RecurrenceRule(frequency, interval, byDay, count, until);
+    }
+
+    /**
+     * Occurrences of the rule starting at {@code start} that fall in {@code (after, through]},
+     * in order, at most {@code max} of them.
+     */
+    public List<LocalDateTime> occurrences(LocalDateTime start, LocalDateTime after, LocalDateTime through,
+            int max) {
+        List<LocalDateTime> result = new ArrayList<>();
+        LocalDateTime last = until != null && until.isBefore(through) ? until : through;
+        int emitted = 0;
+
+        // Without COUNT nothing before "after" matters, so start from the period that contains it
+        long period = count == null ? Math.max(0, periodsBetween(start, after) / interval - 1) : 0;
+        while (result.size() < max) {
+            List<LocalDateTime> candidates = candidates(start, period * interval);
+            if (candidates.isEmpty() && frequency != Frequency.MONTHLY) {
+                break;
+            }
+            for (LocalDateTime occurrence : candidates) {
+                if (occurrence.isBefore(start)) {
+                    continue;
+                }
+                if (occurrence.isAfter(last) || (count != null && emitted >= count)) {
+                    return result;
+                }
+                emitted++;
+                if (occurrence.isAfter(after)) {
+                    result.add(occurrence);
+                    if (result.size() >= max) {
+                        return result;
+                    }
+                }
+            }
+            period++;
+        }
+        return result;
+    }
+
+    private List<LocalDateTime> candidates(LocalDateTime start, long offset) {
+        switch (frequency) {
+            case DAILY:
+                return List.of(start.plusDays(offset));
+            case WEEKLY:
+                if (byDay.isEmpty()) {
+                    return List.of(start.plusWeeks(offset));
+                }
+                LocalDate weekStart = start.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                        .plusWeeks(offset);
+                List<LocalDateTime> days = new ArrayList<>();
+                for (DayOfWeek day : byDay) {
+                    days.add(weekStart.plusDays(day.getValue() - 1L).atTime(start.toLocalTime()));
+                }
+                return days;
+            default:
+                LocalDate month = start.toLocalDate().withDayOfMonth(1).plusMonths(offset);
+                if (start.getDayOfMonth() > month.lengthOfMonth()) {
+                    return List.of();
+                }
+                return List.of(month.withDayOfMonth(start.getDayOfMonth()).atTime(start.toLocalTime()));
+        }
+    }
+
+    private long periodsBetween(LocalDateTime start, LocalDateTime after) {
+        if (!after.isAfter(start)) {
+            return 0;
+        }
+        return switch (frequency) {
+            case DAILY -> ChronoUnit.DAYS.between(start, after);
+            case WEEKLY -> ChronoUnit.WEEKS.between(start, after);
+            case MONTHLY -> ChronoUnit.MONTHS.between(start, after);
+        };
+    }
+
+    private static LocalDateTime parseUntil(String value) {
+        String trimmed = value.endsWith("Z") ? value.substring(0, value.length() - 1) : value;
+        return trimmed.contains("T") ? LocalDateTime.parse(trimmed, UNTIL_DATE_TIME)
+                : LocalDate.parse(trimmed, UNTIL_DATE).atTime(23, 59, 59);
+    }
+
+    private static DayOfWeek parseDay(String day) {
+        return switch (day) {
+            case "MO" -> DayOfWeek.MONDAY;
+            case "TU" -> DayOfWeek.TUESDAY;
+            case "WE" -> DayOfWeek.WEDNESDAY;
+            case "TH" -> DayOfWeek.THURSDAY;
+            case "FR" -> DayOfWeek.FRIDAY;
+            case "SA" -> DayOfWeek.SATURDAY;
+            case "SU" -> DayOfWeek.SUNDAY;
+            default -> throw new IllegalArgumentException("Invalid BYDAY value: " + day);
+        };
+    }
+}
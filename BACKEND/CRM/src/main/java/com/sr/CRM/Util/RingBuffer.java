@@ -0,0 +1,97 @@
+package com.sr.CRM.Util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed-size log of the most recent items, each numbered with an increasing sequence
+ * starting at 1. Appends never block; once full, the oldest item is overwritten. Readers
+ * keep their own position and can wait for items after it.
+ */
+public class RingBuffer<T> {
+
+    public record Entry<T>(long sequence, T item) {
+    }
+
+    private final Object[] slots;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private long last;
+
+    public RingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.slots = new Object[capacity];
+    }
+
+    public long append(T item) {
+        lock.lock();
+        try {
+            last++;
+            slots[(int) (last % slots.length)] = item;
+            appended.signalAll();
+            return last;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long lastSequence() {
+        lock.lock();
+        try {
+            return last;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Sequence of the oldest item still held
+    public long oldestSequence() {
+        lock.lock();
+        try {
+            return Math.max(1, last - slots.length + 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Up to {@code max} items with sequence greater than {@code after}, oldest first. Items
+     * already overwritten are skipped; compare with {@link #oldestSequence()} to detect that.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Entry<T>> readAfter(long after, int max) {
+        lock.lock();
+        try {
+            List<Entry<T>> entries = new ArrayList<>();
+            long from = Math.max(after + 1, Math.max(1, last - slots.length + 1));
+            for (long sequence = from; sequence <= last && entries.size() < max; sequence++) {
+                entries.add(new Entry<>(sequence, (T) slots[(int) (sequence % slots.length)]));
+            }
+            return entries;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // True once an item after {@code after} exists, false if the timeout passes first
+    public boolean awaitAfter(long after, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (last <= after) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = appended.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
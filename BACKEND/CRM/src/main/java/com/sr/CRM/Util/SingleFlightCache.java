@@ -0,0 +1,129 @@
+package com.sr.CRM.Util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Coalesces concurrent reads of the same key into one computation and keeps the result for a
+ * short TTL. Callers that find an in-flight or fresh entry never take a lock; only the caller
+ * that installs a new entry (via CAS on the map) runs the loader. Expired entries are swept at
+ * most once per TTL by a caller that is about to load anyway, so keys that are never read again
+ * do not stay in the map.
+ */
+public class SingleFlightCache {
+
+    private static final class Entry {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private volatile long completedAt;
+
+        private boolean isUsable(long now, long ttlNanos) {
+            return !result.isDone() || now - completedAt < ttlNanos;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+    private final Counter executed;
+    private final Counter coalesced;
+    private final Counter cached;
+
+    public SingleFlightCache(String name, long ttlMillis, MeterRegistry meterRegistry) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.executed = counter(meterRegistry, name, "executed");
+        this.coalesced = counter(meterRegistry, name, "coalesced");
+        this.cached = counter(meterRegistry, name, "cached");
+    }
+
+    public <T> T get(String key, Supplier<T> loader) {
+        return get(key, loader, value -> true);
+    }
+
+    // A value that fails keepIf still reaches the callers already waiting for it, but is not kept for the TTL
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader, Predicate<T> keepIf) {
+        while (true) {
+            Entry current = entries.get(key);
+            if (current != null && current.isUsable(System.nanoTime(), ttlNanos)) {
+                (current.result.isDone() ? cached : coalesced).increment();
+                return (T) await(current);
+            }
+
+            Entry mine = new Entry();
+            boolean installed = current == null
+                    ? entries.putIfAbsent(key, mine) == null
+                    : entries.replace(key, current, mine);
+            if (!installed) {
+                continue;
+            }
+
+            executed.increment();
+            sweepExpired();
+            try {
+                T value = loader.get();
+                mine.completedAt = System.nanoTime();
+                mine.result.complete(value);
+                if (!keepIf.test(value)) {
+                    entries.remove(key, mine);
+                }
+                return value;
+            } catch (Throwable e) {
+                // Whatever the loader threw, waiters must be released and the next caller must retry
+                entries.remove(key, mine);
+                mine.result.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    public void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public void invalidateIf(Predicate<String> keyFilter) {
+        entries.keySet().removeIf(keyFilter);
+    }
+
+    private void sweepExpired() {
+        long now = System.nanoTime();
+        long last = lastSweep.get();
+        if (now - last < ttlNanos || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        // In-flight entries are usable by definition, so only completed and expired ones go
+        entries.values().removeIf(entry -> !entry.isUsable(now, ttlNanos));
+    }
+
+    private static Object await(Entry entry) {
+        try {
+            return entry.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String outcome) {
+        return Counter.builder("crm.singleflight.calls")
+                .tag("cache", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
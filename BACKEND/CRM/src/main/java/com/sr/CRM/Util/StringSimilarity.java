@@ -0,0 +1,77 @@
+package com.sr.CRM.Util;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+public final class StringSimilarity {
+
+    private static final double WINKLER_PREFIX_SCALE = 0.1;
+    private static final int WINKLER_MAX_PREFIX = 4;
+
+    private StringSimilarity() {
+    }
+
+    /** Jaro-Winkler similarity in [0, 1]; 1 means identical. */
+    public static double jaroWinkler(String a, String b) {
+        if (a.equals(b)) {
+            return 1.0;
+        }
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0.0;
+        }
+        int window = Math.max(0, Math.max(a.length(), b.length()) / 2 - 1);
+        boolean[] aMatched = new boolean[a.length()];
+        boolean[] bMatched = new boolean[b.length()];
+
+        int matches = 0;
+        for (int i = 0; i < a.length(); i++) {
+            int from = Math.max(0, i - window);
+            int to = Math.min(b.length() - 1, i + window);
+            for (int j = from; j <= to; j++) {
+                if (!bMatched[j] && a.charAt(i) == b.charAt(j)) {
+                    aMatched[i] = true;
+                    bMatched[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0.0;
+        }
+
+        int transpositions = 0;
+        int j = 0;
+        for (int i = 0; i < a.length(); i++) {
+            if (!aMatched[i]) {
+                continue;
+            }
+            while (!bMatched[j]) {
+                j++;
+            }
+            if (a.charAt(i) != b.charAt(j)) {
+                transpositions++;
+            }
+            j++;
+        }
+
+        double m = matches;
+        double jaro = (m / a.length() + m / b.length() + (m - transpositions / 2.0) / m) / 3.0;
+        int prefix = 0;
+        while (prefix < Math.min(WINKLER_MAX_PREFIX, Math.min(a.length(), b.length()))
+                && a.charAt(prefix) == b.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * WINKLER_PREFIX_SCALE * (1 - jaro);
+    }
+
+    /** Character trigrams of the string padded with one space on each side. */
+    public static Set<String> trigrams(String value) {
+        Set<String> grams = new LinkedHashSet<>();
+        String padded = " " + value + " ";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+}
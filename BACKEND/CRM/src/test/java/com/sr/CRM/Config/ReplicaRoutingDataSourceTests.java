@@ -0,0 +1,236 @@
+package com.sr.CRM.Config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Two independent databases, each holding its own name, so every read shows where it was routed
+@Testcontainers(disabledWithoutDocker = true)
+class ReplicaRoutingDataSourceTests {
+
+	@Container
+	static final PostgreSQLContainer<?> PRIMARY = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@Container
+	static final PostgreSQLContainer<?> REPLICA = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static DataSource primary;
+	private static DataSource replica;
+
+	@BeforeAll
+	static void createMarkers() {
+		primary = dataSource(PRIMARY);
+		replica = dataSource(REPLICA);
+		new JdbcTemplate(primary).execute("CREATE TABLE node (name TEXT); INSERT INTO node VALUES ('primary')");
+		new JdbcTemplate(replica).execute("CREATE TABLE node (name TEXT); INSERT INTO node VALUES ('replica')");
+		new JdbcTemplate(primary).execute("CREATE TABLE note (text TEXT PRIMARY KEY)");
+		new JdbcTemplate(replica).execute("CREATE TABLE note (text TEXT PRIMARY KEY)");
+	}
+
+	@AfterEach
+	void clearCaller() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void replicaReadsOfACallerGoToTheReplica() {
+		Routing routing = new Routing(new ReplicaRoutingDataSource(primary, replica, 60_000, 60_000));
+		signIn("alice");
+
+		assertEquals("replica", replicaRead(() -> routing.read(true)));
+		assertEquals("primary", replicaRead(() -> routing.read(false)));
+	}
+
+	// Spring Data's own readOnly repository transactions carry no marker
+	@Test
+	void unmarkedReadOnlyTransactionsStayOnThePrimary() {
+		Routing routing = new Routing(new ReplicaRoutingDataSource(primary, replica, 60_000, 60_000));
+		signIn("alice");
+
+		assertEquals("primary", routing.read(true));
+	}
+
+	@Test
+	void readsWithoutACallerStayOnThePrimary() {
+		Routing routing = new Routing(new ReplicaRoutingDataSource(primary, replica, 60_000, 60_000));
+
+		assertEquals("primary", replicaRead(() -> routing.read(true)));
+	}
+
+	@Test
+	void callerReadsTheirOwnWritesFromThePrimary() {
+		Routing routing = new Routing(new ReplicaRoutingDataSource(primary, replica, 60_000, 60_000));
+		signIn("alice");
+		routing.read(false);
+
+		assertEquals("primary", replicaRead(() -> routing.read(true)));
+		signIn("bob");
+		assertEquals("replica", replicaRead(() -> routing.read(true)));
+	}
+
+	@Test
+	void readYourWritesWindowExpires() throws InterruptedException {
+		Routing routing = new Routing(new ReplicaRoutingDataSource(primary, replica, 100, 60_000));
+		signIn("alice");
+		routing.read(false);
+		Thread.sleep(200);
+
+		assertEquals("replica", replicaRead(() -> routing.read(true)));
+	}
+
+	@Test
+	void unreachableReplicaFallsBackToThePrimary() {
+		DataSource unreachable = new DriverManagerDataSource("jdbc:postgresql://127.0.0.1:1/none", "none", "none");
+		Routing routing = new Routing(new ReplicaRoutingDataSource(primary, unreachable, 60_000, 60_000));
+		signIn("alice");
+
+		assertEquals("primary", replicaRead(() -> routing.read(true)));
+	}
+
+	// One open-in-view session per request: a replica read first must not leave its connection for the write
+	@Test
+	void writeAfterAReplicaReadInTheSameSessionGoesToThePrimary() {
+		JpaRouting routing = new JpaRouting(new ReplicaRoutingDataSource(primary, replica, 60_000, 60_000));
+		signIn("alice");
+		try {
+			routing.inOpenSession(() -> {
+				assertEquals("replica", replicaRead(() -> routing.read(true)));
+				assertEquals("primary", routing.read(true));
+				routing.write("from-the-session");
+				assertEquals("primary", routing.read(false));
+			});
+		} finally {
+			routing.close();
+		}
+
+		assertEquals(1, count(primary, "from-the-session"));
+		assertEquals(0, count(replica, "from-the-session"));
+	}
+
+	private static <T> T replicaRead(Supplier<T> read) {
+		boolean alreadyMarked = ReplicaRoutingDataSource.markReplicaRead();
+		try {
+			return read.get();
+		} finally {
+			ReplicaRoutingDataSource.clearReplicaRead(alreadyMarked);
+		}
+	}
+
+	private static int count(DataSource dataSource, String text) {
+		return new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM note WHERE text = ?", Integer.class,
+				text);
+	}
+
+	private static void signIn(String username) {
+		SecurityContextHolder.getContext()
+				.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(username, null, null));
+	}
+
+	private static DataSource dataSource(PostgreSQLContainer<?> container) {
+		return new DriverManagerDataSource(container.getJdbcUrl(), container.getUsername(), container.getPassword());
+	}
+
+	// Wired like ReplicaDataSourceConfig: the lazy proxy defers the routing decision to the first statement
+	private static final class Routing {
+		private final JdbcTemplate jdbcTemplate;
+		private final DataSourceTransactionManager transactionManager;
+
+		private Routing(ReplicaRoutingDataSource routingDataSource) {
+			DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+			jdbcTemplate = new JdbcTemplate(dataSource);
+			transactionManager = new DataSourceTransactionManager(dataSource);
+		}
+
+		private String read(boolean readOnly) {
+			TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+			transaction.setReadOnly(readOnly);
+			return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+		}
+	}
+
+	// Wired like the application: Hibernate over the lazy proxy, with ReplicaDataSourceConfig's connection handling
+	private static final class JpaRouting {
+		private final EntityManagerFactory entityManagerFactory;
+		private final EntityManager entityManager;
+		private final JpaTransactionManager transactionManager;
+
+		private JpaRouting(ReplicaRoutingDataSource routingDataSource) {
+			LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+			factory.setDataSource(new LazyConnectionDataSourceProxy(routingDataSource));
+			factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+			factory.setManagedTypes(PersistenceManagedTypes.of(Note.class.getName()));
+			new ReplicaDataSourceConfig().replicaConnectionHandling().customize(factory.getJpaPropertyMap());
+			factory.afterPropertiesSet();
+			entityManagerFactory = factory.getObject();
+			entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+			transactionManager = new JpaTransactionManager(entityManagerFactory);
+		}
+
+		// What OpenEntityManagerInViewInterceptor does around a request
+		private void inOpenSession(Runnable request) {
+			EntityManager session = entityManagerFactory.createEntityManager();
+			TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(session));
+			try {
+				request.run();
+			} finally {
+				TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+				session.close();
+			}
+		}
+
+		private String read(boolean readOnly) {
+			TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+			transaction.setReadOnly(readOnly);
+			return transaction.execute(status -> (String) entityManager.createNativeQuery("SELECT name FROM node")
+					.getSingleResult());
+		}
+
+		private void write(String text) {
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+				Note note = new Note();
+				note.text = text;
+				entityManager.persist(note);
+			});
+		}
+
+		private void close() {
+			entityManagerFactory.close();
+		}
+	}
+
+	@Entity
+	@Table(name = "note")
+	static class Note {
+		@Id
+		String text;
+	}
+}
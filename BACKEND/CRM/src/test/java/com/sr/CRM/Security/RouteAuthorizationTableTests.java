@@ -0,0 +1,149 @@
+package com.sr.CRM.Security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+class RouteAuthorizationTableTests {
+
+	private static final int ADMIN = RouteAuthorizationTable.ROLE_ADMIN;
+	private static final int MANAGER = RouteAuthorizationTable.ROLE_MANAGER;
+	private static final int EMPLOYEE = RouteAuthorizationTable.ROLE_EMPLOYEE;
+
+	@Test
+	void literalSegmentWinsOverAVariable() {
+		RouteAuthorizationTable table = new RouteAuthorizationTable();
+		table.register("/api/Leads/{id}", Set.of(RequestMethod.GET), EMPLOYEE);
+		table.register("/api/Leads/pending", Set.of(RequestMethod.GET), MANAGER);
+
+		assertEquals(MANAGER, table.resolve("GET", "/api/Leads/pending"));
+		assertEquals(EMPLOYEE, table.resolve("GET", "/api/Leads/42"));
+	}
+
+	@Test
+	void literalBranchWithoutTheRestOfThePathFallsBackToTheVariable() {
+		RouteAuthorizationTable table = new RouteAuthorizationTable();
+		table.register("/api/x/{id}", Set.of(RequestMethod.GET), EMPLOYEE);
+		table.register("/api/x/literal/children", Set.of(RequestMethod.GET), ADMIN);
+
+		assertEquals(EMPLOYEE, table.resolve("GET", "/api/x/literal"));
+		assertEquals(ADMIN, table.resolve("GET", "/api/x/literal/children"));
+	}
+
+	@Test
+	void literalRouteWithoutTheMethodFallsBackToTheVariable() {
+		RouteAuthorizationTable table = new RouteAuthorizationTable();
+		table.register("/api/x/{id}", Set.of(RequestMethod.DELETE), ADMIN);
+		table.register("/api/x/literal", Set.of(RequestMethod.GET), EMPLOYEE);
+
+		assertEquals(ADMIN, table.resolve("DELETE", "/api/x/literal"));
+		assertEquals(EMPLOYEE, table.resolve("GET", "/api/x/literal"));
+	}
+
+	@Test
+	void backtracksThroughSeveralLevels() {
+		RouteAuthorizationTable table = new RouteAuthorizationTable();
+		table.register("/api/{kind}/{id}/notes", Set.of(RequestMethod.GET), MANAGER);
+		table.register("/api/Leads/{id}", Set.of(RequestMethod.GET), EMPLOYEE);
+
+		assertEquals(MANAGER, table.resolve("GET", "/api/Leads/7/notes"));
+	}
+
+	@Test
+	void unmappedPathsAndMethodsResolveToUnmapped() {
+		RouteAuthorizationTable table = new RouteAuthorizationTable();
+		table.register("/api/Leads/{id}", Set.of(RequestMethod.GET), EMPLOYEE);
+
+		assertEquals(RouteAuthorizationTable.UNMAPPED, table.resolve("GET", "/api/Leads"));
+		assertEquals(RouteAuthorizationTable.UNMAPPED, table.resolve("GET", "/api/Leads/7/extra"));
+		assertEquals(RouteAuthorizationTable.UNMAPPED, table.resolve("POST", "/api/Leads/7"));
+		assertEquals(RouteAuthorizationTable.UNMAPPED, table.resolve("TRACE", "/api/Leads/7"));
+		assertEquals(RouteAuthorizationTable.UNMAPPED, table.resolve("GET", "/other"));
+	}
+
+	@Test
+	void getAlsoCoversHeadAndNoMethodCoversAll() {
+		RouteAuthorizationTable table = new RouteAuthorizationTable();
+		table.register("/api/a", Set.of(RequestMethod.GET), EMPLOYEE);
+		table.register("/api/b", Set.of(), MANAGER);
+
+		assertEquals(EMPLOYEE, table.resolve("HEAD", "/api/a"));
+		assertEquals(MANAGER, table.resolve("DELETE", "/api/b"));
+		assertEquals(MANAGER, table.resolve("PATCH", "/api/b"));
+	}
+
+	@Test
+	void emptyAndTrailingSegmentsAreIgnored() {
+		RouteAuthorizationTable table = new RouteAuthorizationTable();
+		table.register("/api/admin//deleteEmployee/{id}", Set.of(RequestMethod.DELETE), ADMIN);
+
+		assertEquals(ADMIN, table.resolve("DELETE", "/api/admin/deleteEmployee/3"));
+		assertEquals(ADMIN, table.resolve("DELETE", "/api/admin/deleteEmployee/3/"));
+	}
+
+	@Test
+	void roleExpressionsCompileToMasks() {
+		assertEquals(ADMIN, RouteAuthorizationTable.parseExpression("hasRole('ADMIN')"));
+		assertEquals(ADMIN, RouteAuthorizationTable.parseExpression("hasRole('ROLE_ADMIN')"));
+		assertEquals(EMPLOYEE | MANAGER | ADMIN,
+				RouteAuthorizationTable.parseExpression("hasAnyRole('EMPLOYEE', \"MANAGER\",'ADMIN')"));
+	}
+
+	// Left to method security, which still evaluates the full expression
+	@Test
+	void richerExpressionsOnlyRequireAuthenticationHere() {
+		int authenticated = RouteAuthorizationTable.AUTHENTICATED;
+		assertEquals(authenticated, RouteAuthorizationTable.parseExpression("isAuthenticated()"));
+		assertEquals(authenticated, RouteAuthorizationTable.parseExpression("hasRole('ADMIN') and #id == 1"));
+		assertEquals(authenticated, RouteAuthorizationTable.parseExpression("hasRole('AUDITOR')"));
+	}
+
+	@Test
+	void roleMaskIgnoresUnknownAuthorities() {
+		assertEquals(MANAGER | EMPLOYEE, RouteAuthorizationTable.roleMask(List.of(
+				new SimpleGrantedAuthority("ROLE_MANAGER"), new SimpleGrantedAuthority("ROLE_EMPLOYEE"),
+				new SimpleGrantedAuthority("ROLE_AUDITOR"))));
+		assertEquals(0, RouteAuthorizationTable.roleMask(List.of()));
+	}
+
+	@Test
+	void compileAppliesAnnotationsAndDeniesHandlersWithoutOne() throws NoSuchMethodException {
+		Handlers handlers = new Handlers();
+		Map<RequestMappingInfo, HandlerMethod> mappings = new LinkedHashMap<>();
+		mappings.put(RequestMappingInfo.paths("/api/admin/users").methods(RequestMethod.GET).build(),
+				new HandlerMethod(handlers, "adminOnly"));
+		mappings.put(RequestMappingInfo.paths("/api/open").methods(RequestMethod.GET).build(),
+				new HandlerMethod(handlers, "unannotated"));
+		mappings.put(RequestMappingInfo.paths("/api/users/me").methods(RequestMethod.GET).build(),
+				new HandlerMethod(handlers, "unannotated"));
+		mappings.put(RequestMappingInfo.paths("/api/auth/login").methods(RequestMethod.POST).build(),
+				new HandlerMethod(handlers, "unannotated"));
+
+		RouteAuthorizationTable table = RouteAuthorizationTable.compile(mappings, Set.of("/api/auth/login"),
+				Set.of("/api/users/me"));
+
+		assertEquals(ADMIN, table.resolve("GET", "/api/admin/users"));
+		assertEquals(RouteAuthorizationTable.UNMAPPED, table.resolve("GET", "/api/open"));
+		assertEquals(RouteAuthorizationTable.AUTHENTICATED, table.resolve("GET", "/api/users/me"));
+		assertEquals(RouteAuthorizationTable.PUBLIC, table.resolve("POST", "/api/auth/login"));
+	}
+
+	static class Handlers {
+		@PreAuthorize("hasRole('ADMIN')")
+		public void adminOnly() {
+		}
+
+		public void unannotated() {
+		}
+	}
+}
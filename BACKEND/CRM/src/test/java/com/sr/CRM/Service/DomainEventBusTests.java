@@ -0,0 +1,76 @@
+package com.sr.CRM.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.sr.CRM.Events.DomainEvent;
+
+class DomainEventBusTests {
+
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	@AfterEach
+	void shutDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void failureHoldsBackTheRestOfItsAggregateOnly() throws InterruptedException {
+		DomainEventBus bus = bus();
+		Set<Long> seen = ConcurrentHashMap.newKeySet();
+		bus.subscribe(DomainEventBus.ALL, "test", event -> {
+			seen.add(event.id());
+			if (event.id() == 1L) {
+				throw new IllegalStateException("boom");
+			}
+		});
+
+		DomainEventBus.DeliveryResult result = bus.deliver(List.of(event(1, "lead", 7), event(2, "lead", 7),
+				event(3, "lead", 8), event(4, "task", 7)));
+
+		assertEquals(List.of(3L, 4L), result.delivered());
+		assertEquals(Set.of(1L), result.failed().keySet());
+		assertEquals(Set.of(1L, 3L, 4L), seen);
+	}
+
+	@Test
+	void everyConsumerRunsEvenAfterOneThrows() throws InterruptedException {
+		DomainEventBus bus = bus();
+		Set<String> ran = ConcurrentHashMap.newKeySet();
+		bus.subscribe(DomainEvent.LEAD_CREATED, "first", event -> {
+			ran.add("first");
+			throw new IllegalStateException("boom");
+		});
+		bus.subscribe(DomainEventBus.ALL, "second", event -> ran.add("second"));
+		bus.subscribe(DomainEvent.TASK_CREATED, "other", event -> ran.add("other"));
+
+		DomainEventBus.DeliveryResult result = bus.deliver(List.of(event(1, "lead", 7)));
+
+		assertEquals(Set.of("first", "second"), ran);
+		assertEquals(List.of(), result.delivered());
+		assertEquals(Set.of(1L), result.failed().keySet());
+	}
+
+	private DomainEventBus bus() {
+		DomainEventBus bus = new DomainEventBus();
+		ReflectionTestUtils.setField(bus, "virtualThreadExecutor", executor);
+		ReflectionTestUtils.setField(bus, "parallelism", 4);
+		return bus;
+	}
+
+	private static DomainEvent event(long id, String aggregateType, long aggregateId) {
+		String type = aggregateType.equals("lead") ? DomainEvent.LEAD_CREATED : DomainEvent.TASK_CREATED;
+		return new DomainEvent(id, type, aggregateType, aggregateId, Map.of(), LocalDateTime.now(), 1);
+	}
+}
@@ -0,0 +1,140 @@
+package com.sr.CRM.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Two buses on one database stand in for two backend nodes
+@Testcontainers(disabledWithoutDocker = true)
+class InvalidationBusTests {
+
+	@Container
+	static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final List<InvalidationBus> buses = new CopyOnWriteArrayList<>();
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(),
+				POSTGRES.getPassword()));
+	}
+
+	@AfterEach
+	void shutDown() {
+		buses.forEach(InvalidationBus::destroy);
+		executor.shutdownNow();
+	}
+
+	@Test
+	void invalidationReachesTheOtherNodeButNotTheSender() throws InterruptedException {
+		InvalidationBus first = bus();
+		InvalidationBus second = bus();
+		Set<Long> seenByFirst = ConcurrentHashMap.newKeySet();
+		Set<Long> seenBySecond = ConcurrentHashMap.newKeySet();
+		first.subscribe("lead", seenByFirst::add);
+		second.subscribe("lead", seenBySecond::add);
+		first.start();
+		second.start();
+		awaitListening(first, seenBySecond);
+
+		first.publish("lead", 42L);
+
+		assertTrue(await(() -> seenBySecond.contains(42L)));
+		assertEquals(Set.of(), seenByFirst);
+	}
+
+	@Test
+	void broadcastReachesTheOtherNode() throws InterruptedException {
+		InvalidationBus first = bus();
+		InvalidationBus second = bus();
+		Set<Long> ready = ConcurrentHashMap.newKeySet();
+		List<String> messages = new CopyOnWriteArrayList<>();
+		second.subscribe("lead", ready::add);
+		second.onBroadcast("live", messages::add);
+		first.start();
+		second.start();
+		awaitListening(first, ready);
+
+		first.broadcast("live", "{\"type\":\"task.assigned\"}");
+
+		assertTrue(await(() -> messages.contains("{\"type\":\"task.assigned\"}")));
+	}
+
+	@Test
+	void lostListenerReconnectsAndResyncs() throws InterruptedException {
+		InvalidationBus first = bus();
+		InvalidationBus second = bus();
+		Set<Long> seenBySecond = ConcurrentHashMap.newKeySet();
+		CountDownLatch resynced = new CountDownLatch(1);
+		second.subscribe("lead", seenBySecond::add);
+		second.onResync(resynced::countDown);
+		first.start();
+		second.start();
+		awaitListening(first, seenBySecond);
+
+		jdbcTemplate.queryForList("SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE application_name = ?",
+				InvalidationBus.LISTENER_APPLICATION_NAME);
+
+		assertTrue(resynced.await(10, TimeUnit.SECONDS));
+		seenBySecond.clear();
+		awaitListening(first, seenBySecond);
+	}
+
+	private InvalidationBus bus() {
+		DataSourceProperties properties = new DataSourceProperties();
+		properties.setUrl(POSTGRES.getJdbcUrl());
+		properties.setUsername(POSTGRES.getUsername());
+		properties.setPassword(POSTGRES.getPassword());
+		InvalidationBus bus = new InvalidationBus(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(bus, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(bus, "dataSourceProperties", properties);
+		ReflectionTestUtils.setField(bus, "virtualThreadExecutor", executor);
+		ReflectionTestUtils.setField(bus, "listen", true);
+		buses.add(bus);
+		return bus;
+	}
+
+	// LISTEN runs asynchronously after start(); keep publishing a marker until the receiver has one
+	private static void awaitListening(InvalidationBus sender, Set<Long> receiverSeen) throws InterruptedException {
+		assertTrue(await(() -> {
+			sender.publish("lead", -1L);
+			return receiverSeen.contains(-1L);
+		}));
+		receiverSeen.remove(-1L);
+	}
+
+	private static boolean await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (System.nanoTime() < deadline) {
+			if (condition.getAsBoolean()) {
+				return true;
+			}
+			Thread.sleep(100);
+		}
+		return false;
+	}
+}
@@ -0,0 +1,173 @@
+package com.sr.CRM.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sr.CRM.Model.Lead;
+import com.sr.CRM.Model.Lead.LeadStatus;
+import com.sr.CRM.Model.Tasks;
+import com.sr.CRM.Model.Tasks.TaskPriority;
+import com.sr.CRM.Model.Tasks.TaskStatus;
+import com.sr.CRM.Model.Users;
+import com.sr.CRM.Repository.LeadRepository;
+import com.sr.CRM.Repository.TaskRepository;
+import com.sr.CRM.Service.LeadScoringEngine.ScoredLead;
+
+class LeadScoringEngineTests {
+
+	private final LeadRepository leadRepository = mock(LeadRepository.class);
+	private final TaskRepository taskRepository = mock(TaskRepository.class);
+	private final LeadScoringEngine engine = engine();
+
+	@Test
+	void scoreAddsStagePendingConversionCompanyAndTasks() {
+		Users owner = user(1L, null);
+		Lead lead = lead(10L, LeadStatus.QUALIFIED, "Acme", owner);
+		lead.setConversionStatus("PENDING");
+		engine.onLeadSaved(lead);
+		assertEquals(75, scoreOf(10L));
+
+		engine.onTaskSaved(task(100L, lead, TaskPriority.URGENT, TaskStatus.TODO));
+		engine.onTaskSaved(task(101L, lead, TaskPriority.LOW, TaskStatus.IN_PROGRESS));
+		engine.onTaskSaved(task(102L, lead, TaskPriority.HIGH, TaskStatus.DONE));
+		assertEquals(75 + 8 + 1 + 4, scoreOf(10L));
+
+		engine.onTaskDeleted(100L);
+		engine.onTaskSaved(task(101L, lead, TaskPriority.LOW, TaskStatus.DONE));
+		assertEquals(75 + 4 + 4, scoreOf(10L));
+	}
+
+	@Test
+	void doneTasksCountUpToALimit() {
+		Lead lead = lead(10L, LeadStatus.NEW, null, user(1L, null));
+		engine.onLeadSaved(lead);
+		for (long id = 100; id < 115; id++) {
+			engine.onTaskSaved(task(id, lead, TaskPriority.MEDIUM, TaskStatus.DONE));
+		}
+
+		assertEquals(10 + 4 * 10, scoreOf(10L));
+	}
+
+	@Test
+	void closedAndUnassignedLeadsAreNotRanked() {
+		Users owner = user(1L, null);
+		engine.onLeadSaved(lead(10L, LeadStatus.CONVERTED, "Acme", owner));
+		engine.onLeadSaved(lead(11L, LeadStatus.LOST, "Acme", owner));
+		engine.onLeadSaved(lead(12L, LeadStatus.NEW, "Acme", null));
+		Lead open = lead(13L, LeadStatus.NEW, "Acme", owner);
+		engine.onLeadSaved(open);
+		assertEquals(List.of(13L), ids(engine.topOverall(10)));
+
+		open.setStatus(LeadStatus.LOST);
+		engine.onLeadSaved(open);
+		assertEquals(List.of(), ids(engine.topOverall(10)));
+	}
+
+	@Test
+	void teamTopMergesTheManagersOwnLeadsWithTheTeamsInScoreOrder() {
+		Users manager = user(1L, null);
+		Users employee = user(2L, manager);
+		Users elsewhere = user(3L, null);
+		engine.onLeadSaved(lead(10L, LeadStatus.CONTACTED, null, manager));
+		engine.onLeadSaved(lead(11L, LeadStatus.QUALIFIED, null, employee));
+		engine.onLeadSaved(lead(12L, LeadStatus.NEW, null, employee));
+		engine.onLeadSaved(lead(13L, LeadStatus.QUALIFIED, "Acme", elsewhere));
+
+		assertEquals(List.of(11L, 10L, 12L), ids(engine.topForTeam(1L, 10)));
+		assertEquals(List.of(11L, 10L), ids(engine.topForTeam(1L, 2)));
+		assertEquals(List.of(11L, 12L), ids(engine.topForOwner(2L, 10)));
+		assertEquals(List.of(13L, 11L, 10L, 12L), ids(engine.topOverall(10)));
+	}
+
+	@Test
+	void equalScoresRankTheNewerLeadFirstAndReassignmentMovesTheLead() {
+		Users first = user(1L, null);
+		Users second = user(2L, null);
+		engine.onLeadSaved(lead(10L, LeadStatus.NEW, null, first));
+		Lead moving = lead(11L, LeadStatus.NEW, null, first);
+		engine.onLeadSaved(moving);
+		assertEquals(List.of(11L, 10L), ids(engine.topForOwner(1L, 10)));
+
+		moving.setAssignedTo(second);
+		engine.onLeadSaved(moving);
+		assertEquals(List.of(10L), ids(engine.topForOwner(1L, 10)));
+		assertEquals(List.of(11L), ids(engine.topForOwner(2L, 10)));
+	}
+
+	// The lead is written while the rebuild streams, so it is reloaded afterwards; by then its task is gone
+	@Test
+	void reloadAfterARebuildDropsTaskEntriesTheLeadNoLongerHas() {
+		Lead lead = lead(10L, LeadStatus.NEW, null, user(1L, null));
+		when(leadRepository.streamAllForScoring()).thenAnswer(invocation -> Stream.of(lead)
+				.peek(engine::onLeadSaved));
+		when(taskRepository.streamLeadTaskContributions()).thenAnswer(invocation -> Stream.<Object[]>of(
+				new Object[] { 100L, 10L, TaskPriority.MEDIUM, TaskStatus.TODO }));
+		when(leadRepository.findById(10L)).thenReturn(Optional.of(lead));
+		when(taskRepository.findByLeadId(10L)).thenReturn(List.of());
+
+		engine.rebuild();
+		assertEquals(10, scoreOf(10L));
+
+		engine.onTaskDeleted(100L);
+		assertEquals(10, scoreOf(10L));
+	}
+
+	private LeadScoringEngine engine() {
+		LeadScoringEngine engine = new LeadScoringEngine();
+		ReflectionTestUtils.setField(engine, "leadRepository", leadRepository);
+		ReflectionTestUtils.setField(engine, "taskRepository", taskRepository);
+		ReflectionTestUtils.setField(engine, "transactionTemplate", new TransactionTemplate() {
+			@Override
+			public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+				return action.doInTransaction(null);
+			}
+		});
+		return engine;
+	}
+
+	private long scoreOf(Long leadId) {
+		return engine.topOverall(100).stream().filter(lead -> lead.leadId().equals(leadId)).findFirst()
+				.orElseThrow().score();
+	}
+
+	private static List<Long> ids(List<ScoredLead> leads) {
+		return leads.stream().map(ScoredLead::leadId).toList();
+	}
+
+	private static Users user(Long id, Users manager) {
+		Users user = new Users();
+		user.setId(id);
+		user.setManager(manager);
+		return user;
+	}
+
+	private static Lead lead(Long id, LeadStatus status, String company, Users owner) {
+		Lead lead = new Lead();
+		lead.setId(id);
+		lead.setName("Lead " + id);
+		lead.setStatus(status);
+		lead.setCompany(company);
+		lead.setAssignedTo(owner);
+		return lead;
+	}
+
+	private static Tasks task(Long id, Lead lead, TaskPriority priority, TaskStatus status) {
+		Tasks task = new Tasks();
+		task.setId(id);
+		task.setLead(lead);
+		task.setPriority(priority);
+		task.setStatus(status);
+		return task;
+	}
+}
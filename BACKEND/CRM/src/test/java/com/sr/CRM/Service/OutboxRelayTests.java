@@ -0,0 +1,278 @@
+package com.sr.CRM.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sr.CRM.Events.DomainEvent;
+import com.sr.CRM.Model.OutboxEvent;
+import com.sr.CRM.Repository.OutboxRepository;
+import com.sr.CRM.Repository.OutboxRepository.PendingEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@Testcontainers(disabledWithoutDocker = true)
+class OutboxRelayTests {
+
+	@Container
+	static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static DataSource dataSource;
+	private static JdbcTemplate jdbcTemplate;
+
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final List<DomainEvent> received = new ArrayList<>();
+	private OutboxRepository outboxRepository;
+	private DomainEventBus domainEventBus;
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeAll
+	static void createTable() {
+		dataSource = new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(),
+				POSTGRES.getPassword());
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("""
+				CREATE TABLE outbox_events (
+				    id BIGSERIAL PRIMARY KEY,
+				    event_type VARCHAR(64) NOT NULL,
+				    aggregate_type VARCHAR(16) NOT NULL,
+				    aggregate_id BIGINT,
+				    payload TEXT NOT NULL,
+				    occurred_at TIMESTAMP(6) NOT NULL,
+				    available_at TIMESTAMP(6) NOT NULL,
+				    attempts INT NOT NULL,
+				    published_at TIMESTAMP(6),
+				    last_error VARCHAR(1000))
+				""");
+	}
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.execute("TRUNCATE outbox_events");
+		outboxRepository = new OutboxRepository();
+		ReflectionTestUtils.setField(outboxRepository, "jdbcTemplate", new NamedParameterJdbcTemplate(dataSource));
+		domainEventBus = new DomainEventBus();
+		ReflectionTestUtils.setField(domainEventBus, "virtualThreadExecutor", executor);
+		ReflectionTestUtils.setField(domainEventBus, "parallelism", 4);
+		transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+	}
+
+	@AfterEach
+	void shutDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void claimTakesOnlyTheOldestPendingEventOfEachAggregate() {
+		long first = insert("lead", 1L);
+		insert("lead", 1L);
+		long other = insert("lead", 2L);
+		long task = insert("task", 1L);
+
+		assertEquals(List.of(first, other, task), claimedIds());
+	}
+
+	@Test
+	void aggregateClaimedByAnotherRelayIsSkippedEntirely() throws Exception {
+		long first = insert("lead", 1L);
+		insert("lead", 1L);
+		long other = insert("lead", 2L);
+
+		CountDownLatch claimed = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<List<Long>> holder = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(
+				status -> {
+					List<Long> ids = outboxRepository.claim(LocalDateTime.now(), 1).stream()
+							.map(PendingEvent::id).toList();
+					claimed.countDown();
+					await(release);
+					return ids;
+				}), executor);
+		assertTrue(claimed.await(10, TimeUnit.SECONDS));
+		try {
+			assertEquals(List.of(other), claimedIds());
+		} finally {
+			release.countDown();
+		}
+		assertEquals(List.of(first), holder.get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void deliveredEventsArePublishedAndTheAggregateMovesOn() {
+		long first = insert("lead", 1L);
+		long second = insert("lead", 1L);
+		OutboxRelay relay = relay(10, event -> {
+		});
+
+		assertEquals(1, relay.relayBatch());
+		assertEquals(List.of(first), receivedIds());
+		assertNotNull(row(first).get("published_at"));
+		assertEquals(1, row(first).get("attempts"));
+
+		assertEquals(1, relay.relayBatch());
+		assertEquals(0, relay.relayBatch());
+		assertEquals(List.of(first, second), receivedIds());
+	}
+
+	@Test
+	void failedEventIsBackedOffAndBlocksItsAggregate() {
+		long failing = insert("lead", 1L);
+		long next = insert("lead", 1L);
+		long other = insert("lead", 2L);
+		OutboxRelay relay = relay(10, event -> {
+			if (event.id() == failing) {
+				throw new IllegalStateException("consumer down");
+			}
+		});
+
+		LocalDateTime before = LocalDateTime.now();
+		relay.relayBatch();
+
+		Map<String, Object> row = row(failing);
+		assertNull(row.get("published_at"));
+		assertEquals(1, row.get("attempts"));
+		assertTrue(((Timestamp) row.get("available_at")).toLocalDateTime().isAfter(before.plusSeconds(1)));
+		assertTrue(((String) row.get("last_error")).contains("consumer down"));
+		assertNotNull(row(other).get("published_at"));
+
+		assertEquals(0, relay.relayBatch());
+		assertNull(row(next).get("published_at"));
+		assertEquals(List.of(failing, other), receivedIds());
+	}
+
+	@Test
+	void failedEventIsRedeliveredOnceItsBackoffHasPassed() {
+		long event = insert("lead", 1L);
+		Set<Long> failOnce = new HashSet<>(Set.of(event));
+		OutboxRelay relay = relay(10, delivered -> {
+			if (failOnce.remove(delivered.id())) {
+				throw new IllegalStateException("transient");
+			}
+		});
+
+		relay.relayBatch();
+		jdbcTemplate.update("UPDATE outbox_events SET available_at = available_at - INTERVAL '1 hour'");
+		assertEquals(1, relay.relayBatch());
+
+		assertEquals(List.of(event, event), receivedIds());
+		assertEquals(2, received.get(1).attempt());
+		Map<String, Object> row = row(event);
+		assertNotNull(row.get("published_at"));
+		assertNull(row.get("last_error"));
+		assertEquals(2, row.get("attempts"));
+	}
+
+	@Test
+	void eventIsDeadLetteredAfterItsLastAttemptAndReleasesTheAggregate() {
+		long dead = insert("lead", 1L);
+		long next = insert("lead", 1L);
+		OutboxRelay relay = relay(1, event -> {
+			if (event.id() == dead) {
+				throw new IllegalStateException("poison");
+			}
+		});
+
+		relay.relayBatch();
+		Map<String, Object> row = row(dead);
+		assertNotNull(row.get("published_at"));
+		assertTrue(((String) row.get("last_error")).contains("poison"));
+
+		assertEquals(1, relay.relayBatch());
+		assertEquals(List.of(dead, next), receivedIds());
+		assertEquals(0, outboxRepository.pendingCount());
+	}
+
+	@Test
+	void unreadablePayloadIsDeadLetteredWithoutReachingConsumers() {
+		long broken = insert("lead", 1L);
+		jdbcTemplate.update("UPDATE outbox_events SET payload = 'not json' WHERE id = ?", broken);
+		OutboxRelay relay = relay(10, event -> {
+		});
+
+		relay.relayBatch();
+
+		assertEquals(List.of(), receivedIds());
+		assertNotNull(row(broken).get("published_at"));
+		assertNotNull(row(broken).get("last_error"));
+	}
+
+	private OutboxRelay relay(int maxAttempts, Consumer<DomainEvent> consumer) {
+		domainEventBus.subscribe(DomainEventBus.ALL, "test", event -> {
+			synchronized (received) {
+				received.add(event);
+			}
+			consumer.accept(event);
+		});
+		OutboxRelay relay = new OutboxRelay(new DataSourceTransactionManager(dataSource), new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(relay, "outboxRepository", outboxRepository);
+		ReflectionTestUtils.setField(relay, "domainEventBus", domainEventBus);
+		ReflectionTestUtils.setField(relay, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(relay, "virtualThreadExecutor", executor);
+		ReflectionTestUtils.setField(relay, "batchSize", 50);
+		ReflectionTestUtils.setField(relay, "maxAttempts", maxAttempts);
+		return relay;
+	}
+
+	private long insert(String aggregateType, Long aggregateId) {
+		LocalDateTime now = LocalDateTime.now().minusSeconds(1);
+		String type = aggregateType.equals("lead") ? DomainEvent.LEAD_UPDATED : DomainEvent.TASK_UPDATED;
+		transactionTemplate.executeWithoutResult(status -> outboxRepository.insertAll(List.of(
+				new OutboxEvent(null, type, aggregateType, aggregateId, "{}", now, now, 0, null, null))));
+		return jdbcTemplate.queryForObject("SELECT MAX(id) FROM outbox_events", Long.class);
+	}
+
+	private List<Long> claimedIds() {
+		return transactionTemplate.execute(status -> outboxRepository.claim(LocalDateTime.now(), 50).stream()
+				.map(PendingEvent::id).toList());
+	}
+
+	private List<Long> receivedIds() {
+		synchronized (received) {
+			return received.stream().map(DomainEvent::id).toList();
+		}
+	}
+
+	private static Map<String, Object> row(long id) {
+		return jdbcTemplate.queryForMap("SELECT * FROM outbox_events WHERE id = ?", id);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
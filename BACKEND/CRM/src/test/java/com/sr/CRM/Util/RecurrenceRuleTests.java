@@ -0,0 +1,73 @@
+package com.sr.CRM.Util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class RecurrenceRuleTests {
+
+	@Test
+	void dailyIntervalStaysOnTheStartGridFarPastStart() {
+		RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;INTERVAL=3");
+		LocalDateTime start = LocalDateTime.of(2026, 1, 1, 9, 0);
+
+		assertEquals(List.of(LocalDateTime.of(2026, 3, 2, 9, 0), LocalDateTime.of(2026, 3, 5, 9, 0),
+				LocalDateTime.of(2026, 3, 8, 9, 0)),
+				rule.occurrences(start, LocalDateTime.of(2026, 3, 1, 9, 0), LocalDateTime.of(2026, 3, 10, 23, 59), 10));
+	}
+
+	@Test
+	void weeklyIntervalWithByDayStaysOnTheStartGridFarPastStart() {
+		RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;INTERVAL=2;BYDAY=TU");
+		// A Thursday; the Tuesday of its own week is before the start and never occurs
+		LocalDateTime start = LocalDateTime.of(2026, 1, 1, 9, 0);
+
+		assertEquals(List.of(LocalDateTime.of(2026, 6, 2, 9, 0), LocalDateTime.of(2026, 6, 16, 9, 0),
+				LocalDateTime.of(2026, 6, 30, 9, 0)),
+				rule.occurrences(start, LocalDateTime.of(2026, 6, 1, 9, 0), LocalDateTime.of(2026, 12, 31, 23, 59), 3));
+	}
+
+	@Test
+	void byDayBeforeTheStartInTheFirstWeekIsNeitherEmittedNorCounted() {
+		RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;BYDAY=MO,WE,FR;COUNT=4");
+		// A Wednesday; Monday 19 October is in the same week
+		LocalDateTime start = LocalDateTime.of(2026, 10, 21, 10, 0);
+
+		assertEquals(List.of(start, LocalDateTime.of(2026, 10, 23, 10, 0), LocalDateTime.of(2026, 10, 26, 10, 0),
+				LocalDateTime.of(2026, 10, 28, 10, 0)),
+				rule.occurrences(start, start.minusDays(7), LocalDateTime.of(2026, 12, 31, 23, 59), 10));
+	}
+
+	@Test
+	void monthlyOnThe31stSkipsShorterMonths() {
+		RecurrenceRule rule = RecurrenceRule.parse("FREQ=MONTHLY");
+		LocalDateTime start = LocalDateTime.of(2026, 1, 31, 8, 0);
+		LocalDateTime through = LocalDateTime.of(2026, 12, 31, 23, 59);
+
+		assertEquals(List.of(start, LocalDateTime.of(2026, 3, 31, 8, 0), LocalDateTime.of(2026, 5, 31, 8, 0),
+				LocalDateTime.of(2026, 7, 31, 8, 0), LocalDateTime.of(2026, 8, 31, 8, 0),
+				LocalDateTime.of(2026, 10, 31, 8, 0), LocalDateTime.of(2026, 12, 31, 8, 0)),
+				rule.occurrences(start, start.minusDays(1), through, 20));
+		assertEquals(List.of(LocalDateTime.of(2026, 7, 31, 8, 0), LocalDateTime.of(2026, 8, 31, 8, 0)),
+				rule.occurrences(start, LocalDateTime.of(2026, 6, 15, 0, 0), through, 2));
+	}
+
+	@Test
+	void countIncludesOccurrencesBeforeTheWindow() {
+		RecurrenceRule daily = RecurrenceRule.parse("FREQ=DAILY;COUNT=5");
+		LocalDateTime start = LocalDateTime.of(2026, 1, 1, 9, 0);
+
+		assertEquals(List.of(LocalDateTime.of(2026, 1, 4, 9, 0), LocalDateTime.of(2026, 1, 5, 9, 0)),
+				daily.occurrences(start, LocalDateTime.of(2026, 1, 3, 9, 0),
+						LocalDateTime.of(2026, 1, 31, 23, 59), 10));
+
+		RecurrenceRule monthly = RecurrenceRule.parse("FREQ=MONTHLY;COUNT=3");
+		LocalDateTime endOfMonth = LocalDateTime.of(2026, 1, 31, 8, 0);
+		assertEquals(List.of(LocalDateTime.of(2026, 3, 31, 8, 0), LocalDateTime.of(2026, 5, 31, 8, 0)),
+				monthly.occurrences(endOfMonth, LocalDateTime.of(2026, 2, 1, 0, 0),
+						LocalDateTime.of(2026, 12, 31, 23, 59), 10));
+	}
+}